@@ -0,0 +1,77 @@
+package com.cc.eventcalendar;
+
+import android.util.Log;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.adapter.DayEventAdapter;
+import com.cc.eventcalendar.calendarview.adapter.SimpleEvent;
+import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measure how the timeline finds the events to draw, run it on a device and check the logcat output
+ * with the tag "DayEventAdapterBenchmark".
+ */
+public class DayEventAdapterBenchmark extends TestCase {
+    private static final String TAG = "DayEventAdapterBenchmark";
+
+    /**
+     * The hours that a screen shows at the maximum zoom, the hours are twice as high as the default.
+     */
+    private static final long VISIBLE_TIME = 3 * OSTimeUtil.MILLIS_IN_HOUR;
+
+    /**
+     * The scroll offset between two frames of a fling.
+     */
+    private static final long FRAME_STEP = 5 * 60000L;
+
+    public void testVisibleEventsOf500() {
+        Calendar day = Calendar.getInstance();
+        OSTimeUtil.changeToStartOfDay(day);
+        final long dayStart = day.getTimeInMillis();
+        Random random = new Random(23);
+        List<ICalendarEvent> events = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            final long start = dayStart + (long) (random.nextDouble() * OSTimeUtil.MILLIS_IN_DAY);
+            events.add(new SimpleEvent("event-" + i, start, start + (1 + random.nextInt(8)) * 15 * 60000L));
+        }
+        DayEventAdapter adapter = new DayEventAdapter(events, day);
+
+        int frames = 0;
+        long scanned = 0;
+        long start = System.nanoTime();
+        for (long top = dayStart; top < dayStart + OSTimeUtil.MILLIS_IN_DAY; top += FRAME_STEP) {
+            for (int i = 0; i < adapter.getEventsCount(); i++) {
+                ICalendarEvent event = adapter.getEvent(i);
+                if (event.getStartTime() < top + VISIBLE_TIME && event.getEndTime() > top) {
+                    scanned++;
+                }
+            }
+            frames++;
+        }
+        final long scanTime = System.nanoTime() - start;
+
+        long culled = 0;
+        start = System.nanoTime();
+        for (long top = dayStart; top < dayStart + OSTimeUtil.MILLIS_IN_DAY; top += FRAME_STEP) {
+            final int last = adapter.findFirstEventStartingFrom(top + VISIBLE_TIME);
+            for (int i = adapter.findFirstEventEndingAfter(top); i < last; i++) {
+                ICalendarEvent event = adapter.getEvent(adapter.getEventIndex(i));
+                if (event.getEndTime() > top) {
+                    culled++;
+                }
+            }
+        }
+        final long cullTime = System.nanoTime() - start;
+
+        assertEquals(scanned, culled);
+        Log.i(TAG, "500 events, " + frames + " frames at the maximum zoom, scan all:" + scanTime / frames
+                + "ns/frame culled:" + cullTime / frames + "ns/frame (" + culled / frames + " visible events/frame)");
+    }
+}
@@ -0,0 +1,99 @@
+package com.cc.eventcalendar;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Parcel;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.adapter.EventBundle;
+import com.cc.eventcalendar.calendarview.adapter.SimpleEvent;
+import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Pass the {@link EventBundle} through the bundles of an Intent and a saved state.
+ */
+public class EventBundleTest extends TestCase {
+    private static final long BASE_TIME = 1451606400000L;
+
+    public void testInlineBundleRoundTrip() {
+        List<ICalendarEvent> events = createEvents(200);
+        Intent intent = new Intent();
+        intent.putExtra("events", new EventBundle(events));
+        assertFalse(intent.hasFileDescriptors());
+
+        Bundle restored = parcel(intent.getExtras());
+        assertEvents(events, restored.<EventBundle>getParcelable("events").getEvents());
+    }
+
+    public void testLargeBundleIsWrittenToTheCache() {
+        List<ICalendarEvent> events = createEvents(30000);
+        Bundle state = new Bundle();
+        // The temporary directory of an app is its cache directory.
+        File cacheDir = new File(System.getProperty("java.io.tmpdir"));
+        state.putParcelable("events", new EventBundle(events, cacheDir));
+        assertFalse(state.hasFileDescriptors());
+
+        // A saved state can be restored more than once.
+        Bundle restored = parcel(state);
+        assertEvents(events, restored.<EventBundle>getParcelable("events").getEvents());
+        restored = parcel(state);
+        assertEvents(events, restored.<EventBundle>getParcelable("events").getEvents());
+    }
+
+    public void testLargeBundleWithoutCacheFails() {
+        Parcel parcel = Parcel.obtain();
+        try {
+            new EventBundle(createEvents(30000)).writeToParcel(parcel, 0);
+            fail("The payload is larger than " + EventBundle.MAX_INLINE_BYTES + " bytes.");
+        } catch (IllegalStateException e) {
+            // Expected.
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private Bundle parcel(Bundle bundle) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeBundle(bundle);
+            parcel.setDataPosition(0);
+            Bundle ret = parcel.readBundle(EventBundle.class.getClassLoader());
+            assertNotNull(ret);
+            return ret;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static void assertEvents(List<ICalendarEvent> expected, List<ICalendarEvent> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getID(), actual.get(i).getID());
+            assertEquals(expected.get(i).getStartTime(), actual.get(i).getStartTime());
+            assertEquals(expected.get(i).getEndTime(), actual.get(i).getEndTime());
+            assertEquals(expected.get(i).getTitle(), actual.get(i).getTitle());
+        }
+    }
+
+    private static List<ICalendarEvent> createEvents(int count) {
+        // The ids are random, so the large payloads cannot be deflated below the inline limit.
+        Random random = new Random(3);
+        List<ICalendarEvent> events = new ArrayList<>(count);
+        long time = BASE_TIME;
+        for (int i = 0; i < count; i++) {
+            time += random.nextInt(4) * OSTimeUtil.MILLIS_IN_HOUR / 2;
+            SimpleEvent event = new SimpleEvent(Long.toHexString(random.nextLong()), time,
+                    time + OSTimeUtil.MILLIS_IN_HOUR);
+            event.setTitle(i % 3 == 0 ? "Standup" : "Review");
+            events.add(event);
+        }
+        return events;
+    }
+}
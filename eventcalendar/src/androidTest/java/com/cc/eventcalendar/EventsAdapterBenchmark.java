@@ -0,0 +1,335 @@
+package com.cc.eventcalendar;
+
+import android.os.Parcel;
+import android.util.Log;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.adapter.BaseEvent;
+import com.cc.eventcalendar.calendarview.adapter.ColumnarEventStore;
+import com.cc.eventcalendar.calendarview.adapter.DaySummary;
+import com.cc.eventcalendar.calendarview.adapter.DayBucketEventStore;
+import com.cc.eventcalendar.calendarview.adapter.EventStore;
+import com.cc.eventcalendar.calendarview.adapter.EventsAdapter;
+import com.cc.eventcalendar.calendarview.adapter.IntervalTreeEventStore;
+import com.cc.eventcalendar.calendarview.adapter.WorkingHours;
+import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+import com.cc.eventcalendar.calendarview.util.RecurrenceRule;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compare the storage engines of the {@link EventsAdapter}, run it on a device and check the logcat
+ * output with the tag "EventsAdapterBenchmark".
+ */
+public class EventsAdapterBenchmark extends TestCase {
+    private static final String TAG = "EventsAdapterBenchmark";
+    private static final int DAYS_OF_RANGE = 2 * 365;
+
+    private long mBaseTime;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Calendar c = Calendar.getInstance();
+        c.set(2016, Calendar.JANUARY, 1);
+        OSTimeUtil.changeToStartOfDay(c);
+        mBaseTime = c.getTimeInMillis();
+    }
+
+    public void testStores10k() {
+        runStores(10000);
+    }
+
+    public void testStores100k() {
+        runStores(100000);
+    }
+
+    /**
+     * The same as {@link #testStores100k()} with one event that covers all of the days, such as a long
+     * vacation. It starts before the others, so every query of the columnar store overlaps it.
+     */
+    public void testStores100kWithLongEvent() {
+        List<ICalendarEvent> events = createEvents(100000, 1);
+        events.add(new BenchmarkEvent("long-event", mBaseTime - OSTimeUtil.MILLIS_IN_DAY,
+                mBaseTime + (long) (DAYS_OF_RANGE + 1) * OSTimeUtil.MILLIS_IN_DAY));
+        runStores(events);
+    }
+
+    private void runStores(int count) {
+        runStores(createEvents(count, 1));
+    }
+
+    private void runStores(List<ICalendarEvent> events) {
+        benchmark("DayBucketEventStore", new DayBucketEventStore(), events);
+        benchmark("IntervalTreeEventStore", new IntervalTreeEventStore(), events);
+        benchmark("ColumnarEventStore", new ColumnarEventStore(), events);
+    }
+
+    /**
+     * Compare the heap that the adapter retains for the events, the events are only referenced by the
+     * adapter after they are added.
+     */
+    public void testMemory100k() {
+        measureMemory("DayBucketEventStore", new DayBucketEventStore(), 100000);
+        measureMemory("IntervalTreeEventStore", new IntervalTreeEventStore(), 100000);
+        measureMemory("ColumnarEventStore", new ColumnarEventStore(), 100000);
+    }
+
+    private void measureMemory(String name, EventStore store, int count) {
+        final long before = usedMemory();
+        EventsAdapter adapter = new EventsAdapter(store);
+        adapter.addEvent(createEvents(count, 2));
+        final long after = usedMemory();
+        // Keep the adapter reachable until the memory is measured.
+        final boolean hasEvent = adapter.hasEvent(mBaseTime);
+        Log.i(TAG, name + " events:" + count + " retained:" + (after - before) / 1024 + "KB (" + hasEvent + ")");
+    }
+
+    /**
+     * Compare the recurring events with the same instances expanded before they are added, the days of
+     * five years are read one by one like scrolling the calendar.
+     */
+    public void testRecurrence5Years() {
+        final String[] rules = {"FREQ=DAILY", "FREQ=WEEKLY;BYDAY=MO,WE,FR", "FREQ=WEEKLY;INTERVAL=2",
+                "FREQ=MONTHLY;BYDAY=-1FR", "FREQ=MONTHLY", "FREQ=YEARLY"};
+        final int days = 5 * 365;
+        final long endTime = mBaseTime + (long) days * OSTimeUtil.MILLIS_IN_DAY;
+        Random random = new Random(4);
+        List<ICalendarEvent> masters = new ArrayList<>();
+        List<RecurrenceRule> parsedRules = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long start = mBaseTime + (long) (random.nextDouble() * 30 * OSTimeUtil.MILLIS_IN_DAY);
+            masters.add(new BenchmarkEvent("recurring-" + i, start, start + (1 + random.nextInt(4)) * 30 * 60000L));
+            parsedRules.add(RecurrenceRule.parse(rules[i % rules.length]));
+        }
+
+        long start = System.nanoTime();
+        List<ICalendarEvent> expanded = new ArrayList<>();
+        for (int i = 0; i < masters.size(); i++) {
+            ICalendarEvent master = masters.get(i);
+            final long duration = master.getEndTime() - master.getStartTime();
+            for (long time : parsedRules.get(i).expand(master.getStartTime(), duration, mBaseTime, endTime, null)) {
+                expanded.add(new BenchmarkEvent(master.getID() + "@" + time, time, time + duration));
+            }
+        }
+        EventsAdapter expandedAdapter = new EventsAdapter();
+        expandedAdapter.addEvent(expanded);
+        final long expandedSetup = System.nanoTime() - start;
+        final long expandedQuery = walkDays(expandedAdapter, days);
+
+        start = System.nanoTime();
+        EventsAdapter recurringAdapter = new EventsAdapter();
+        recurringAdapter.beginBatch();
+        for (int i = 0; i < masters.size(); i++) {
+            recurringAdapter.addRecurringEvent(masters.get(i), parsedRules.get(i), null);
+        }
+        recurringAdapter.endBatch();
+        final long recurringSetup = System.nanoTime() - start;
+        final long recurringQuery = walkDays(recurringAdapter, days);
+
+        Log.i(TAG, "pre-expanded instances:" + expanded.size() + " setup:" + expandedSetup / 1000000 + "ms query:"
+                + expandedQuery / 1000000 + "ms");
+        Log.i(TAG, "recurring rules:" + masters.size() + " setup:" + recurringSetup / 1000000 + "ms query:"
+                + recurringQuery / 1000000 + "ms");
+    }
+
+    /**
+     * Summarize a year of days for the heat map, then again after one event is changed, only the days of
+     * the changed event are computed again.
+     */
+    public void testDaySummariesOfYear() {
+        List<ICalendarEvent> events = createEvents(100000, 5);
+        EventsAdapter adapter = new EventsAdapter(new IntervalTreeEventStore());
+        adapter.addEvent(events);
+        final int firstDay = EventsAdapter.getKey(mBaseTime);
+
+        long start = System.nanoTime();
+        DaySummary[] summaries = adapter.getDaySummaries(firstDay, 365);
+        final long coldTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        adapter.getDaySummaries(firstDay, 365);
+        final long warmTime = System.nanoTime() - start;
+
+        ICalendarEvent changed = events.get(0);
+        changed.setEndTime(changed.getEndTime() + 60 * 60000L);
+        adapter.updateEvent(changed);
+        start = System.nanoTime();
+        adapter.getDaySummaries(firstDay, 365);
+        final long changedTime = System.nanoTime() - start;
+
+        int busyMinutes = 0;
+        for (DaySummary summary : summaries) {
+            busyMinutes += summary.getBusyMinutes();
+        }
+        Log.i(TAG, "day summaries of a year cold:" + coldTime / 1000000 + "ms warm:" + warmTime / 1000
+                + "us after one change:" + changedTime / 1000 + "us (" + busyMinutes + ")");
+    }
+
+    public void testFreeSlotsOfTwoWeeks() {
+        EventsAdapter adapter = new EventsAdapter(new IntervalTreeEventStore());
+        adapter.addEvent(createEvents(100000, 7));
+        WorkingHours hours = new WorkingHours(9 * 60, 18 * 60, Calendar.MONDAY, Calendar.TUESDAY,
+                Calendar.WEDNESDAY, Calendar.THURSDAY, Calendar.FRIDAY);
+        final long rangeStart = mBaseTime + 100L * OSTimeUtil.MILLIS_IN_DAY;
+        final long rangeEnd = rangeStart + 14L * OSTimeUtil.MILLIS_IN_DAY;
+
+        long[] slots = null;
+        final long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            slots = adapter.findFreeSlots(rangeStart, rangeEnd, 30 * 60000L, hours, 20);
+        }
+        Log.i(TAG, "free slots of two weeks:" + (System.nanoTime() - start) / 100 / 1000 + "us ("
+                + adapter.getEvents(rangeStart, rangeEnd).size() + " events, " + slots.length + " slots)");
+    }
+
+    private long walkDays(EventsAdapter adapter, int days) {
+        final long start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < days; i++) {
+            long day = mBaseTime + (long) i * OSTimeUtil.MILLIS_IN_DAY + OSTimeUtil.MILLIS_IN_DAY / 2;
+            List<? extends ICalendarEvent> eventsOfDay = adapter.getEvent(EventsAdapter.getKey(day));
+            found += eventsOfDay == null ? 0 : eventsOfDay.size();
+            if (adapter.hasEvent(day)) {
+                found++;
+            }
+        }
+        assertTrue(found > 0);
+        return System.nanoTime() - start;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private void benchmark(String name, EventStore store, List<ICalendarEvent> events) {
+        EventsAdapter adapter = new EventsAdapter(store);
+
+        long start = System.nanoTime();
+        adapter.addEvent(events);
+        long addTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < DAYS_OF_RANGE; i++) {
+            long day = mBaseTime + (long) i * OSTimeUtil.MILLIS_IN_DAY;
+            List<? extends ICalendarEvent> eventsOfDay = adapter.getEvent(EventsAdapter.getKey(day));
+            found += eventsOfDay == null ? 0 : eventsOfDay.size();
+            if (adapter.hasEvent(day)) {
+                found++;
+            }
+        }
+        long queryTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < events.size(); i += 10) {
+            adapter.deleteEvent(events.get(i));
+        }
+        long deleteTime = System.nanoTime() - start;
+
+        Log.i(TAG, name + " events:" + events.size() + " add:" + addTime / 1000000 + "ms query:"
+                + queryTime / 1000000 + "ms delete 10%:" + deleteTime / 1000000 + "ms (" + found + ")");
+    }
+
+    /**
+     * Create the events with a realistic mix: mostly meetings in one day, some multi-day events and a few
+     * long maintenance windows.
+     */
+    private List<ICalendarEvent> createEvents(int count, long seed) {
+        Random random = new Random(seed);
+        List<ICalendarEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long start = mBaseTime + (long) (random.nextDouble() * DAYS_OF_RANGE * OSTimeUtil.MILLIS_IN_DAY);
+            long duration;
+            int kind = random.nextInt(100);
+            if (kind < 85) {
+                duration = (1 + random.nextInt(8)) * 15 * 60000L;
+            } else if (kind < 99) {
+                duration = (1 + random.nextInt(5)) * (long) OSTimeUtil.MILLIS_IN_DAY;
+            } else {
+                duration = (30 + random.nextInt(335)) * (long) OSTimeUtil.MILLIS_IN_DAY;
+            }
+            events.add(new BenchmarkEvent("event-" + i, start, start + duration));
+        }
+        return events;
+    }
+
+    private static class BenchmarkEvent extends BaseEvent {
+        private String mId;
+
+        BenchmarkEvent(String id, long startTime, long endTime) {
+            mId = id;
+            mStartTime = startTime;
+            mEndTime = endTime;
+        }
+
+        @Override
+        public void setID(String id) {
+            mId = id;
+        }
+
+        @Override
+        public String getID() {
+            return mId;
+        }
+
+        @Override
+        public void setTitle(String title) {
+        }
+
+        @Override
+        public String getTitle() {
+            return mId;
+        }
+
+        @Override
+        public void setComment(String comment) {
+        }
+
+        @Override
+        public String getComment() {
+            return null;
+        }
+
+        @Override
+        public void setCreator(String creator) {
+        }
+
+        @Override
+        public String getCreator() {
+            return null;
+        }
+
+        @Override
+        public boolean isAllDayEvent() {
+            return false;
+        }
+
+        @Override
+        public int getType() {
+            return CalendarEventType.CALENDAR_EVENT_TYPE_NORMAL;
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeString(mId);
+            dest.writeLong(mStartTime);
+            dest.writeLong(mEndTime);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.cc.eventcalendar;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.adapter.EventsAdapter;
+import com.cc.eventcalendar.calendarview.adapter.IntervalTreeEventStore;
+import com.cc.eventcalendar.calendarview.adapter.SimpleEvent;
+import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+
+import junit.framework.TestCase;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Run the batches of a writer against the readers of a concurrent {@link EventsAdapter}. Every batch moves
+ * all of the events to another day one by one, so a reader that sees a half applied batch finds a missing
+ * event, a day with a part of the events or two days with events in one read.
+ */
+public class EventsAdapterConcurrencyTest extends TestCase {
+    private static final int EVENT_COUNT = 20;
+    private static final int DAY_COUNT = 8;
+    private static final int BATCH_COUNT = 500;
+    private static final int READER_COUNT = 3;
+
+    private long mBaseTime;
+    private int mBaseDay;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Calendar c = Calendar.getInstance();
+        c.set(2016, Calendar.JANUARY, 4);
+        OSTimeUtil.changeToStartOfDay(c);
+        mBaseTime = c.getTimeInMillis();
+        mBaseDay = EventsAdapter.getKey(mBaseTime);
+    }
+
+    public void testReadersSeeWholeBatches() throws Exception {
+        final EventsAdapter adapter = new EventsAdapter(new IntervalTreeEventStore(), true);
+        moveEvents(adapter, 0);
+
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<>();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int generation = 1; generation <= BATCH_COUNT; generation++) {
+                        moveEvents(adapter, generation);
+                    }
+                } finally {
+                    done.set(true);
+                }
+            }
+        });
+
+        Thread[] readers = new Thread[READER_COUNT];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int lastGeneration = 0;
+                    while (!done.get() && failure.get() == null) {
+                        String error = checkEventDays(adapter);
+                        if (error == null) {
+                            error = checkEventsOfDays(adapter);
+                        }
+                        if (error == null) {
+                            // The generations that one reader sees never go back.
+                            for (int k = 0; k < EVENT_COUNT && error == null; k++) {
+                                ICalendarEvent event = adapter.getEventById("event-" + k);
+                                if (event == null) {
+                                    error = "event-" + k + " is missing";
+                                } else if (getGeneration(event) < lastGeneration) {
+                                    error = "event-" + k + " goes back to " + event.getTitle();
+                                } else {
+                                    lastGeneration = getGeneration(event);
+                                }
+                            }
+                        }
+                        if (error != null) {
+                            failure.compareAndSet(null, error);
+                        }
+                    }
+                }
+            });
+        }
+
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.start();
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get(), failure.get());
+        assertEquals(EVENT_COUNT, adapter.getEvent(mBaseDay + BATCH_COUNT % DAY_COUNT).size());
+    }
+
+    /**
+     * Move all of the events to the day of the generation, each event is deleted and added again.
+     */
+    private void moveEvents(EventsAdapter adapter, int generation) {
+        final long dayStart = mBaseTime + (long) (generation % DAY_COUNT) * OSTimeUtil.MILLIS_IN_DAY;
+        adapter.beginBatch();
+        try {
+            for (int k = 0; k < EVENT_COUNT; k++) {
+                final String id = "event-" + k;
+                ICalendarEvent old = adapter.getEventById(id);
+                if (old != null) {
+                    adapter.deleteEvent(old);
+                }
+
+                final long start = dayStart + (long) k * OSTimeUtil.MILLIS_IN_HOUR / 2;
+                SimpleEvent event = new SimpleEvent(id, start, start + OSTimeUtil.MILLIS_IN_HOUR);
+                event.setTitle(String.valueOf(generation));
+                adapter.addEvent(event);
+            }
+        } finally {
+            adapter.endBatch();
+        }
+    }
+
+    private String checkEventDays(EventsAdapter adapter) {
+        final long days = adapter.getEventDays(mBaseDay, DAY_COUNT);
+        return Long.bitCount(days) == 1 ? null : "the days with events are " + Long.toBinaryString(days);
+    }
+
+    private String checkEventsOfDays(EventsAdapter adapter) {
+        for (int i = 0; i < DAY_COUNT; i++) {
+            List<? extends ICalendarEvent> events = adapter.getEvent(mBaseDay + i);
+            if (events == null || events.isEmpty()) {
+                continue;
+            }
+
+            if (events.size() != EVENT_COUNT) {
+                return "day " + i + " has " + events.size() + " events";
+            }
+            final String title = events.get(0).getTitle();
+            for (ICalendarEvent event : events) {
+                if (!title.equals(event.getTitle())) {
+                    return "day " + i + " mixes the batches " + title + " and " + event.getTitle();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int getGeneration(ICalendarEvent event) {
+        return Integer.parseInt(event.getTitle());
+    }
+}
@@ -0,0 +1,102 @@
+package com.cc.eventcalendar;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.adapter.EventSource;
+import com.cc.eventcalendar.calendarview.adapter.EventsAdapter;
+import com.cc.eventcalendar.calendarview.adapter.SimpleEvent;
+import com.cc.eventcalendar.calendarview.util.DayKey;
+import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evict the days loaded from an {@link EventSource} of {@link EventsAdapter}, the results of the source
+ * are applied on the main thread.
+ */
+public class EventsAdapterEvictionTest extends TestCase {
+    private static final int EVENTS_PER_DAY = 8;
+
+    private int mBaseDay;
+    private EventsAdapter mAdapter;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Calendar c = Calendar.getInstance();
+        c.set(2016, Calendar.JANUARY, 4);
+        // The first day of a block of 32 days.
+        mBaseDay = DayKey.of(c) >> 5 << 5;
+
+        mAdapter = new EventsAdapter();
+        mAdapter.setPrefetchDays(0);
+        mAdapter.setMaxCachedEvents(10);
+        mAdapter.setEventSource(new EventSource() {
+            @Override
+            public void load(int startDay, int endDay, Callback callback) {
+                List<ICalendarEvent> events = new ArrayList<>();
+                for (int i = 0; i < EVENTS_PER_DAY; i++) {
+                    events.add(createEvent("source-" + startDay + "-" + i, startDay));
+                }
+                callback.onLoaded(events);
+            }
+        });
+    }
+
+    public void testEventsOfTheHostAreNotEvicted() throws Exception {
+        // The event of the host is in the block of the first loaded day.
+        mAdapter.addEvent(createEvent("host", mBaseDay + 1));
+        requestDay(mBaseDay);
+        assertNotNull(mAdapter.getEventById("source-" + mBaseDay + "-0"));
+
+        // The second load exceeds the budget, the least recently used block is evicted.
+        requestDay(mBaseDay + 40);
+        assertEquals(EVENTS_PER_DAY, mAdapter.getEvictionCount());
+        assertNull(mAdapter.getEventById("source-" + mBaseDay + "-0"));
+        assertNotNull(mAdapter.getEventById("host"));
+        assertNotNull(mAdapter.getEventById("source-" + (mBaseDay + 40) + "-0"));
+
+        requestDay(mBaseDay + 80);
+        assertEquals(2 * EVENTS_PER_DAY, mAdapter.getEvictionCount());
+        assertNotNull(mAdapter.getEventById("host"));
+        assertTrue(mAdapter.hasEvent(DayKey.getStartTime(mBaseDay + 1)));
+    }
+
+    public void testRequestCounters() throws Exception {
+        requestDay(mBaseDay);
+        mAdapter.requestDays(mBaseDay, mBaseDay);
+        assertEquals(1, mAdapter.getRequestMissCount());
+        assertEquals(1, mAdapter.getRequestHitCount());
+    }
+
+    private void requestDay(int day) throws InterruptedException {
+        mAdapter.requestDays(day, day);
+        // The request is sent to the source on the main thread, then the result is posted to it.
+        waitForMainThread();
+        waitForMainThread();
+    }
+
+    private static void waitForMainThread() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    private static ICalendarEvent createEvent(String id, int day) {
+        final long start = DayKey.getStartTime(day) + 9 * OSTimeUtil.MILLIS_IN_HOUR;
+        return new SimpleEvent(id, start, start + OSTimeUtil.MILLIS_IN_HOUR);
+    }
+}
@@ -0,0 +1,94 @@
+package com.cc.eventcalendar;
+
+import android.database.DataSetObserver;
+
+import com.cc.eventcalendar.calendarview.adapter.EventDataSetObserver;
+import com.cc.eventcalendar.calendarview.adapter.EventsAdapter;
+import com.cc.eventcalendar.calendarview.adapter.SimpleEvent;
+import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Check the notifications of the batches of {@link EventsAdapter}.
+ */
+public class EventsAdapterNotificationTest extends TestCase {
+    private long mBaseTime;
+    private EventsAdapter mAdapter;
+    private CountingObserver mPlainObserver;
+    private RangeObserver mRangeObserver;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Calendar c = Calendar.getInstance();
+        c.set(2016, Calendar.JANUARY, 4);
+        OSTimeUtil.changeToStartOfDay(c);
+        mBaseTime = c.getTimeInMillis();
+
+        mAdapter = new EventsAdapter();
+        mPlainObserver = new CountingObserver();
+        mRangeObserver = new RangeObserver();
+        mAdapter.registerDataSetObserver(mPlainObserver);
+        mAdapter.registerDataSetObserver(mRangeObserver);
+    }
+
+    public void testPlainObserverIsNotifiedOncePerBatch() {
+        addEventsOnDays(0, 10, 20);
+        assertEquals(1, mPlainObserver.mChangedCount);
+        assertEquals(3, mRangeObserver.mRanges.size() / 2);
+        assertEquals(0, mRangeObserver.mChangedCount);
+    }
+
+    public void testManyRangesAreMerged() {
+        int[] days = new int[40];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = i * 2;
+        }
+        addEventsOnDays(days);
+        assertEquals(1, mPlainObserver.mChangedCount);
+        // The ranges over the limit are merged into one range.
+        assertEquals(2, mRangeObserver.mRanges.size());
+    }
+
+    private void addEventsOnDays(int... days) {
+        mAdapter.beginBatch();
+        try {
+            for (int day : days) {
+                final long start = mBaseTime + (long) day * OSTimeUtil.MILLIS_IN_DAY + 9 * OSTimeUtil.MILLIS_IN_HOUR;
+                mAdapter.addEvent(new SimpleEvent("day-" + day, start, start + OSTimeUtil.MILLIS_IN_HOUR));
+            }
+        } finally {
+            mAdapter.endBatch();
+        }
+    }
+
+    private static class CountingObserver extends DataSetObserver {
+        int mChangedCount;
+
+        @Override
+        public void onChanged() {
+            mChangedCount++;
+        }
+    }
+
+    private static class RangeObserver extends EventDataSetObserver {
+        final List<Integer> mRanges = new ArrayList<>();
+        int mChangedCount;
+
+        @Override
+        public void onDaysChanged(int firstDayKey, int lastDayKey) {
+            mRanges.add(firstDayKey);
+            mRanges.add(lastDayKey);
+        }
+
+        @Override
+        public void onChanged() {
+            mChangedCount++;
+        }
+    }
+}
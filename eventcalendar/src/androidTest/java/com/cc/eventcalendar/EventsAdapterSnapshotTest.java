@@ -0,0 +1,95 @@
+package com.cc.eventcalendar;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.adapter.EventsAdapter;
+import com.cc.eventcalendar.calendarview.adapter.SimpleEvent;
+import com.cc.eventcalendar.calendarview.util.DayKey;
+import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Change the events of {@link EventsAdapter} while the events of a snapshot file are shown.
+ */
+public class EventsAdapterSnapshotTest extends TestCase {
+    private int mBaseDay;
+    private File mFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Calendar c = Calendar.getInstance();
+        c.set(2016, Calendar.JANUARY, 4);
+        mBaseDay = DayKey.of(c);
+        mFile = File.createTempFile("events", ".snapshot");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mFile.delete();
+        super.tearDown();
+    }
+
+    public void testChangesWhileTheFileIsShownAreKept() throws Exception {
+        List<ICalendarEvent> saved = new ArrayList<>();
+        saved.add(createEvent("kept", 0));
+        saved.add(createEvent("deleted", 1));
+        saved.add(createEvent("moved", 2));
+        EventsAdapter adapter = new EventsAdapter();
+        adapter.addEvent(saved);
+        adapter.saveSnapshot(mFile);
+
+        // The load waits until the changes are made.
+        final List<Runnable> loads = new ArrayList<>();
+        adapter = new EventsAdapter();
+        assertTrue(adapter.loadSnapshot(mFile, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                loads.add(command);
+            }
+        }));
+        assertTrue(adapter.hasEvent(DayKey.getStartTime(mBaseDay + 1)));
+
+        adapter.addEvent(createEvent("added", 3));
+        adapter.deleteEvent(createEvent("deleted", 1));
+        adapter.updateEvent(createEvent("moved", 4));
+
+        assertEquals(1, loads.size());
+        loads.get(0).run();
+        waitForMainThread();
+
+        assertNotNull(adapter.getEventById("kept"));
+        assertNotNull(adapter.getEventById("added"));
+        assertNull(adapter.getEventById("deleted"));
+        assertEquals(DayKey.getStartTime(mBaseDay + 4) + 9 * OSTimeUtil.MILLIS_IN_HOUR,
+                adapter.getEventById("moved").getStartTime());
+        assertEquals(Long.parseLong("11001", 2), adapter.getEventDays(mBaseDay, 5));
+    }
+
+    private static void waitForMainThread() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    private ICalendarEvent createEvent(String id, int day) {
+        final long start = DayKey.getStartTime(mBaseDay + day) + 9 * OSTimeUtil.MILLIS_IN_HOUR;
+        return new SimpleEvent(id, start, start + OSTimeUtil.MILLIS_IN_HOUR);
+    }
+}
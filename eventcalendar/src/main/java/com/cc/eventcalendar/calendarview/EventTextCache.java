@@ -0,0 +1,180 @@
+package com.cc.eventcalendar.calendarview;
+
+import android.text.StaticLayout;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The cache of the ellipsized texts and the layouts of the events that {@link OSEventTimeLineView} draws,
+ * so the texts are not measured again in every frame. A text is keyed by the event, the kind of the text,
+ * the text itself, the width, the text size and a bucket, such as the number of the lines that are cut
+ * when the event is zoomed. The least recently used texts are dropped when the cache is full.
+ */
+final class EventTextCache {
+    static final int KIND_TITLE = 0;
+    static final int KIND_CREATOR = 1;
+    static final int KIND_COMMENT = 2;
+    static final int KIND_BOUNDS = 3;
+    static final int KIND_COMMENT_LAYOUT = 4;
+    static final int KIND_TRUNCATED_COMMENT_LAYOUT = 5;
+
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final LinkedHashMap<Key, Entry> mEntries;
+
+    /**
+     * The key of the last lookup, it is reused so a hit does not allocate.
+     */
+    private final Key mLookupKey = new Key();
+
+    private long mHitCount;
+    private long mMissCount;
+
+    EventTextCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    EventTextCache(final int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("The max entries must be positive: " + maxEntries);
+        }
+        mEntries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get a cached text, {@link #put(Entry)} caches the text of this key if it is missed.
+     *
+     * @param id       the id of the event.
+     * @param kind     the kind of the text, such as {@link #KIND_TITLE}.
+     * @param text     the original text.
+     * @param width    the width that the text is laid out in.
+     * @param textSize the text size.
+     * @param bucket   any other value that the text depends on, or 0.
+     * @return the cached entry, or null if it is missed.
+     */
+    Entry get(String id, int kind, String text, int width, float textSize, int bucket) {
+        mLookupKey.set(id, kind, text, width, textSize, bucket);
+        Entry entry = mEntries.get(mLookupKey);
+        if (entry == null) {
+            mMissCount++;
+        } else {
+            mHitCount++;
+        }
+        return entry;
+    }
+
+    /**
+     * Cache the text of the key of the last {@link #get(String, int, String, int, float, int)}.
+     *
+     * @return the entry.
+     */
+    Entry put(Entry entry) {
+        mEntries.put(mLookupKey.copy(), entry);
+        return entry;
+    }
+
+    /**
+     * Drop all of the texts, such as when the events are changed.
+     */
+    void clear() {
+        mEntries.clear();
+    }
+
+    int size() {
+        return mEntries.size();
+    }
+
+    long getHitCount() {
+        return mHitCount;
+    }
+
+    long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * The text that is laid out, either a single line text with its bounds or a layout.
+     */
+    static final class Entry {
+        final String mText;
+        final int mWidth;
+        final int mHeight;
+        final StaticLayout mLayout;
+
+        Entry(String text, int width, int height) {
+            mText = text;
+            mWidth = width;
+            mHeight = height;
+            mLayout = null;
+        }
+
+        Entry(StaticLayout layout) {
+            mText = null;
+            mWidth = layout.getWidth();
+            mHeight = layout.getHeight();
+            mLayout = layout;
+        }
+    }
+
+    private static final class Key {
+        private String mId;
+        private int mKind;
+        private String mText;
+        private int mWidth;
+        private int mTextSizeBits;
+        private int mBucket;
+        private int mHash;
+
+        void set(String id, int kind, String text, int width, float textSize, int bucket) {
+            mId = id;
+            mKind = kind;
+            mText = text;
+            mWidth = width;
+            mTextSizeBits = Float.floatToIntBits(textSize);
+            mBucket = bucket;
+
+            int hash = id == null ? 0 : id.hashCode();
+            hash = 31 * hash + kind;
+            hash = 31 * hash + (text == null ? 0 : text.hashCode());
+            hash = 31 * hash + width;
+            hash = 31 * hash + mTextSizeBits;
+            mHash = 31 * hash + bucket;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.mId = mId;
+            key.mKind = mKind;
+            key.mText = mText;
+            key.mWidth = mWidth;
+            key.mTextSizeBits = mTextSizeBits;
+            key.mBucket = mBucket;
+            key.mHash = mHash;
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) o;
+            return mHash == other.mHash && mKind == other.mKind && mWidth == other.mWidth
+                    && mTextSizeBits == other.mTextSizeBits && mBucket == other.mBucket
+                    && (mId == null ? other.mId == null : mId.equals(other.mId))
+                    && (mText == null ? other.mText == null : mText.equals(other.mText));
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+    }
+}
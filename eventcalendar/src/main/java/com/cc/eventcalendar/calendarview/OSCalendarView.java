@@ -25,6 +25,7 @@ import android.widget.FrameLayout;
 import android.widget.TextView;
 
 import com.cc.eventcalendar.calendarview.adapter.RecyclePagerAdapter;
+import com.cc.eventcalendar.calendarview.util.DayKey;
 import com.cc.eventcalendar.calendarview.util.DeviceUtils;
 import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
 
@@ -154,6 +155,12 @@ public class OSCalendarView extends FrameLayout {
      */
     private int mMonthNumOfToday = 1;
 
+    /**
+     * The version of the events, increased when the calendar view is invalidated so the week and month
+     * views know that the cached event flags are out of date.
+     */
+    private int mEventsVersion;
+
     // specify current is vertical scrolling.
     private boolean mIsVerticalScrolling;
 
@@ -696,6 +703,7 @@ public class OSCalendarView extends FrameLayout {
      * Invalidate the calendar view.
      */
     protected void invalidateCalendarView() {
+        mEventsVersion++;
         if (mFocusedMonthView != null) {
             mFocusedMonthView.invalidate();
         }
@@ -705,6 +713,28 @@ public class OSCalendarView extends FrameLayout {
         }
     }
 
+    /**
+     * Invalidate the week and month views that show any of the days, the other views are not touched.
+     *
+     * @param firstDayKey the key of the first changed day, inclusive.
+     * @param lastDayKey  the key of the last changed day, inclusive.
+     */
+    protected void invalidateCalendarView(int firstDayKey, int lastDayKey) {
+        invalidateWeekViews(mMonthViewPager, firstDayKey, lastDayKey);
+        invalidateWeekViews(mWeekViewPager, firstDayKey, lastDayKey);
+    }
+
+    private void invalidateWeekViews(ViewGroup pager, int firstDayKey, int lastDayKey) {
+        for (int i = 0, count = pager.getChildCount(); i < count; i++) {
+            View child = pager.getChildAt(i);
+            if (child instanceof WeekView && ((WeekView) child).isShowingDays(firstDayKey, lastDayKey)) {
+                WeekView weekView = (WeekView) child;
+                weekView.mEventDaysVersion = -1;
+                weekView.invalidate();
+            }
+        }
+    }
+
     /**
      * Set the selected day.
      *
@@ -1061,6 +1091,28 @@ public class OSCalendarView extends FrameLayout {
         return false;
     }
 
+    /**
+     * Check which of the continuous days have events. The week and month views call it once when the
+     * events are changed instead of calling {@link #hasEvents(Calendar)} for every cell on every draw.
+     *
+     * @param firstDayKey the key of the first day.
+     * @param count       the number of the days, between 1 and 64.
+     * @return the bits of the days, the bit <code>i</code> is set if there are events on the day
+     * <code>firstDayKey + i</code>.
+     * @see DayKey
+     */
+    protected long getEventDays(int firstDayKey, int count) {
+        long eventDays = 0;
+        Calendar date = Calendar.getInstance();
+        for (int i = 0; i < count; i++) {
+            date.setTimeInMillis(DayKey.getStartTime(firstDayKey + i));
+            if (hasEvents(date)) {
+                eventDays |= 1L << i;
+            }
+        }
+        return eventDays;
+    }
+
     /**
      * <p>
      * This is a specialized adapter for creating a list of weeks with
@@ -1219,6 +1271,9 @@ public class OSCalendarView extends FrameLayout {
         // The first day displayed by this item
         protected Calendar mFirstDay;
 
+        // The key of the first day displayed by this item
+        protected int mFirstDayKey;
+
         // The month of the last day in this week
         protected int mLastWeekDayMonth = -1;
 
@@ -1248,6 +1303,16 @@ public class OSCalendarView extends FrameLayout {
          */
         protected int mSelectedDayIndex;
 
+        /**
+         * The bits of the days that have events, bit <code>i</code> is for the cell <code>i</code>.
+         */
+        protected long mEventDays;
+
+        /**
+         * The events version that <code>mEventDays</code> was built with.
+         */
+        protected int mEventDaysVersion = -1;
+
         public WeekView(Context context) {
             super(context);
             mGestureDetector = new GestureDetector(context, mGestureListener);
@@ -1268,6 +1333,7 @@ public class OSCalendarView extends FrameLayout {
          */
         public void init(int weekNumber) {
             mNumCells = mDaysPerWeek;
+            mEventDaysVersion = -1;
             mWeekNumber = weekNumber;
             if (mWeekNumber != mWeekNumOfToday) {
                 if (OSTimeUtil.getWeeksSinceDate(mMinDate, mSelectedDay, mFirstDayOfWeek) == mWeekNumber) {
@@ -1297,6 +1363,7 @@ public class OSCalendarView extends FrameLayout {
             mDayNumbers = new String[mNumCells];
 
             mFirstDay = (Calendar) mTempDate.clone();
+            mFirstDayKey = DayKey.of(mFirstDay);
 
             for (int i = 0; i < mNumCells; i++) {
                 // do not draw dates outside the valid range to avoid user confusion
@@ -1392,9 +1459,33 @@ public class OSCalendarView extends FrameLayout {
 
         @Override
         protected void onDraw(Canvas canvas) {
+            updateEventDays();
             drawWeek(canvas);
         }
 
+        /**
+         * Check whether the view shows any of the days.
+         *
+         * @param firstDayKey the key of the first day, inclusive.
+         * @param lastDayKey  the key of the last day, inclusive.
+         * @return true if any of the days is in the view.
+         */
+        public boolean isShowingDays(int firstDayKey, int lastDayKey) {
+            return mFirstDay != null && firstDayKey < mFirstDayKey + mNumCells && lastDayKey >= mFirstDayKey;
+        }
+
+        /**
+         * Resolve the event flags of all cells at once if the events were changed since the last time.
+         */
+        protected void updateEventDays() {
+            if (mEventDaysVersion == mEventsVersion || mFirstDay == null) {
+                return;
+            }
+
+            mEventDays = getEventDays(mFirstDayKey, mNumCells);
+            mEventDaysVersion = mEventsVersion;
+        }
+
         /**
          * Draws the week and month day numbers for this week.
          *
@@ -1425,7 +1516,7 @@ public class OSCalendarView extends FrameLayout {
             }
             canvas.drawText(mDayNumbers[index], x, y, mDayDrawPaint);
 
-            if (hasEvents(mTempDate)) {
+            if ((mEventDays >>> index & 1) != 0) {
                 drawEventFlag(canvas, x, y + mEventFlagPadding);
             }
         }
@@ -1505,6 +1596,7 @@ public class OSCalendarView extends FrameLayout {
         public void init(int monthNumber) {
             // OSLog.e("===== init(MonthView) =======");
             mMonthNumber = monthNumber;
+            mEventDaysVersion = -1;
             mTempDate.setTimeInMillis(mMinDate.getTimeInMillis());
 
             mTempDate.add(Calendar.MONTH, mMonthNumber);
@@ -1524,6 +1616,7 @@ public class OSCalendarView extends FrameLayout {
             mTempDate.add(Calendar.DAY_OF_MONTH, diff);
 
             mFirstDay = (Calendar) mTempDate.clone();
+            mFirstDayKey = DayKey.of(mFirstDay);
             mMonthOfFirstWeekDay = mTempDate.get(Calendar.MONTH);
 
             // mHasUnfocusedDay = true;
@@ -1581,6 +1674,7 @@ public class OSCalendarView extends FrameLayout {
 
         @Override
         protected void onDraw(Canvas canvas) {
+            updateEventDays();
             drawMonth(canvas);
         }
 
@@ -1617,7 +1711,7 @@ public class OSCalendarView extends FrameLayout {
             }
             canvas.drawText(mDayNumbers[index], x, y, mDayDrawPaint);
 
-            if (hasEvents(mTempDate)) {
+            if ((mEventDays >>> index & 1) != 0) {
                 drawEventFlag(canvas, x, y + mEventFlagPadding);
             }
         }
@@ -16,9 +16,11 @@ import android.widget.ListView;
 
 
 import com.cc.eventcalendar.calendarview.adapter.DayEventAdapter;
+import com.cc.eventcalendar.calendarview.adapter.EventDataSetObserver;
 import com.cc.eventcalendar.calendarview.adapter.EventsAdapter;
 import com.cc.eventcalendar.calendarview.adapter.OSEventListAdapter;
 import com.cc.eventcalendar.calendarview.adapter.RecyclePagerAdapter;
+import com.cc.eventcalendar.calendarview.util.DayKey;
 import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
 
 import java.util.Calendar;
@@ -40,6 +42,11 @@ public class OSEventCalendarView extends OSCalendarView implements OSEventTimeLi
     private EventsAdapter mEventAdapter;
     private int mEventViewMode;
 
+    /**
+     * Whether the timeline page that is shown keeps its content in a bitmap layer.
+     */
+    private boolean mTimelineContentLayerEnabled;
+
     private OnClickEventListener mOnClickEventListener;
     private OnClickNewEventItemListener mOnClickNewEventItemListener;
     private OSEventTimeLineView.OnClickTimeLineItemListener mOnClickTimeLineItemListener;
@@ -121,7 +128,7 @@ public class OSEventCalendarView extends OSCalendarView implements OSEventTimeLi
 
             @Override
             public void onPageSelected(int position) {
-                mFocusEventListView = mEventListViewPager.findViewWithTag(position);
+                setFocusEventListView(mEventListViewPager.findViewWithTag(position));
                 if (mFocusEventListView == null) {
                     return;
                 }
@@ -165,6 +172,7 @@ public class OSEventCalendarView extends OSCalendarView implements OSEventTimeLi
         mEventAdapter = adapter;
         if (mEventAdapter != null) {
             mEventAdapter.registerDataSetObserver(dataObserver);
+            mEventAdapter.setPinnedDay(DayKey.of(getSelectedDay()));
         }
 
         invalidate();
@@ -174,8 +182,33 @@ public class OSEventCalendarView extends OSCalendarView implements OSEventTimeLi
         return mEventAdapter;
     }
 
+    /**
+     * Set whether the timeline page that is shown keeps its content in a bitmap layer, see
+     * {@link OSEventTimeLineView#setContentLayerEnabled(boolean)}. It is disabled by default. Only the shown
+     * page keeps the bitmap, the page that is scrolled off releases it.
+     *
+     * @param enabled true to enable the layer.
+     */
+    public void setTimelineContentLayerEnabled(boolean enabled) {
+        mTimelineContentLayerEnabled = enabled;
+        if (mFocusEventListView instanceof OSEventTimeLineView) {
+            ((OSEventTimeLineView) mFocusEventListView).setContentLayerEnabled(enabled);
+        }
+    }
+
+    private void setFocusEventListView(View view) {
+        if (mFocusEventListView instanceof OSEventTimeLineView && mFocusEventListView != view) {
+            ((OSEventTimeLineView) mFocusEventListView).setContentLayerEnabled(false);
+        }
+
+        mFocusEventListView = view;
+        if (view instanceof OSEventTimeLineView) {
+            ((OSEventTimeLineView) view).setContentLayerEnabled(mTimelineContentLayerEnabled);
+        }
+    }
+
     // Adapter listener
-    private DataSetObserver dataObserver = new DataSetObserver() {
+    private DataSetObserver dataObserver = new EventDataSetObserver() {
         @Override
         public void onChanged() {
             invalidateCalendarView();
@@ -185,6 +218,11 @@ public class OSEventCalendarView extends OSCalendarView implements OSEventTimeLi
         public void onInvalidated() {
             invalidateCalendarView();
         }
+
+        @Override
+        public void onDaysChanged(int firstDayKey, int lastDayKey) {
+            invalidateCalendarView(firstDayKey, lastDayKey);
+        }
     };
 
     protected void invalidateCalendarView() {
@@ -192,10 +230,22 @@ public class OSEventCalendarView extends OSCalendarView implements OSEventTimeLi
         invalidateViewPager(getSelectedDay(), mFocusEventListView);
     }
 
+    @Override
+    protected void invalidateCalendarView(int firstDayKey, int lastDayKey) {
+        super.invalidateCalendarView(firstDayKey, lastDayKey);
+        // Only the focused day page shows the events, it is refreshed if the day is changed.
+        final int focusDayKey = DayKey.of(getSelectedDay());
+        if (focusDayKey >= firstDayKey && focusDayKey <= lastDayKey) {
+            invalidateViewPager(getSelectedDay(), mFocusEventListView);
+        }
+    }
+
     private void invalidateViewPager(Calendar focusDate,View eventListView) {
         List<? extends ICalendarEvent> events = null;
         if (mEventAdapter != null) {
-            events = mEventAdapter.getEvent(EventsAdapter.getKey(focusDate.getTimeInMillis()));
+            final int key = DayKey.of(focusDate);
+            mEventAdapter.requestDays(key, key);
+            events = mEventAdapter.getEvent(key);
         }
 
         // The view is prepared.
@@ -216,6 +266,9 @@ public class OSEventCalendarView extends OSCalendarView implements OSEventTimeLi
 
     @Override
     protected void onDaySelected(Calendar day) {
+        if (mEventAdapter != null) {
+            mEventAdapter.setPinnedDay(DayKey.of(day));
+        }
         mEventListViewPager.setCurrentItem(OSTimeUtil.getDaysSinceDate(getMinDate(), day));
         //refreshView(false);
     }
@@ -230,7 +283,7 @@ public class OSEventCalendarView extends OSCalendarView implements OSEventTimeLi
     public void setEventViewMode(int eventViewMode) {
         if (mEventViewMode != eventViewMode) {
             this.mEventViewMode = eventViewMode;
-            mFocusEventListView = null;
+            setFocusEventListView(null);
             final int currentItem = mEventListViewPager.getCurrentItem();
             mEventListViewPagerAdapter = new ViewPagerAdapter();
             mEventListViewPager.setAdapter(mEventListViewPagerAdapter);
@@ -246,6 +299,16 @@ public class OSEventCalendarView extends OSCalendarView implements OSEventTimeLi
         return mEventAdapter.hasEvent(date.getTimeInMillis());
     }
 
+    @Override
+    protected long getEventDays(int firstDayKey, int count) {
+        if (mEventAdapter == null) {
+            return 0;
+        }
+        // The month and the week pages ask for the days they show, load them if they are not loaded.
+        mEventAdapter.requestDays(firstDayKey, firstDayKey + count - 1);
+        return mEventAdapter.getEventDays(firstDayKey, count);
+    }
+
     private class ViewPagerAdapter extends RecyclePagerAdapter {
         @Override
         protected View getItemView(int position) {
@@ -269,7 +332,7 @@ public class OSEventCalendarView extends OSCalendarView implements OSEventTimeLi
                 v = eventTimeLineView;
             }
             if (position == mEventListViewPager.getCurrentItem()) {
-                mFocusEventListView = v;
+                setFocusEventListView(v);
             }
             return v;
         }
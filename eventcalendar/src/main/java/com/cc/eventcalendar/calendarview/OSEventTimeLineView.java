@@ -6,6 +6,7 @@ import android.database.DataSetObserver;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.ColorFilter;
 import android.graphics.Paint;
 import android.graphics.Point;
@@ -16,6 +17,7 @@ import android.text.StaticLayout;
 import android.text.TextPaint;
 import android.text.TextUtils;
 import android.util.AttributeSet;
+import android.util.Log;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
@@ -35,6 +37,7 @@ import java.util.Calendar;
  * Created by ChengCn on 12/14/2015.
  */
 public class OSEventTimeLineView extends View implements GestureDetector.OnGestureListener, GestureDetector.OnDoubleTapListener {
+    private static final String TAG = "OSEventTimeLineView";
     private static final int DEFAULT_ITEM_HEIGHT = 50;
     /**
      * Max zoom factor.
@@ -124,9 +127,24 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
     private Paint mDrawPaint;
     private TextPaint mTextPaint;
 
+    /**
+     * The ellipsized texts and the layouts of the events, they are dropped when the events are changed.
+     */
+    private final EventTextCache mTextCache = new EventTextCache();
+
+    /**
+     * Find the events under the taps, its layout is updated when the view is measured.
+     */
+    private final TimelineHitTester mHitTester = new TimelineHitTester();
+
     // The cache for the draw bounds during the view drawing.
     private Rect mRect;
 
+    /**
+     * The visible bounds of the canvas, only the events in it are drawn.
+     */
+    private final Rect mClipBounds = new Rect();
+
     /**
      * The start time of current day
      */
@@ -160,6 +178,33 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
     private float[] mTimeLinePointsCache = new float[4 * OSTimeUtil.HOURS_PER_DAY];
     private String mAllDayLabel;
 
+    private static final String[] HOUR_LABELS = new String[OSTimeUtil.HOURS_PER_DAY];
+
+    static {
+        for (int i = 0; i < HOUR_LABELS.length; i++) {
+            HOUR_LABELS[i] = String.valueOf(i);
+        }
+    }
+
+    /**
+     * The layer of the background, the hour grid and the events around the visible area. It is drawn
+     * again only when the content is changed or the visible area leaves it, so scrolling and the
+     * animations of the overlay, such as the add event item, only draw the bitmap.
+     */
+    private Bitmap mContentLayer;
+    private Canvas mContentCanvas;
+    private boolean mContentLayerValid;
+    private boolean mContentLayerEnabled;
+
+    /**
+     * The state that the content layer is drawn with, the layer is drawn again when any of them changes.
+     */
+    private int mContentLayerTop;
+    private int mContentLayerHeight;
+    private int mContentLayerItemHeight;
+    private int mContentLayerYStart;
+    private int mContentLayerNowPosition;
+
     @Override
     public boolean onSingleTapConfirmed(MotionEvent e) {
         return false;
@@ -285,7 +330,9 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
         }
 
         mEventAdapter = adapter;
+        mHitTester.setAdapter(adapter);
         if (mEventAdapter != null) {
+            mEventAdapter.setMinEventDuration(mMinEventItemHeightTimeDuration);
             mEventAdapter.registerDataSetObserver(dataObserver);
         }
 
@@ -310,6 +357,8 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
     };
 
     private void invalidateTimelineView() {
+        mTextCache.clear();
+        mContentLayerValid = false;
         mCalendarDay.clear();
         if (mEventAdapter != null) {
             mCalendarDay.setTimeInMillis(mEventAdapter.getDay().getTimeInMillis());
@@ -351,6 +400,66 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
         mTextPaint.setLinearText(true);
     }
 
+    /**
+     * @return the number of the event texts that are drawn from the cache.
+     */
+    public long getTextCacheHitCount() {
+        return mTextCache.getHitCount();
+    }
+
+    /**
+     * @return the number of the event texts that are laid out because they are not in the cache.
+     */
+    public long getTextCacheMissCount() {
+        return mTextCache.getMissCount();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (w != oldw) {
+            // The texts of the old width are not used any more.
+            mTextCache.clear();
+        }
+        mContentLayerValid = false;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        releaseContentLayer();
+    }
+
+    /**
+     * Set whether the background, the hour grid and the events are kept in a bitmap layer around the
+     * visible area, it is disabled by default. The layer is a bitmap of the width of the view and the
+     * visible height plus two hours, so it should only be enabled for the timeline that is shown, such as
+     * by {@link OSEventCalendarView#setTimelineContentLayerEnabled(boolean)}. The bitmap is released when
+     * the layer is disabled or the view is detached.
+     *
+     * @param enabled true to enable the layer.
+     */
+    public void setContentLayerEnabled(boolean enabled) {
+        if (mContentLayerEnabled == enabled) {
+            return;
+        }
+
+        mContentLayerEnabled = enabled;
+        if (!enabled) {
+            releaseContentLayer();
+        }
+        invalidate();
+    }
+
+    private void releaseContentLayer() {
+        if (mContentLayer != null) {
+            mContentLayer.recycle();
+            mContentLayer = null;
+            mContentCanvas = null;
+        }
+        mContentLayerValid = false;
+    }
+
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         mZoomItemHeight = (int) (mItemHeight * mCurrentZoomFactor);
@@ -365,6 +474,8 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
         }
         mHeight = OSTimeUtil.HOURS_PER_DAY * getHeightOfItem() + mYStartPosition;
         setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec), mHeight);
+        mHitTester.setLayout(mCalendarDay.getTimeInMillis(), mYStartPosition, mHeight, mEventLeftMargin,
+                getMeasuredWidth() - mHorizontalPadding, mMinEventItemHeightTimeDuration);
         /*if (OSTimeUtil.isToday(mCalendarDay)) {
             mNowPosition = (int) ((OSEventTimeLineView.this.mHeight - mYStartPosition) * ((float) (System.currentTimeMillis() - mCalendarDay.getTimeInMillis())) / OSTimeUtil.MILLIS_IN_DAY) + mYStartPosition;
             scrollTo(0, mNowPosition);
@@ -374,32 +485,100 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
     @Override
     protected void onDraw(Canvas canvas) {
         // OSLog.e("=====  onDraw (OSEventTimeLineView) =======");
-        drawBackground(canvas);
-        drawDividerAndTimeLabel(canvas);
-        drawEvents(canvas);
+        mNowPosition = OSTimeUtil.isToday(mCalendarDay) ? (int) ((OSEventTimeLineView.this.mHeight - mYStartPosition) * ((float) (System.currentTimeMillis() - mCalendarDay.getTimeInMillis())) / OSTimeUtil.MILLIS_IN_DAY) + mYStartPosition : -1;
+        if (prepareContentLayer()) {
+            canvas.drawBitmap(mContentLayer, 0, mContentLayerTop, null);
+        } else {
+            drawContent(canvas);
+        }
+
+        // The overlay is drawn in every frame.
+        drawNowLine(canvas);
         if (mClickedPosition != -1) {
             mAddEventDrawable.draw(canvas);
         }
         drawAllDayEvent(canvas);
+    }
 
+    /**
+     * Draw the layers that do not change while the view is scrolled.
+     */
+    private void drawContent(Canvas canvas) {
+        drawBackground(canvas);
+        drawDividerAndTimeLabel(canvas);
+        drawEvents(canvas);
+    }
+
+    /**
+     * Make sure the content layer covers the visible area and is drawn with the current state.
+     *
+     * @return true if the layer can be drawn, otherwise the content is drawn directly.
+     */
+    private boolean prepareContentLayer() {
+        final int width = getWidth();
+        final int visibleHeight = Math.min(mVisibleHeight, mHeight);
+        if (!mContentLayerEnabled || width <= 0 || visibleHeight <= 0) {
+            return false;
+        }
+
+        // The layer keeps one hour above and below the visible area, so a short scroll only moves it.
+        final int layerHeight = Math.min(visibleHeight + (getHeightOfItem() << 1), mHeight);
+        final int visibleTop = getScrollY();
+        if (mContentLayerValid && mContentLayer.getWidth() == width && mContentLayerHeight == layerHeight
+                && mContentLayerItemHeight == mZoomItemHeight && mContentLayerYStart == mYStartPosition
+                && mContentLayerNowPosition == mNowPosition && visibleTop >= mContentLayerTop
+                && visibleTop + visibleHeight <= mContentLayerTop + layerHeight) {
+            return true;
+        }
+
+        if (mContentLayer == null || mContentLayer.getWidth() != width || mContentLayer.getHeight() < layerHeight) {
+            releaseContentLayer();
+            try {
+                mContentLayer = Bitmap.createBitmap(width, layerHeight, Bitmap.Config.ARGB_8888);
+            } catch (OutOfMemoryError e) {
+                Log.w(TAG, "Cannot allocate the content layer of " + width + "x" + layerHeight
+                        + ", the content is drawn directly.", e);
+                mContentLayerEnabled = false;
+                return false;
+            }
+            mContentCanvas = new Canvas(mContentLayer);
+        }
+
+        mContentLayerTop = Math.max(0, Math.min(visibleTop - getHeightOfItem(), mHeight - layerHeight));
+        mContentLayerHeight = layerHeight;
+        mContentLayerItemHeight = mZoomItemHeight;
+        mContentLayerYStart = mYStartPosition;
+        mContentLayerNowPosition = mNowPosition;
+        mContentLayer.eraseColor(Color.TRANSPARENT);
+        mContentCanvas.save();
+        mContentCanvas.clipRect(0, 0, width, layerHeight);
+        mContentCanvas.translate(0, -mContentLayerTop);
+        drawContent(mContentCanvas);
+        mContentCanvas.restore();
+        mContentLayerValid = true;
+        return true;
+    }
+
+    private void drawNowLine(Canvas canvas) {
+        if (mNowPosition < 0) {
+            return;
+        }
+
+        mRect.set(0, mNowPosition, getWidth(), mNowPosition + 2);
+        mDrawPaint.setColor(getResources().getColor(R.color.red));
+        canvas.drawRect(mRect, mDrawPaint);
     }
 
     private void drawBackground(Canvas canvas) {
-        if (OSTimeUtil.isToday(mCalendarDay)) {
+        if (mNowPosition >= 0) {
 
             // Draw the background of the area before now time
-            mNowPosition = (int) ((OSEventTimeLineView.this.mHeight - mYStartPosition) * ((float) (System.currentTimeMillis() - mCalendarDay.getTimeInMillis())) / OSTimeUtil.MILLIS_IN_DAY) + mYStartPosition;
             mRect.set(0, mYStartPosition, getWidth(), mNowPosition);
             mDrawPaint.setColor(mInactiveBackgroundColor);
             canvas.drawRect(mRect, mDrawPaint);
 
-            // Draw now time line
-            mRect.top = mRect.bottom;
-            mRect.bottom = mRect.top + 2;
-            mDrawPaint.setColor(getResources().getColor(R.color.red));
-            canvas.drawRect(mRect, mDrawPaint);
-
             // Draw the background of the area after now
+            mRect.top = mRect.bottom;
             mRect.bottom = mHeight;
             mDrawPaint.setColor(mActiveBackgroundColor);
             canvas.drawRect(mRect, mDrawPaint);
@@ -438,23 +617,45 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
             mTimeLinePointsCache[(i << 2) + 2] = width - mHorizontalPadding;
             mTimeLinePointsCache[(i << 2) + 3] = dividerYPosition + mDividerHeight;
 
-            canvas.drawText(String.valueOf(i), mHorizontalPadding, dividerYPosition + mTextPaint.getTextSize(), mTextPaint);
+            canvas.drawText(HOUR_LABELS[i], mHorizontalPadding, dividerYPosition + mTextPaint.getTextSize(), mTextPaint);
         }
 
         canvas.drawLines(mTimeLinePointsCache, mDrawPaint);
     }
 
     private void drawEvents(Canvas canvas) {
-        if (mEventAdapter == null || mEventAdapter.getEventsCount() <= 0) {
+        if (mEventAdapter == null || mEventAdapter.getEventsCount() <= 0 || mHeight <= mYStartPosition
+                || !canvas.getClipBounds(mClipBounds)) {
             return;
         }
-        for (int i = 0; i < mEventAdapter.getEventsCount(); i++) {
-            ICalendarEvent event = mEventAdapter.getEvent(i);
+
+        // The events are sorted by the start time, only the events in the visible time are drawn. A short
+        // event is drawn with the minimum height, so it is visible if its start is visible.
+        final long visibleStartTime = getTimeOfPosition(mClipBounds.top);
+        final long visibleEndTime = getTimeOfPosition(mClipBounds.bottom) + 1;
+        final int first = mEventAdapter.findFirstEventEndingAfter(visibleStartTime - mMinEventItemHeightTimeDuration);
+        final int last = mEventAdapter.findFirstEventStartingFrom(visibleEndTime);
+        for (int i = first; i < last; i++) {
+            final int index = mEventAdapter.getEventIndex(i);
+            ICalendarEvent event = mEventAdapter.getEvent(index);
+            if (event.getEndTime() <= visibleStartTime
+                    && event.getStartTime() + mMinEventItemHeightTimeDuration <= visibleStartTime) {
+                continue;
+            }
             mEventDrawable.setEvent(event);
+            mEventDrawable.setColumn(mEventAdapter.getEventColumn(index), mEventAdapter.getEventColumnCount(index));
             mEventDrawable.draw(canvas);
         }
     }
 
+    /**
+     * @param y the y-coordinate in the view.
+     * @return the time of the timeline at the y-coordinate.
+     */
+    private long getTimeOfPosition(int y) {
+        return mCalendarDay.getTimeInMillis() + (long) OSTimeUtil.MILLIS_IN_DAY * (y - mYStartPosition) / (mHeight - mYStartPosition);
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         final int action = event.getActionMasked();
@@ -523,7 +724,7 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
             return true;
         }
         final int position = calculateClickPosition(e);
-        if (hasEventOnItem(position)) {
+        if (mHitTester.hasEventInHour(position)) {
             ICalendarEvent event = isClickEvent(e);
             if (event != null) {
                 if (mOnClickItemListener != null) {
@@ -534,7 +735,7 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
                 return true;
             }
 
-            if (!canFocus(position)) {
+            if (mHitTester.isHourCovered(position)) {
                 unfocusItem(mClickedPosition);
                 mClickedPosition = -1;
                 return true;
@@ -722,52 +923,6 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
         mRect.bottom = mRect.top + mZoomItemHeight;
     }
 
-    /**
-     * Check whether has event on the specified item.
-     *
-     * @param position the position of the item
-     * @return true if have event. otherwise false.
-     */
-    private boolean hasEventOnItem(int position) {
-        if (mEventAdapter == null || mEventAdapter.getEventsCount() <= 0) {
-            return false;
-        }
-        final long itemStartTime = mCalendarDay.getTimeInMillis() + OSTimeUtil.MILLIS_IN_HOUR * position;
-        // Sub 1 to make sure the end time of this item is lower than the the next item's start time.
-        final long itemEndTime = itemStartTime + OSTimeUtil.MILLIS_IN_HOUR - 1;
-        for (int i = 0; i < mEventAdapter.getEventsCount(); i++) {
-            ICalendarEvent event = mEventAdapter.getEvent(i);
-            if (event.isHappensOnWithoutEdge(itemStartTime) || event.isHappensOnWithoutEdge(itemEndTime)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Check whether the position can focus and show the add event button.
-     *
-     * @param position the position of the clicked
-     * @return
-     */
-    private boolean canFocus(int position) {
-        if (mEventAdapter == null || mEventAdapter.getEventsCount() <= 0) {
-            return false;
-        }
-        final long itemStartTime = mCalendarDay.getTimeInMillis() + OSTimeUtil.MILLIS_IN_HOUR * position;
-        // Sub 1 to make sure the end time of this item is lower than the the next item's start time.
-        final long itemEndTime = itemStartTime + OSTimeUtil.MILLIS_IN_HOUR;
-        for (int i = 0; i < mEventAdapter.getEventsCount(); i++) {
-            ICalendarEvent event = mEventAdapter.getEvent(i);
-            if (event.getStartTime() > itemStartTime && event.getStartTime() < itemEndTime) {
-                return ((float) (event.getStartTime() - itemEndTime)) / OSTimeUtil.MILLIS_IN_HOUR < 0.3f;
-            } else if (event.getEndTime() > itemStartTime && event.getEndTime() < itemEndTime) {
-                return ((float) (itemStartTime - event.getEndTime())) / OSTimeUtil.MILLIS_IN_HOUR < 0.3f;
-            }
-        }
-        return false;
-    }
-
     /**
      * Check  the click position whether is event or not.
      *
@@ -775,23 +930,8 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
      * @return the event if the position has a event, otherwise false.
      */
     private ICalendarEvent isClickEvent(MotionEvent e) {
-        if (mEventAdapter == null || mEventAdapter.getEventsCount() <= 0) {
-            return null;
-        }
-        float relativePosition = getScrollY() + e.getY() - mYStartPosition;
-        long time = mCalendarDay.getTimeInMillis() + (int) (OSTimeUtil.MILLIS_IN_DAY * relativePosition / (mHeight - mYStartPosition));
-
-        for (int i = 0; i < mEventAdapter.getEventsCount(); i++) {
-            ICalendarEvent event = mEventAdapter.getEvent(i);
-            if (event.isHappensOn(time)) {
-                return event;
-            } else if (event.getDuration() < mMinEventItemHeightTimeDuration) {
-                if (event.getStartTime() >= time - mMinEventItemHeightTimeDuration && event.getStartTime() <= time + mMinEventItemHeightTimeDuration) {
-                    return event;
-                }
-            }
-        }
-        return null;
+        final int index = mHitTester.findEventAt(e.getX(), getScrollY() + e.getY());
+        return index < 0 ? null : mEventAdapter.getEvent(index);
     }
 
     private boolean scrolling(float distance) {
@@ -843,17 +983,31 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
 
         protected ICalendarEvent mEvent;
         protected Rect mTempRect = new Rect();
+
+        /**
+         * The column of the event and the number of the columns, the overlapping events share the width.
+         */
+        private int mColumn;
+        private int mColumnCount = 1;
+
         public EventDrawable setEvent(ICalendarEvent event) {
             mEvent = event;
             return this;
         }
 
+        public EventDrawable setColumn(int column, int columnCount) {
+            mColumn = column;
+            mColumnCount = columnCount;
+            return this;
+        }
+
         /**
          * Calculate the draw region
          */
         private void calculateRect() {
-            mRect.left = mEventLeftMargin;
-            mRect.right = OSEventTimeLineView.this.getMeasuredWidth() - mHorizontalPadding;
+            final int width = OSEventTimeLineView.this.getMeasuredWidth() - mHorizontalPadding - mEventLeftMargin;
+            mRect.left = mEventLeftMargin + width * mColumn / mColumnCount;
+            mRect.right = mEventLeftMargin + width * (mColumn + 1) / mColumnCount;
             mRect.top = (int) ((OSEventTimeLineView.this.mHeight - mYStartPosition) * ((float) (mEvent.getStartTime() - mCalendarDay.getTimeInMillis())) / OSTimeUtil.MILLIS_IN_DAY) + mDividerHeight + mYStartPosition;
             mRect.bottom = (int) ((OSEventTimeLineView.this.mHeight - mYStartPosition) * ((float) (mEvent.getEndTime() - mCalendarDay.getTimeInMillis())) / OSTimeUtil.MILLIS_IN_DAY) + mYStartPosition;
             mRect.top = mRect.top < 0 ? 0 : mRect.top;
@@ -871,12 +1025,13 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
         }
 
         private void drawBackground(Canvas canvas) {
+            final int right = mRect.right;
             mDrawPaint.setColor(mEventVerticalDividerColor);
             mRect.right = mRect.left + mEventVerticalDividerWidth;
             canvas.drawRect(mRect, mDrawPaint);
 
             mRect.left = mRect.right;
-            mRect.right = OSEventTimeLineView.this.getMeasuredWidth() - mHorizontalPadding;
+            mRect.right = right;
             mDrawPaint.setColor(mEventBackgroundColor);
             canvas.drawRect(mRect, mDrawPaint);
         }
@@ -915,8 +1070,7 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
         }
 
         private void drawTitleAndCreator(Canvas canvas, float titleCreatorDividerPos, float contentX, float contentY) {
-            String adjustTitle = TextUtils.ellipsize(mEvent.getTitle(), mTextPaint, titleCreatorDividerPos - contentX, TextUtils.TruncateAt.END).toString();
-            mTextPaint.getTextBounds(adjustTitle, 0, adjustTitle.length(), mTempRect);
+            String adjustTitle = ellipsize(EventTextCache.KIND_TITLE, mEvent.getTitle(), (int) (titleCreatorDividerPos - contentX));
             canvas.drawText(adjustTitle, contentX, contentY, mTextPaint);
             drawCreator(canvas, titleCreatorDividerPos, contentY);
         }
@@ -930,8 +1084,7 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
          */
         private void drawCreator(Canvas canvas, float startPos, float contentY) {
             if (!StrUtil.isEmpty(mEvent.getCreator())) {
-                String adjustCreator = TextUtils.ellipsize(mEvent.getCreator(), mTextPaint, mRect.right - mEventContentPadding - startPos, TextUtils.TruncateAt.END).toString();
-                mTextPaint.getTextBounds(adjustCreator, 0, adjustCreator.length(), mTempRect);
+                String adjustCreator = ellipsize(EventTextCache.KIND_CREATOR, mEvent.getCreator(), (int) (mRect.right - mEventContentPadding - startPos));
                 canvas.drawText(adjustCreator, mRect.right - mEventContentPadding - mTempRect.width(), contentY, mTextPaint);
             }
         }
@@ -967,10 +1120,31 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
             }
 
             // Only can show single line comment.
-            String ellipsisComment = TextUtils.ellipsize(mEvent.getComment(), mTextPaint, mRect.width() - (mEventContentPadding << 1), TextUtils.TruncateAt.END).toString();
+            String ellipsisComment = ellipsize(EventTextCache.KIND_COMMENT, mEvent.getComment(), mRect.width() - (mEventContentPadding << 1));
             canvas.drawText(ellipsisComment, contentX, contentY, mTextPaint);
         }
 
+        /**
+         * Ellipsize the text to the width with the current text paint, the bounds of the ellipsized text
+         * are set to <code>mTempRect</code>.
+         *
+         * @param kind  the kind of the text in the {@link EventTextCache}.
+         * @param text  the text.
+         * @param width the available width, or {@link Integer#MAX_VALUE} to measure the whole text.
+         * @return the ellipsized text.
+         */
+        private String ellipsize(int kind, String text, int width) {
+            EventTextCache.Entry entry = mTextCache.get(mEvent.getID(), kind, text, width, mTextPaint.getTextSize(), 0);
+            if (entry == null) {
+                String ellipsized = width == Integer.MAX_VALUE ? text
+                        : TextUtils.ellipsize(text, mTextPaint, width, TextUtils.TruncateAt.END).toString();
+                mTextPaint.getTextBounds(ellipsized, 0, ellipsized.length(), mTempRect);
+                entry = mTextCache.put(new EventTextCache.Entry(ellipsized, mTempRect.width(), mTempRect.height()));
+            }
+            mTempRect.set(0, 0, entry.mWidth, entry.mHeight);
+            return entry.mText;
+        }
+
         /**
          * Draw multiline comment.
          *
@@ -980,20 +1154,32 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
          * @param commentLineHeight the line height of the comment.
          */
         private void drawMultilineComment(Canvas canvas, int top, float maxRemainDrawingHeight, int commentLineHeight) {
-
-            StaticLayout staticLayout = new StaticLayout(mEvent.getComment(), mTextPaint, mRect.width() - (mEventContentPadding << 1), Layout.Alignment.ALIGN_NORMAL, 1.0f, 0.0f, false);
+            final String comment = mEvent.getComment();
+            final int layoutWidth = mRect.width() - (mEventContentPadding << 1);
+            final float textSize = mTextPaint.getTextSize();
+            EventTextCache.Entry entry = mTextCache.get(mEvent.getID(), EventTextCache.KIND_COMMENT_LAYOUT, comment, layoutWidth, textSize, 0);
+            if (entry == null) {
+                entry = mTextCache.put(new EventTextCache.Entry(new StaticLayout(comment, mTextPaint, layoutWidth, Layout.Alignment.ALIGN_NORMAL, 1.0f, 0.0f, false)));
+            }
+            StaticLayout staticLayout = entry.mLayout;
             canvas.save();
             int textHeight = staticLayout.getLineTop(staticLayout.getLineCount());
-           if (textHeight > maxRemainDrawingHeight) {
+            if (textHeight > maxRemainDrawingHeight) {
+                // The number of the cut lines is the bucket, the layout is reused while it is zoomed.
                 float delta = textHeight - maxRemainDrawingHeight;
-                int offset = staticLayout.getLineEnd(staticLayout.getLineCount() - 1 - (int) Math.ceil(delta / commentLineHeight));
-               String ellipsisComment;
-               if (offset == 0) {
-                   ellipsisComment = TextUtils.ellipsize(mEvent.getComment(), mTextPaint, mRect.width() - (mEventContentPadding << 1), TextUtils.TruncateAt.END).toString();
-               } else {
-                   ellipsisComment = mEvent.getComment().substring(0, offset - 3) + "...";
-               }
-                staticLayout = new StaticLayout(ellipsisComment, mTextPaint, mRect.width() - (mEventContentPadding << 1), Layout.Alignment.ALIGN_NORMAL, 1.0f, 0.0f, false);
+                final int cutLines = (int) Math.ceil(delta / commentLineHeight);
+                EventTextCache.Entry truncated = mTextCache.get(mEvent.getID(), EventTextCache.KIND_TRUNCATED_COMMENT_LAYOUT, comment, layoutWidth, textSize, cutLines);
+                if (truncated == null) {
+                    int offset = staticLayout.getLineEnd(staticLayout.getLineCount() - 1 - cutLines);
+                    String ellipsisComment;
+                    if (offset == 0) {
+                        ellipsisComment = TextUtils.ellipsize(comment, mTextPaint, layoutWidth, TextUtils.TruncateAt.END).toString();
+                    } else {
+                        ellipsisComment = comment.substring(0, offset - 3) + "...";
+                    }
+                    truncated = mTextCache.put(new EventTextCache.Entry(new StaticLayout(ellipsisComment, mTextPaint, layoutWidth, Layout.Alignment.ALIGN_NORMAL, 1.0f, 0.0f, false)));
+                }
+                staticLayout = truncated.mLayout;
             }
             //text will be drawn from left
             float textXCoordinate = mRect.left + mEventContentPadding;
@@ -1006,8 +1192,9 @@ public class OSEventTimeLineView extends View implements GestureDetector.OnGestu
         }
 
         private int calculateWidthFromFontSize(String testString, Rect rect) {
-            mTextPaint.getTextBounds(testString, 0, testString.length(), rect);
-            return (int) Math.ceil(rect.width());
+            ellipsize(EventTextCache.KIND_BOUNDS, testString, Integer.MAX_VALUE);
+            rect.set(mTempRect);
+            return rect.width();
         }
 
         private int calculateHeightFromFontSize(String testString, Rect rect) {
@@ -0,0 +1,163 @@
+package com.cc.eventcalendar.calendarview;
+
+import com.cc.eventcalendar.calendarview.adapter.DayEventAdapter;
+import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+
+/**
+ * Find the events under the taps of {@link OSEventTimeLineView}. The events of {@link DayEventAdapter}
+ * are indexed by the start time, so the events around a time are found by the binary searches of the
+ * adapter instead of scanning all of the events.
+ * <p>
+ * All of the checks use the same rules: an event covers the time from its start to its end, and an event
+ * shorter than the minimum duration covers the minimum duration, as it is drawn with the minimum height.
+ * A short event is also hit in the minimum duration before its start, because it is a small target.
+ * When the tap is in the area of the events, only the events in the column under the tap are hit.
+ * </p>
+ */
+final class TimelineHitTester {
+    private DayEventAdapter mAdapter;
+    private long mDayStart;
+    private long mMinDuration;
+
+    /**
+     * The y-coordinates of the start and the end of the day, and the x-coordinates of the event columns.
+     */
+    private int mTop;
+    private int mBottom;
+    private int mLeft;
+    private int mRight;
+
+    void setAdapter(DayEventAdapter adapter) {
+        mAdapter = adapter;
+    }
+
+    /**
+     * Set the layout of the timeline, it is called when the view is measured.
+     *
+     * @param dayStart    the start time of the day.
+     * @param top         the y-coordinate of the start of the day.
+     * @param bottom      the y-coordinate of the end of the day.
+     * @param left        the left of the event columns.
+     * @param right       the right of the event columns.
+     * @param minDuration the duration of the minimum height of an event.
+     */
+    void setLayout(long dayStart, int top, int bottom, int left, int right, long minDuration) {
+        mDayStart = dayStart;
+        mTop = top;
+        mBottom = bottom;
+        mLeft = left;
+        mRight = right;
+        mMinDuration = minDuration;
+    }
+
+    /**
+     * @param y the y-coordinate in the content of the timeline, including the scroll offset.
+     * @return the time at the y-coordinate.
+     */
+    long getTimeAt(float y) {
+        if (mBottom <= mTop) {
+            return mDayStart;
+        }
+        return mDayStart + (long) ((double) OSTimeUtil.MILLIS_IN_DAY * (y - mTop) / (mBottom - mTop));
+    }
+
+    /**
+     * @param x the x-coordinate.
+     * @param y the y-coordinate in the content of the timeline, including the scroll offset.
+     * @return the index of the event under the point in the adapter, or -1 if there is no event.
+     */
+    int findEventAt(float x, float y) {
+        final float column = x >= mLeft && x < mRight ? (x - mLeft) / (mRight - mLeft) : -1;
+        return findEventAtTime(getTimeAt(y), column);
+    }
+
+    /**
+     * @param time   the time of the tap.
+     * @param column the position in the width of the event columns from 0 to 1, or -1 to hit any column.
+     * @return the index of the first event that is hit in the adapter, or -1 if there is no event.
+     */
+    int findEventAtTime(long time, float column) {
+        if (mAdapter == null) {
+            return -1;
+        }
+
+        final int last = mAdapter.findFirstEventStartingFrom(time + mMinDuration + 1);
+        for (int i = mAdapter.findFirstEventEndingAfter(time - mMinDuration - 1); i < last; i++) {
+            final int index = mAdapter.getEventIndex(i);
+            ICalendarEvent event = mAdapter.getEvent(index);
+            final boolean hit;
+            if (event.getDuration() < mMinDuration) {
+                hit = Math.abs(event.getStartTime() - time) <= mMinDuration;
+            } else {
+                hit = time >= event.getStartTime() && time < event.getEndTime();
+            }
+            if (hit && (column < 0 || isInColumn(index, column))) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param hour the hour of the day.
+     * @return true if any event covers a part of the hour.
+     */
+    boolean hasEventInHour(int hour) {
+        final long start = mDayStart + (long) OSTimeUtil.MILLIS_IN_HOUR * hour;
+        return hasEvent(start, start + OSTimeUtil.MILLIS_IN_HOUR);
+    }
+
+    /**
+     * @param hour the hour of the day.
+     * @return true if the events cover all of the hour, so there is no free time to add an event.
+     */
+    boolean isHourCovered(int hour) {
+        final long start = mDayStart + (long) OSTimeUtil.MILLIS_IN_HOUR * hour;
+        return isCovered(start, start + OSTimeUtil.MILLIS_IN_HOUR);
+    }
+
+    boolean hasEvent(long startTime, long endTime) {
+        if (mAdapter == null) {
+            return false;
+        }
+
+        final int last = mAdapter.findFirstEventStartingFrom(endTime);
+        for (int i = mAdapter.findFirstEventEndingAfter(startTime - mMinDuration); i < last; i++) {
+            if (getCoveredEnd(mAdapter.getEvent(mAdapter.getEventIndex(i))) > startTime) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isCovered(long startTime, long endTime) {
+        if (mAdapter == null) {
+            return false;
+        }
+
+        // The events are in the order of the start time, the covered time grows until there is a gap.
+        long coveredEnd = startTime;
+        final int last = mAdapter.findFirstEventStartingFrom(endTime);
+        for (int i = mAdapter.findFirstEventEndingAfter(startTime - mMinDuration); i < last; i++) {
+            ICalendarEvent event = mAdapter.getEvent(mAdapter.getEventIndex(i));
+            if (event.getStartTime() > coveredEnd) {
+                return false;
+            }
+            coveredEnd = Math.max(coveredEnd, getCoveredEnd(event));
+            if (coveredEnd >= endTime) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long getCoveredEnd(ICalendarEvent event) {
+        return Math.max(event.getEndTime(), event.getStartTime() + mMinDuration);
+    }
+
+    private boolean isInColumn(int index, float column) {
+        final int columnCount = mAdapter.getEventColumnCount(index);
+        final int eventColumn = mAdapter.getEventColumn(index);
+        return column * columnCount >= eventColumn && column * columnCount < eventColumn + 1;
+    }
+}
@@ -2,6 +2,8 @@ package com.cc.eventcalendar.calendarview.adapter;
 
 import android.database.DataSetObserver;
 
+import com.cc.eventcalendar.calendarview.util.DayRangeSet;
+
 import java.util.LinkedList;
 import java.util.List;
 
@@ -12,6 +14,31 @@ public abstract class AbsOSEventAdapter implements OSEventAdapter {
     // Observers
     private List<DataSetObserver> mDataSetObservers;
 
+    /**
+     * The depth of the nested batches, the notifications are deferred while it is not zero.
+     */
+    private int mBatchDepth;
+    private boolean mPendingChanged;
+    private boolean mPendingInvalidated;
+
+    /**
+     * The maximum number of the ranges of days that are notified at the end of a batch, more ranges are
+     * merged into one.
+     */
+    private static final int MAX_NOTIFIED_RANGES = 16;
+
+    /**
+     * The days that are changed in the batch.
+     */
+    private final DayRangeSet mPendingDays = new DayRangeSet();
+
+    /**
+     * The change of one event if it is the only change in the batch, the old and the new days of it
+     * are kept in <code>mPendingEventRange</code>.
+     */
+    private String mPendingEventId;
+    private final int[] mPendingEventRange = new int[4];
+
     @Override
     public void registerDataSetObserver(DataSetObserver observer) {
         if (mDataSetObservers == null) {
@@ -27,25 +54,203 @@ public abstract class AbsOSEventAdapter implements OSEventAdapter {
         }
     }
 
+    /**
+     * Start a batch of changes, the notifications are deferred until the outermost batch ends and then
+     * merged into one. The batches can be nested, every call must be paired with {@link #endBatch()}.
+     */
+    public void beginBatch() {
+        mBatchDepth++;
+    }
+
+    /**
+     * End a batch of changes started by {@link #beginBatch()}. When the outermost batch ends the
+     * observers are notified once if anything was changed in the batch. An {@link EventDataSetObserver}
+     * is told every separate range of the changed days, while the other observers get one
+     * {@link DataSetObserver#onChanged()}.
+     */
+    public void endBatch() {
+        if (mBatchDepth == 0) {
+            throw new IllegalStateException("endBatch() is called without beginBatch().");
+        }
+
+        if (--mBatchDepth > 0) {
+            return;
+        }
+
+        final boolean changed = mPendingChanged;
+        final boolean invalidated = mPendingInvalidated;
+        final String eventId = mPendingEventId;
+        final int rangeCount = mPendingDays.size();
+        final int[] ranges = new int[rangeCount * 2];
+        for (int i = 0; i < rangeCount; i++) {
+            ranges[i * 2] = mPendingDays.getFirstDay(i);
+            ranges[i * 2 + 1] = mPendingDays.getLastDay(i);
+        }
+        mPendingChanged = false;
+        mPendingInvalidated = false;
+        mPendingEventId = null;
+        mPendingDays.clear();
+        // The invalidation supersedes the changes made in the same batch, and a full change supersedes
+        // the changes of the days.
+        if (invalidated) {
+            dispatchDataInvalidated();
+        } else if (changed) {
+            dispatchDataSetChanged();
+        } else if (eventId != null) {
+            dispatchEventChanged(eventId, mPendingEventRange[0], mPendingEventRange[1],
+                    mPendingEventRange[2], mPendingEventRange[3]);
+        } else if (rangeCount > MAX_NOTIFIED_RANGES) {
+            dispatchDaysChanged(new int[]{ranges[0], ranges[ranges.length - 1]});
+        } else if (rangeCount > 0) {
+            dispatchDaysChanged(ranges);
+        }
+    }
+
+    /**
+     * Run the changes in one batch, the observers are notified at most once after the runnable returns.
+     *
+     * @param runnable the runnable that changes the data.
+     */
+    public void runInBatch(Runnable runnable) {
+        beginBatch();
+        try {
+            runnable.run();
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * @return true if a batch is in progress.
+     */
+    public boolean isInBatch() {
+        return mBatchDepth > 0;
+    }
+
     /**
      * Notifies observers about data changing
      */
     public void notifyDataSetChanged() {
-        if (mDataSetObservers != null) {
-            for (DataSetObserver observer : mDataSetObservers) {
-                observer.onChanged();
+        if (mBatchDepth > 0) {
+            mPendingChanged = true;
+            return;
+        }
+
+        dispatchDataSetChanged();
+    }
+
+    @Override
+    public void notifyDaysChanged(int firstDayKey, int lastDayKey) {
+        if (firstDayKey > lastDayKey) {
+            return;
+        }
+
+        if (mBatchDepth > 0) {
+            mergePendingEvent();
+            mergePendingDays(firstDayKey, lastDayKey);
+            return;
+        }
+
+        dispatchDaysChanged(new int[]{firstDayKey, lastDayKey});
+    }
+
+    @Override
+    public void notifyEventChanged(String id, int oldFirstDayKey, int oldLastDayKey, int newFirstDayKey, int newLastDayKey) {
+        if (mBatchDepth > 0) {
+            if (mPendingEventId == null && mPendingDays.size() == 0) {
+                // The only change of the batch so far, keep it to deliver it as is.
+                mPendingEventId = id;
+                mPendingEventRange[0] = oldFirstDayKey;
+                mPendingEventRange[1] = oldLastDayKey;
+                mPendingEventRange[2] = newFirstDayKey;
+                mPendingEventRange[3] = newLastDayKey;
+                return;
             }
+
+            // The changes of the events are merged into the changed days of the batch.
+            mergePendingEvent();
+            mergePendingDays(oldFirstDayKey, oldLastDayKey);
+            mergePendingDays(newFirstDayKey, newLastDayKey);
+            return;
         }
+
+        dispatchEventChanged(id, oldFirstDayKey, oldLastDayKey, newFirstDayKey, newLastDayKey);
     }
 
     /**
      * Notifies observers about invalidating data
      */
     public void notifyDataInvalidatedEvent() {
+        if (mBatchDepth > 0) {
+            mPendingInvalidated = true;
+            return;
+        }
+
+        dispatchDataInvalidated();
+    }
+
+    private void mergePendingEvent() {
+        if (mPendingEventId != null) {
+            mPendingEventId = null;
+            mergePendingDays(mPendingEventRange[0], mPendingEventRange[1]);
+            mergePendingDays(mPendingEventRange[2], mPendingEventRange[3]);
+        }
+    }
+
+    private void mergePendingDays(int firstDayKey, int lastDayKey) {
+        if (firstDayKey <= lastDayKey) {
+            mPendingDays.add(firstDayKey, lastDayKey);
+        }
+    }
+
+    /**
+     * Deliver the change to the observers, the notifications leave the batches through the dispatch
+     * methods so the subclasses can override them to prepare the data or to change the thread.
+     */
+    protected void dispatchDataSetChanged() {
+        if (mDataSetObservers != null) {
+            for (DataSetObserver observer : mDataSetObservers) {
+                observer.onChanged();
+            }
+        }
+    }
+
+    protected void dispatchDataInvalidated() {
         if (mDataSetObservers != null) {
             for (DataSetObserver observer : mDataSetObservers) {
                 observer.onInvalidated();
             }
         }
     }
+
+    /**
+     * @param ranges the first and the last keys of every changed range of days, the observers that are
+     *               not {@link EventDataSetObserver} are notified once for all of the ranges.
+     */
+    protected void dispatchDaysChanged(int[] ranges) {
+        if (mDataSetObservers != null) {
+            for (DataSetObserver observer : mDataSetObservers) {
+                if (observer instanceof EventDataSetObserver) {
+                    for (int i = 0; i < ranges.length; i += 2) {
+                        ((EventDataSetObserver) observer).onDaysChanged(ranges[i], ranges[i + 1]);
+                    }
+                } else {
+                    observer.onChanged();
+                }
+            }
+        }
+    }
+
+    protected void dispatchEventChanged(String id, int oldFirstDayKey, int oldLastDayKey, int newFirstDayKey, int newLastDayKey) {
+        if (mDataSetObservers != null) {
+            for (DataSetObserver observer : mDataSetObservers) {
+                if (observer instanceof EventDataSetObserver) {
+                    ((EventDataSetObserver) observer).onEventChanged(id, oldFirstDayKey, oldLastDayKey,
+                            newFirstDayKey, newLastDayKey);
+                } else {
+                    observer.onChanged();
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,449 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import android.util.SparseArray;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.util.DayKey;
+import com.cc.eventcalendar.calendarview.util.StrUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An event store that keeps the fields of the events in primitive columns sorted by the start time,
+ * instead of the event objects. The repeated strings such as the titles are shared, and the events are
+ * created as {@link SimpleEvent} when they are read, so the memory of a large number of events is much
+ * smaller than {@link DayBucketEventStore} while a range query reads the columns sequentially.
+ * <p>
+ * The events read from the store are new objects every time, the changes to them are not saved. The
+ * insertion and the removal move the rows after the changed one, so the events that are loaded in bulk
+ * are added by {@link #addAll(Collection)}, which sorts them once and merges them into the rows.
+ * </p>
+ * <p>
+ * The maximum end times of the rows are kept in a segment tree, so a query skips the rows that end
+ * before it in O(log n) per found event, even if a long event such as a vacation starts long before the
+ * queried days.
+ * </p>
+ */
+public class ColumnarEventStore implements EventStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final byte FLAG_ALL_DAY = 1;
+
+    private static final Comparator<ICalendarEvent> START_TIME_COMPARATOR = new Comparator<ICalendarEvent>() {
+        @Override
+        public int compare(ICalendarEvent lhs, ICalendarEvent rhs) {
+            final long lhsStart = lhs.getStartTime();
+            final long rhsStart = rhs.getStartTime();
+            return lhsStart < rhsStart ? -1 : (lhsStart == rhsStart ? 0 : 1);
+        }
+    };
+
+    private int mSize;
+    private long[] mStartTimes = new long[INITIAL_CAPACITY];
+    private long[] mEndTimes = new long[INITIAL_CAPACITY];
+
+    /**
+     * The segment tree of the maximum end times of the rows. The node <code>i</code> has the children
+     * <code>2i</code> and <code>2i + 1</code>, the leaves from <code>mLeafCount</code> are the rows and
+     * the leaves after the last row are {@link Long#MIN_VALUE}.
+     */
+    private int mLeafCount = INITIAL_CAPACITY;
+    private long[] mMaxEndTree = newTree(INITIAL_CAPACITY);
+    private int[] mTypes = new int[INITIAL_CAPACITY];
+    private byte[] mFlags = new byte[INITIAL_CAPACITY];
+    private String[] mIds = new String[INITIAL_CAPACITY];
+    private String[] mTitles = new String[INITIAL_CAPACITY];
+    private String[] mComments = new String[INITIAL_CAPACITY];
+    private String[] mCreators = new String[INITIAL_CAPACITY];
+
+    /**
+     * The pool that the equal strings share one instance through.
+     */
+    private final HashMap<String, String> mStrings = new HashMap<>();
+
+    @Override
+    public void addEvent(ICalendarEvent event) {
+        if (event == null) {
+            return;
+        }
+
+        final long startTime = event.getStartTime();
+        // The rows with the same start time keep the order they are added.
+        final int row = upperBound(startTime);
+        ensureCapacity(mSize + 1);
+        if (row < mSize) {
+            moveRows(row, row + 1, mSize - row);
+        }
+        mSize++;
+        setRow(row, event);
+        updateMaxEndTimes(row);
+    }
+
+    /**
+     * Add the events in bulk. The events are sorted once, appended after the rows and merged into them,
+     * so it takes O(n log n) time instead of moving the rows for every event like {@link #addEvent(ICalendarEvent)}.
+     * The rows with the same start time keep the order they are added.
+     *
+     * @param events the events, the null ones are ignored.
+     */
+    public void addAll(Collection<? extends ICalendarEvent> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+
+        List<ICalendarEvent> sorted = new ArrayList<>(events.size());
+        for (ICalendarEvent event : events) {
+            if (event != null) {
+                sorted.add(event);
+            }
+        }
+        // The sort is stable, so the events with the same start time keep their order.
+        Collections.sort(sorted, START_TIME_COMPARATOR);
+
+        final int oldSize = mSize;
+        ensureCapacity(oldSize + sorted.size());
+        for (int i = 0, size = sorted.size(); i < size; i++) {
+            setRow(mSize++, sorted.get(i));
+        }
+
+        if (oldSize > 0 && oldSize < mSize && mStartTimes[oldSize - 1] > mStartTimes[oldSize]) {
+            updateMaxEndTimes(mergeRows(oldSize));
+        } else {
+            updateMaxEndTimes(oldSize);
+        }
+    }
+
+    @Override
+    public boolean removeEvent(String id, long startTime, long endTime) {
+        final int row = findRow(id, startTime, endTime);
+        if (row < 0) {
+            return false;
+        }
+
+        moveRows(row + 1, row, mSize - row - 1);
+        mSize--;
+        // Release the strings of the last row that is moved.
+        mIds[mSize] = null;
+        mTitles[mSize] = null;
+        mComments[mSize] = null;
+        mCreators[mSize] = null;
+        // The leaf of the last row is cleared too.
+        updateMaxEndTimes(row);
+        return true;
+    }
+
+    /**
+     * Get the event that is added with the id and the time.
+     *
+     * @param id        the id of the event.
+     * @param startTime the start time of the event when it was added.
+     * @param endTime   the end time of the event when it was added.
+     * @return a new event that has the fields of the event, or null if it is not found.
+     */
+    public ICalendarEvent getEvent(String id, long startTime, long endTime) {
+        final int row = findRow(id, startTime, endTime);
+        return row < 0 ? null : createEvent(row);
+    }
+
+    @Override
+    public List<? extends ICalendarEvent> getEventsOfDay(int key) {
+        List<ICalendarEvent> ret = getEvents(DayKey.getStartTime(key), DayKey.getStartTime(key + 1));
+        return ret.isEmpty() ? null : ret;
+    }
+
+    @Override
+    public boolean hasEventsOnDay(int key) {
+        final long start = DayKey.getStartTime(key);
+        final int end = upperBound(DayKey.getStartTime(key + 1) - 1);
+        return nextRowEndingAfter(0, end, start) < end;
+    }
+
+    @Override
+    public List<ICalendarEvent> getEvents(long startTime, long endTime) {
+        List<ICalendarEvent> ret = new ArrayList<>();
+        if (endTime <= startTime) {
+            return ret;
+        }
+
+        // Only the rows that start before the end time can overlap the range.
+        final int end = upperBound(endTime - 1);
+        for (int row = nextRowEndingAfter(0, end, startTime); row < end;
+             row = nextRowEndingAfter(row + 1, end, startTime)) {
+            ret.add(createEvent(row));
+        }
+        return ret;
+    }
+
+    @Override
+    public void setEventsOfDay(int key, Collection<? extends BaseEvent> events) {
+        for (ICalendarEvent event : getEvents(DayKey.getStartTime(key), DayKey.getStartTime(key + 1))) {
+            removeEvent(event.getID(), event.getStartTime(), event.getEndTime());
+        }
+
+        if (events == null) {
+            return;
+        }
+
+        for (BaseEvent event : events) {
+            addEvent(event);
+        }
+    }
+
+    @Override
+    public SparseArray<Collection<? extends BaseEvent>> toSparseArray() {
+        SparseArray<Collection<? extends BaseEvent>> ret = new SparseArray<>();
+        for (int row = 0; row < mSize; row++) {
+            final BaseEvent event = createEvent(row);
+            final int lastKey = DayKey.ofEndTime(mEndTimes[row]);
+            for (int key = DayKey.of(mStartTimes[row]); key <= lastKey; key++) {
+                List<BaseEvent> eventsOfDay = (List<BaseEvent>) ret.get(key);
+                if (eventsOfDay == null) {
+                    eventsOfDay = new ArrayList<>();
+                    ret.put(key, eventsOfDay);
+                }
+                eventsOfDay.add(event);
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(mIds, 0, mSize, null);
+        Arrays.fill(mTitles, 0, mSize, null);
+        Arrays.fill(mComments, 0, mSize, null);
+        Arrays.fill(mCreators, 0, mSize, null);
+        mSize = 0;
+        mStrings.clear();
+        Arrays.fill(mMaxEndTree, Long.MIN_VALUE);
+    }
+
+    @Override
+    public EventStore newStore() {
+        return new ColumnarEventStore();
+    }
+
+    /**
+     * @return the number of the events in the store.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    private SimpleEvent createEvent(int row) {
+        SimpleEvent event = new SimpleEvent(mIds[row], mStartTimes[row], mEndTimes[row]);
+        event.setTitle(mTitles[row]);
+        event.setComment(mComments[row]);
+        event.setCreator(mCreators[row]);
+        event.setType(mTypes[row]);
+        event.setAllDayEvent((mFlags[row] & FLAG_ALL_DAY) != 0);
+        return event;
+    }
+
+    private void setRow(int row, ICalendarEvent event) {
+        mStartTimes[row] = event.getStartTime();
+        mEndTimes[row] = event.getEndTime();
+        mTypes[row] = event.getType();
+        mFlags[row] = event.isAllDayEvent() ? FLAG_ALL_DAY : 0;
+        mIds[row] = event.getID();
+        mTitles[row] = intern(event.getTitle());
+        mComments[row] = intern(event.getComment());
+        mCreators[row] = intern(event.getCreator());
+    }
+
+    private String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        String shared = mStrings.get(value);
+        if (shared == null) {
+            mStrings.put(value, value);
+            shared = value;
+        }
+        return shared;
+    }
+
+    private int findRow(String id, long startTime, long endTime) {
+        final boolean hasId = !StrUtil.isEmpty(id);
+        for (int row = upperBound(startTime - 1); row < mSize && mStartTimes[row] == startTime; row++) {
+            if (mEndTimes[row] == endTime && (hasId ? id.equals(mIds[row]) : StrUtil.isEmpty(mIds[row]))) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the first row that starts after the time.
+     */
+    private int upperBound(long time) {
+        return upperBound(time, mSize);
+    }
+
+    /**
+     * @return the index of the first row that starts after the time in the rows before the end.
+     */
+    private int upperBound(long time, int end) {
+        int low = 0;
+        int high = end - 1;
+        while (low <= high) {
+            final int mid = low + (high - low) / 2;
+            if (mStartTimes[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the index of the first row from <code>from</code> that ends after the time, or
+     * <code>to</code> if there is no such row before it.
+     */
+    private int nextRowEndingAfter(int from, int to, long time) {
+        final int row = nextRowEndingAfter(1, 0, mLeafCount, from, to, time);
+        return row < 0 ? to : row;
+    }
+
+    private int nextRowEndingAfter(int node, int nodeFrom, int nodeTo, int from, int to, long time) {
+        if (nodeTo <= from || nodeFrom >= to || mMaxEndTree[node] <= time) {
+            return -1;
+        }
+        if (nodeTo - nodeFrom == 1) {
+            return nodeFrom;
+        }
+
+        final int middle = (nodeFrom + nodeTo) >>> 1;
+        final int row = nextRowEndingAfter(node * 2, nodeFrom, middle, from, to, time);
+        return row >= 0 ? row : nextRowEndingAfter(node * 2 + 1, middle, nodeTo, from, to, time);
+    }
+
+    /**
+     * Update the leaves of the rows from the row to the end, including the leaves after the last row,
+     * and the nodes above them.
+     */
+    private void updateMaxEndTimes(int fromRow) {
+        int row = fromRow;
+        for (; row < mLeafCount; row++) {
+            if (row >= mSize && mMaxEndTree[mLeafCount + row] == Long.MIN_VALUE) {
+                // The leaves after it are cleared already.
+                break;
+            }
+            mMaxEndTree[mLeafCount + row] = row < mSize ? mEndTimes[row] : Long.MIN_VALUE;
+        }
+        if (row == fromRow) {
+            return;
+        }
+
+        for (int first = (mLeafCount + fromRow) >> 1, last = (mLeafCount + row - 1) >> 1; first > 0;
+             first >>= 1, last >>= 1) {
+            for (int node = first; node <= last; node++) {
+                mMaxEndTree[node] = Math.max(mMaxEndTree[node * 2], mMaxEndTree[node * 2 + 1]);
+            }
+        }
+    }
+
+    private static long[] newTree(int leafCount) {
+        final long[] tree = new long[leafCount * 2];
+        Arrays.fill(tree, Long.MIN_VALUE);
+        return tree;
+    }
+
+    /**
+     * Merge the sorted rows from the middle to the end into the sorted rows before them, the rows before
+     * the middle are first when the start times are equal.
+     *
+     * @return the first row that is moved.
+     */
+    private int mergeRows(int middle) {
+        // The rows that start before the first added row are not moved.
+        final int first = upperBound(mStartTimes[middle], middle);
+        final int[] order = new int[mSize - first];
+        int left = first;
+        int right = middle;
+        for (int i = 0; i < order.length; i++) {
+            if (right == mSize || (left < middle && mStartTimes[left] <= mStartTimes[right])) {
+                order[i] = left++;
+            } else {
+                order[i] = right++;
+            }
+        }
+
+        reorder(mStartTimes, first, order);
+        reorder(mEndTimes, first, order);
+        reorder(mTypes, first, order);
+        reorder(mFlags, first, order);
+        reorder(mIds, first, order);
+        reorder(mTitles, first, order);
+        reorder(mComments, first, order);
+        reorder(mCreators, first, order);
+        return first;
+    }
+
+    private static void reorder(long[] column, int first, int[] order) {
+        final long[] rows = Arrays.copyOfRange(column, first, first + order.length);
+        for (int i = 0; i < order.length; i++) {
+            column[first + i] = rows[order[i] - first];
+        }
+    }
+
+    private static void reorder(int[] column, int first, int[] order) {
+        final int[] rows = Arrays.copyOfRange(column, first, first + order.length);
+        for (int i = 0; i < order.length; i++) {
+            column[first + i] = rows[order[i] - first];
+        }
+    }
+
+    private static void reorder(byte[] column, int first, int[] order) {
+        final byte[] rows = Arrays.copyOfRange(column, first, first + order.length);
+        for (int i = 0; i < order.length; i++) {
+            column[first + i] = rows[order[i] - first];
+        }
+    }
+
+    private static void reorder(String[] column, int first, int[] order) {
+        final String[] rows = Arrays.copyOfRange(column, first, first + order.length);
+        for (int i = 0; i < order.length; i++) {
+            column[first + i] = rows[order[i] - first];
+        }
+    }
+
+    private void moveRows(int from, int to, int count) {
+        System.arraycopy(mStartTimes, from, mStartTimes, to, count);
+        System.arraycopy(mEndTimes, from, mEndTimes, to, count);
+        System.arraycopy(mTypes, from, mTypes, to, count);
+        System.arraycopy(mFlags, from, mFlags, to, count);
+        System.arraycopy(mIds, from, mIds, to, count);
+        System.arraycopy(mTitles, from, mTitles, to, count);
+        System.arraycopy(mComments, from, mComments, to, count);
+        System.arraycopy(mCreators, from, mCreators, to, count);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= mStartTimes.length) {
+            return;
+        }
+
+        final int newCapacity = Math.max(capacity, mStartTimes.length + (mStartTimes.length >> 1));
+        mStartTimes = Arrays.copyOf(mStartTimes, newCapacity);
+        mEndTimes = Arrays.copyOf(mEndTimes, newCapacity);
+        mTypes = Arrays.copyOf(mTypes, newCapacity);
+        mFlags = Arrays.copyOf(mFlags, newCapacity);
+        mIds = Arrays.copyOf(mIds, newCapacity);
+        mTitles = Arrays.copyOf(mTitles, newCapacity);
+        mComments = Arrays.copyOf(mComments, newCapacity);
+        mCreators = Arrays.copyOf(mCreators, newCapacity);
+        if (newCapacity > mLeafCount) {
+            mLeafCount = Integer.highestOneBit(newCapacity - 1) << 1;
+            mMaxEndTree = newTree(mLeafCount);
+            updateMaxEndTimes(0);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Find the groups of the overlapping events with one sweep over the events sorted by the start time.
+ * The events are clipped to the range, and the all day events do not conflict with the other events.
+ * An event that starts when another ends does not overlap it.
+ */
+final class ConflictDetector {
+    private static final Comparator<ICalendarEvent> START_TIME_COMPARATOR = new Comparator<ICalendarEvent>() {
+        @Override
+        public int compare(ICalendarEvent lhs, ICalendarEvent rhs) {
+            final long lhsStart = lhs.getStartTime();
+            final long rhsStart = rhs.getStartTime();
+            return lhsStart < rhsStart ? -1 : (lhsStart == rhsStart ? 0 : 1);
+        }
+    };
+
+    private ConflictDetector() {
+    }
+
+    /**
+     * @param events     the events that overlap the range, may be null.
+     * @param rangeStart the start of the range.
+     * @param rangeEnd   the end of the range, exclusive.
+     * @return the groups that have more than one event, in the order of the start time.
+     */
+    static List<ConflictGroup> find(List<? extends ICalendarEvent> events, long rangeStart, long rangeEnd) {
+        if (events == null || events.size() < 2) {
+            return Collections.emptyList();
+        }
+
+        List<ICalendarEvent> sorted = new ArrayList<>(events.size());
+        for (int i = 0, size = events.size(); i < size; i++) {
+            ICalendarEvent event = events.get(i);
+            if (!event.isAllDayEvent() && Math.min(event.getEndTime(), rangeEnd)
+                    > Math.max(event.getStartTime(), rangeStart)) {
+                sorted.add(event);
+            }
+        }
+        Collections.sort(sorted, START_TIME_COMPARATOR);
+
+        final int size = sorted.size();
+        List<ConflictGroup> groups = new ArrayList<>();
+        int[] active = new int[8];
+        int activeCount = 0;
+        int[] pairs = new int[16];
+        int pairCount = 0;
+        int groupFirst = 0;
+        long groupEnd = Long.MIN_VALUE;
+        int maxOverlap = 0;
+        for (int i = 0; i <= size; i++) {
+            final long start = i < size ? Math.max(sorted.get(i).getStartTime(), rangeStart) : Long.MAX_VALUE;
+            if (start >= groupEnd) {
+                if (i - groupFirst > 1) {
+                    groups.add(newGroup(sorted, groupFirst, i, rangeStart, groupEnd, maxOverlap, pairs, pairCount));
+                }
+                if (i == size) {
+                    break;
+                }
+                groupFirst = i;
+                groupEnd = Long.MIN_VALUE;
+                activeCount = 0;
+                pairCount = 0;
+                maxOverlap = 0;
+            }
+
+            // The active events that end before this one starts are removed, the rest overlap it.
+            int kept = 0;
+            for (int j = 0; j < activeCount; j++) {
+                if (getEnd(sorted.get(active[j]), rangeEnd) > start) {
+                    active[kept++] = active[j];
+                }
+            }
+            activeCount = kept;
+            if (pairCount + 2 * activeCount > pairs.length) {
+                pairs = Arrays.copyOf(pairs, Math.max(pairs.length * 2, pairCount + 2 * activeCount));
+            }
+            for (int j = 0; j < activeCount; j++) {
+                pairs[pairCount++] = active[j] - groupFirst;
+                pairs[pairCount++] = i - groupFirst;
+            }
+
+            if (activeCount == active.length) {
+                active = Arrays.copyOf(active, activeCount * 2);
+            }
+            active[activeCount++] = i;
+            maxOverlap = Math.max(maxOverlap, activeCount);
+            groupEnd = Math.max(groupEnd, getEnd(sorted.get(i), rangeEnd));
+        }
+        return groups;
+    }
+
+    private static long getEnd(ICalendarEvent event, long rangeEnd) {
+        return Math.min(event.getEndTime(), rangeEnd);
+    }
+
+    private static ConflictGroup newGroup(List<ICalendarEvent> sorted, int from, int to, long rangeStart,
+                                          long groupEnd, int maxOverlap, int[] pairs, int pairCount) {
+        return new ConflictGroup(new ArrayList<>(sorted.subList(from, to)),
+                Math.max(sorted.get(from).getStartTime(), rangeStart), groupEnd, maxOverlap,
+                Arrays.copyOf(pairs, pairCount));
+    }
+}
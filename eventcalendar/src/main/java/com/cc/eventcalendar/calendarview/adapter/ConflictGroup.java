@@ -0,0 +1,84 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The events that overlap each other directly or through the other events of the group, such as the
+ * events that are drawn side by side in the day view. The pairs of the events that overlap directly are
+ * the conflicts, they are kept as the indexes of the events.
+ *
+ * @see EventsAdapter#getConflicts(long, long)
+ */
+public final class ConflictGroup {
+    private final List<ICalendarEvent> mEvents;
+    private final long mStartTime;
+    private final long mEndTime;
+    private final int mMaxOverlap;
+
+    /**
+     * The pair <code>i</code> is the events at <code>mPairs[2 * i]</code> and <code>mPairs[2 * i + 1]</code>.
+     */
+    private final int[] mPairs;
+
+    ConflictGroup(List<ICalendarEvent> events, long startTime, long endTime, int maxOverlap, int[] pairs) {
+        mEvents = Collections.unmodifiableList(events);
+        mStartTime = startTime;
+        mEndTime = endTime;
+        mMaxOverlap = maxOverlap;
+        mPairs = pairs;
+    }
+
+    /**
+     * @return the events of the group in the order of the start time.
+     */
+    public List<ICalendarEvent> getEvents() {
+        return mEvents;
+    }
+
+    /**
+     * @return the start time of the first event, it is clipped to the searched range.
+     */
+    public long getStartTime() {
+        return mStartTime;
+    }
+
+    /**
+     * @return the latest end time of the events, it is clipped to the searched range.
+     */
+    public long getEndTime() {
+        return mEndTime;
+    }
+
+    /**
+     * @return the maximum number of the events of the group that happen at the same time.
+     */
+    public int getMaxOverlap() {
+        return mMaxOverlap;
+    }
+
+    /**
+     * @return the number of the pairs of the events that overlap each other.
+     */
+    public int getPairCount() {
+        return mPairs.length / 2;
+    }
+
+    /**
+     * @param pair the index of the pair.
+     * @return the index in {@link #getEvents()} of the event that starts first.
+     */
+    public int getPairFirst(int pair) {
+        return mPairs[2 * pair];
+    }
+
+    /**
+     * @param pair the index of the pair.
+     * @return the index in {@link #getEvents()} of the event that starts later.
+     */
+    public int getPairSecond(int pair) {
+        return mPairs[2 * pair + 1];
+    }
+}
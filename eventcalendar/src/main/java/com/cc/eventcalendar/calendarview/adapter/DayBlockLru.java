@@ -0,0 +1,126 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.util.DayRangeSet;
+
+import java.util.Arrays;
+
+/**
+ * The last access time of the blocks of days that {@link EventsAdapter} evicts the least recently used
+ * of. A block is 32 continuous days whose keys have the same value of <code>key >> 5</code>.
+ */
+class DayBlockLru {
+    static final int BLOCK_SHIFT = 5;
+    static final int BLOCK_DAYS = 1 << BLOCK_SHIFT;
+
+    /**
+     * The access tick of every block from <code>mFirstBlock</code>, zero if it is never accessed.
+     */
+    private long[] mTicks;
+    private int mFirstBlock;
+    private long mTick;
+
+    /**
+     * Mark the blocks of the days as the most recently used.
+     *
+     * @param firstDay the key of the first day, inclusive.
+     * @param lastDay  the key of the last day, inclusive.
+     */
+    void touch(int firstDay, int lastDay) {
+        if (firstDay > lastDay) {
+            return;
+        }
+
+        final int firstBlock = blockOf(firstDay);
+        final int lastBlock = blockOf(lastDay);
+        ensureCapacity(firstBlock, lastBlock);
+        mTick++;
+        for (int block = firstBlock; block <= lastBlock; block++) {
+            mTicks[block - mFirstBlock] = mTick;
+        }
+    }
+
+    /**
+     * @param block the block.
+     * @return the access tick of the block, zero if it is never accessed.
+     */
+    long getLastAccess(int block) {
+        final long index = (long) block - mFirstBlock;
+        return mTicks == null || index < 0 || index >= mTicks.length ? 0 : mTicks[(int) index];
+    }
+
+    /**
+     * Get the blocks of the loaded days that can be evicted, from the least recently used one.
+     *
+     * @param loadedDays the loaded days.
+     * @param pinnedDays the days that must not be evicted.
+     * @return the blocks that overlap the loaded days and not the pinned days.
+     */
+    int[] getEvictionOrder(DayRangeSet loadedDays, DayRangeSet pinnedDays) {
+        int count = 0;
+        int[] blocks = new int[16];
+        for (int i = 0; i < loadedDays.size(); i++) {
+            final int lastBlock = blockOf(loadedDays.getLastDay(i));
+            for (int block = blockOf(loadedDays.getFirstDay(i)); block <= lastBlock; block++) {
+                if (count > 0 && blocks[count - 1] == block) {
+                    // The ranges are not adjacent but may share a block.
+                    continue;
+                }
+                if (!pinnedDays.intersects(firstDayOf(block), lastDayOf(block))) {
+                    if (count == blocks.length) {
+                        blocks = Arrays.copyOf(blocks, count * 2);
+                    }
+                    blocks[count++] = block;
+                }
+            }
+        }
+
+        // Sort by the access tick, the blocks are encoded with their ticks into the keys.
+        long[] keys = new long[count];
+        final long minTick = Math.max(0, mTick - Integer.MAX_VALUE);
+        for (int i = 0; i < count; i++) {
+            final long tick = Math.max(getLastAccess(blocks[i]) - minTick, 0);
+            keys[i] = tick << 32 | (blocks[i] & 0xffffffffL);
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < count; i++) {
+            blocks[i] = (int) keys[i];
+        }
+        return Arrays.copyOf(blocks, count);
+    }
+
+    void clear() {
+        mTicks = null;
+        mFirstBlock = 0;
+    }
+
+    static int blockOf(int day) {
+        return day >> BLOCK_SHIFT;
+    }
+
+    static int firstDayOf(int block) {
+        return block << BLOCK_SHIFT;
+    }
+
+    static int lastDayOf(int block) {
+        return (block << BLOCK_SHIFT) + BLOCK_DAYS - 1;
+    }
+
+    private void ensureCapacity(int firstBlock, int lastBlock) {
+        if (mTicks == null) {
+            mFirstBlock = firstBlock;
+            mTicks = new long[Math.max(lastBlock - firstBlock + 1, 64)];
+            return;
+        }
+
+        final int newFirstBlock = Math.min(firstBlock, mFirstBlock);
+        final int newLastBlock = Math.max(lastBlock, mFirstBlock + mTicks.length - 1);
+        if (newFirstBlock == mFirstBlock && newLastBlock == mFirstBlock + mTicks.length - 1) {
+            return;
+        }
+
+        long[] ticks = new long[Math.max(newLastBlock - newFirstBlock + 1, mTicks.length * 2)];
+        System.arraycopy(mTicks, 0, ticks, mFirstBlock - newFirstBlock, mTicks.length);
+        mTicks = ticks;
+        mFirstBlock = newFirstBlock;
+    }
+}
@@ -0,0 +1,121 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import android.util.SparseArray;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.util.DayKey;
+import com.cc.eventcalendar.calendarview.util.StrUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The default event store, every event is put into the list of each day it spans.
+ */
+public class DayBucketEventStore implements EventStore {
+    private SparseArray<Collection<? extends BaseEvent>> mEvents;
+
+    public DayBucketEventStore() {
+        mEvents = new SparseArray<>();
+    }
+
+    @Override
+    public void addEvent(ICalendarEvent event) {
+        if (event == null) {
+            return;
+        }
+
+        List<BaseEvent> tmp;
+        final int lastKey = DayKey.ofEndTime(event.getEndTime());
+        for (int key = DayKey.of(event.getStartTime()); key <= lastKey; key++) {
+            tmp = (List<BaseEvent>) mEvents.get(key);
+            if (tmp == null) {
+                tmp = new ArrayList<>();
+                mEvents.put(key, tmp);
+            }
+            tmp.add((BaseEvent) event);
+        }
+    }
+
+    @Override
+    public boolean removeEvent(String id, long startTime, long endTime) {
+        final boolean hasId = !StrUtil.isEmpty(id);
+        boolean isDeleted = false;
+        final int lastKey = DayKey.ofEndTime(endTime);
+        for (int key = DayKey.of(startTime); key <= lastKey; key++) {
+            List<BaseEvent> events = (List<BaseEvent>) mEvents.get(key);
+            if (events == null || events.isEmpty()) {
+                continue;
+            }
+
+            for (int i = 0; i < events.size(); i++) {
+                // Match the ids exactly as the id index of EventsAdapter does, an event may have no id.
+                final BaseEvent event = events.get(i);
+                if (hasId ? id.equals(event.getID()) : StrUtil.isEmpty(event.getID())
+                        && event.getStartTime() == startTime && event.getEndTime() == endTime) {
+                    events.remove(i);
+                    isDeleted = true;
+                    break;
+                }
+            }
+        }
+        return isDeleted;
+    }
+
+    @Override
+    public List<? extends ICalendarEvent> getEventsOfDay(int key) {
+        return (List<? extends ICalendarEvent>) mEvents.get(key);
+    }
+
+    @Override
+    public boolean hasEventsOnDay(int key) {
+        Collection<? extends BaseEvent> events = mEvents.get(key);
+        return events != null && !events.isEmpty();
+    }
+
+    @Override
+    public List<ICalendarEvent> getEvents(long startTime, long endTime) {
+        List<ICalendarEvent> ret = new ArrayList<>();
+        if (endTime <= startTime) {
+            return ret;
+        }
+
+        // The multi-day events are in several lists, make sure every event is only added once.
+        IdentityHashMap<ICalendarEvent, Boolean> added = new IdentityHashMap<>();
+        final int lastKey = DayKey.ofEndTime(endTime);
+        for (int key = DayKey.of(startTime); key <= lastKey; key++) {
+            List<? extends ICalendarEvent> events = getEventsOfDay(key);
+            if (events != null) {
+                for (ICalendarEvent event : events) {
+                    if (event.getStartTime() < endTime && event.getEndTime() > startTime
+                            && added.put(event, Boolean.TRUE) == null) {
+                        ret.add(event);
+                    }
+                }
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public void setEventsOfDay(int key, Collection<? extends BaseEvent> events) {
+        mEvents.put(key, events);
+    }
+
+    @Override
+    public SparseArray<Collection<? extends BaseEvent>> toSparseArray() {
+        return mEvents;
+    }
+
+    @Override
+    public void clear() {
+        mEvents.clear();
+    }
+
+    @Override
+    public EventStore newStore() {
+        return new DayBucketEventStore();
+    }
+}
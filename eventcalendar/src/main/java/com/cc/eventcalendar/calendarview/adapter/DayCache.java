@@ -0,0 +1,58 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.util.DayRangeSet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The values that {@link EventsAdapter} computes from the events of a day, such as the events accepted
+ * by the filter, so a day that is read again is not computed again. A cache belongs to one snapshot of
+ * the adapter and the filter of it, the next snapshot copies the days that are not changed. The least
+ * recently read days are dropped when there are more than the maximum. The methods are thread safe.
+ *
+ * @param <V> the type of the values.
+ */
+class DayCache<V> {
+    private final EventsAdapter.EventFilter mFilter;
+    private final LinkedHashMap<Integer, V> mDays;
+
+    DayCache(EventsAdapter.EventFilter filter, final int maxDays) {
+        mFilter = filter;
+        mDays = new LinkedHashMap<Integer, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+                return size() > maxDays;
+            }
+        };
+    }
+
+    EventsAdapter.EventFilter getFilter() {
+        return mFilter;
+    }
+
+    /**
+     * @return the value of the day, or null if the day is not cached.
+     */
+    synchronized V get(int key) {
+        return mDays.get(key);
+    }
+
+    synchronized void put(int key, V value) {
+        mDays.put(key, value);
+    }
+
+    /**
+     * @return a new cache of the same filter with the days that are not changed.
+     */
+    synchronized DayCache<V> copyWithout(DayRangeSet changedDays, int maxDays) {
+        DayCache<V> ret = new DayCache<>(mFilter, maxDays);
+        // The order of the iteration is from the least recently used, it is kept in the copy.
+        for (Map.Entry<Integer, V> entry : mDays.entrySet()) {
+            if (!changedDays.contains(entry.getKey(), entry.getKey())) {
+                ret.mDays.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return ret;
+    }
+}
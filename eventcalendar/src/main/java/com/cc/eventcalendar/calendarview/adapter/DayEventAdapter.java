@@ -16,6 +16,30 @@ public class DayEventAdapter extends AbsOSEventAdapter {
     private List<ICalendarEvent> mAllDayEvent;
     private Calendar mDayOfEvent;
 
+    /**
+     * The indices of the events in the order of the start time, the events keep the order of the host.
+     */
+    private int[] mOrder = new int[0];
+
+    /**
+     * The column of the event at the same index and the number of the columns of its overlapping events,
+     * they are computed when the events are updated.
+     */
+    private int[] mColumns = new int[0];
+    private int[] mColumnCounts = new int[0];
+
+    /**
+     * The duration of the minimum height of an event, the columns are packed by the drawn end of the events.
+     */
+    private long mMinEventDuration;
+
+    /**
+     * The latest end time of the events from the first position of {@link #mOrder} to the one at the same
+     * position, the events that overlap a time window are found by the binary searches of it and the start
+     * times.
+     */
+    private long[] mMaxEndTimes = new long[0];
+
     public DayEventAdapter() {
         mDayOfEvent = Calendar.getInstance();
         OSTimeUtil.changeToStartOfDay(mDayOfEvent);
@@ -29,7 +53,10 @@ public class DayEventAdapter extends AbsOSEventAdapter {
     }
 
     /**
-     * Update the day events of the adapter
+     * Update the day events of the adapter, the events are sorted by the start time and laid out in the
+     * columns once here, so the view does not compute the overlaps or scan all of the events when it
+     * draws. The events keep their order in {@link #getEvent(int)}, the sorted order is in
+     * {@link #getEventIndex(int)}.
      *
      * @param events     the event of one day.
      * @param dayOfEvent the day of the event.
@@ -41,6 +68,7 @@ public class DayEventAdapter extends AbsOSEventAdapter {
             mEvents.addAll(events);
             pickupAllDayEvent(mEvents);
         }
+        indexEvents();
 
         if (dayOfEvent != null) {
             mDayOfEvent.setTimeInMillis(dayOfEvent.getTimeInMillis());
@@ -66,6 +94,89 @@ public class DayEventAdapter extends AbsOSEventAdapter {
         return null;
     }
 
+    /**
+     * Set the duration of the minimum height of an event, the short events that are drawn over each
+     * other are laid out in the different columns.
+     *
+     * @param duration the duration of the minimum height of an event.
+     */
+    public void setMinEventDuration(long duration) {
+        if (mMinEventDuration == duration) {
+            return;
+        }
+
+        mMinEventDuration = duration;
+        EventColumnLayout.layout(mEvents, mOrder, mMinEventDuration, mColumns, mColumnCounts);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * @param position the position in the order of the start time, as the results of
+     *                 {@link #findFirstEventEndingAfter(long)} and {@link #findFirstEventStartingFrom(long)}.
+     * @return the index of the event at the position.
+     */
+    public int getEventIndex(int position) {
+        return mOrder[position];
+    }
+
+    /**
+     * @param index the index of the event.
+     * @return the column of the event, the overlapping events are in the different columns.
+     */
+    public int getEventColumn(int index) {
+        return mColumns[index];
+    }
+
+    /**
+     * @param index the index of the event.
+     * @return the number of the columns that the event and its overlapping events share.
+     */
+    public int getEventColumnCount(int index) {
+        return mColumnCounts[index];
+    }
+
+    /**
+     * Find the first event that may overlap the time, the events before it end before the time. The
+     * events from it to {@link #findFirstEventStartingFrom(long)} include all of the events that overlap
+     * a time window, and maybe some short events that end before the window.
+     *
+     * @param time the start of the time window.
+     * @return the position of the first event that ends after the time of any event before it, or the
+     * number of the events if all of them end before the time.
+     */
+    public int findFirstEventEndingAfter(long time) {
+        int low = 0;
+        int high = mEvents.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (mMaxEndTimes[mid] > time) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param time the end of the time window.
+     * @return the position of the first event that starts at or after the time, or the number of the
+     * events if all of them start before the time.
+     */
+    public int findFirstEventStartingFrom(long time) {
+        int low = 0;
+        int high = mEvents.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (mEvents.get(mOrder[mid]).getStartTime() >= time) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
     public int getAllDayEventsCount() {
         if (mAllDayEvent != null) {
             return mAllDayEvent.size();
@@ -90,6 +201,24 @@ public class DayEventAdapter extends AbsOSEventAdapter {
         return mDayOfEvent;
     }
 
+    private void indexEvents() {
+        final int size = mEvents.size();
+        if (mColumns.length < size) {
+            mOrder = new int[size];
+            mColumns = new int[size];
+            mColumnCounts = new int[size];
+            mMaxEndTimes = new long[size];
+        }
+        EventColumnLayout.sort(mEvents, mOrder);
+        EventColumnLayout.layout(mEvents, mOrder, mMinEventDuration, mColumns, mColumnCounts);
+
+        long maxEndTime = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            maxEndTime = Math.max(maxEndTime, mEvents.get(mOrder[i]).getEndTime());
+            mMaxEndTimes[i] = maxEndTime;
+        }
+    }
+
     /**
      * pick the all day event from the specified events.
      *
@@ -0,0 +1,110 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The summary of the events of one day, such as for the badges and the heat map of the month view. The
+ * all day events are counted, but they do not make the day busy.
+ *
+ * @see EventsAdapter#getDaySummaries(int, int)
+ */
+public final class DaySummary {
+    static final DaySummary EMPTY = new DaySummary(0, 0, 0);
+
+    private static final long MILLIS_IN_MINUTE = 60 * 1000L;
+
+    private final int mEventCount;
+    private final int mBusyMinutes;
+    private final int mMaxOverlap;
+
+    private DaySummary(int eventCount, int busyMinutes, int maxOverlap) {
+        mEventCount = eventCount;
+        mBusyMinutes = busyMinutes;
+        mMaxOverlap = maxOverlap;
+    }
+
+    /**
+     * @return the number of the events on the day.
+     */
+    public int getEventCount() {
+        return mEventCount;
+    }
+
+    /**
+     * @return the minutes of the day that are covered by any event, the overlapped time is counted once.
+     */
+    public int getBusyMinutes() {
+        return mBusyMinutes;
+    }
+
+    /**
+     * @return the maximum number of the events that happen at the same time on the day.
+     */
+    public int getMaxOverlap() {
+        return mMaxOverlap;
+    }
+
+    /**
+     * Summarize the events of a day.
+     *
+     * @param events   the events of the day, may be null.
+     * @param dayStart the start time of the day.
+     * @param dayEnd   the end time of the day, exclusive.
+     * @return the summary.
+     */
+    static DaySummary of(List<? extends ICalendarEvent> events, long dayStart, long dayEnd) {
+        if (events == null || events.isEmpty()) {
+            return EMPTY;
+        }
+
+        // The events are clipped to the day, the starts and the ends are swept in order.
+        final int size = events.size();
+        long[] starts = new long[size];
+        long[] ends = new long[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            ICalendarEvent event = events.get(i);
+            final long start = Math.max(event.getStartTime(), dayStart);
+            final long end = Math.min(event.getEndTime(), dayEnd);
+            if (!event.isAllDayEvent() && end > start) {
+                starts[count] = start;
+                ends[count] = end;
+                count++;
+            }
+        }
+        Arrays.sort(starts, 0, count);
+        Arrays.sort(ends, 0, count);
+
+        long busy = 0;
+        long busyStart = 0;
+        int active = 0;
+        int maxOverlap = 0;
+        int startIndex = 0;
+        int endIndex = 0;
+        while (startIndex < count) {
+            // An event that starts when another ends does not overlap it.
+            if (starts[startIndex] < ends[endIndex]) {
+                if (active == 0) {
+                    busyStart = starts[startIndex];
+                }
+                active++;
+                maxOverlap = Math.max(maxOverlap, active);
+                startIndex++;
+            } else {
+                active--;
+                if (active == 0) {
+                    busy += ends[endIndex] - busyStart;
+                }
+                endIndex++;
+            }
+        }
+        if (count > 0) {
+            // The remaining events end at the latest end.
+            busy += ends[count - 1] - busyStart;
+        }
+        return new DaySummary(size, (int) (busy / MILLIS_IN_MINUTE), maxOverlap);
+    }
+}
@@ -0,0 +1,172 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A list of events that is written to a {@link Parcel} by {@link EventCodec}, to pass many events through
+ * an {@link android.content.Intent} or a saved state at once. The events are encoded once, when the
+ * bundle is written for the first time.
+ * <p>
+ * A payload larger than {@link #MAX_INLINE_BYTES} is not put into the parcel, so the Binder transaction
+ * limit is not hit. It is written to a file in the cache directory that is passed to
+ * {@link #EventBundle(List, File)} and only the path is parcelled, so the bundle can be read again such as
+ * when the state is restored. The file is named by the content, the same events share one file, and it
+ * stays until the cache directory is cleared. A bundle without the cache directory throws when the
+ * payload is too large.
+ * </p>
+ */
+public class EventBundle implements Parcelable {
+    /**
+     * The maximum size of the encoded events that are written into the parcel.
+     */
+    public static final int MAX_INLINE_BYTES = 128 * 1024;
+
+    private static final int MODE_INLINE = 0;
+    private static final int MODE_FILE = 1;
+
+    private final List<ICalendarEvent> mEvents;
+    private final File mCacheDir;
+
+    /**
+     * The encoded events, and the file that they are written to if they are too large for the parcel.
+     */
+    private byte[] mData;
+    private File mFile;
+
+    /**
+     * Create a bundle that writes the events into the parcel.
+     *
+     * @param events the events.
+     */
+    public EventBundle(List<? extends ICalendarEvent> events) {
+        this(events, null);
+    }
+
+    /**
+     * Create a bundle that writes the events into the parcel, or to a file in the cache directory if they
+     * are larger than {@link #MAX_INLINE_BYTES}.
+     *
+     * @param events   the events.
+     * @param cacheDir the directory of the file, such as {@link android.content.Context#getCacheDir()}, or
+     *                 null if the events must be written into the parcel.
+     */
+    public EventBundle(List<? extends ICalendarEvent> events, File cacheDir) {
+        mEvents = events == null ? new ArrayList<ICalendarEvent>() : new ArrayList<ICalendarEvent>(events);
+        mCacheDir = cacheDir;
+    }
+
+    /**
+     * @return the events of the bundle, the events read from a parcel are {@link SimpleEvent}.
+     */
+    public List<ICalendarEvent> getEvents() {
+        return mEvents;
+    }
+
+    public static final Creator<EventBundle> CREATOR = new Creator<EventBundle>() {
+
+        @Override
+        public EventBundle createFromParcel(Parcel source) {
+            try {
+                if (source.readInt() == MODE_INLINE) {
+                    return new EventBundle(EventCodec.decode(source.createByteArray()));
+                }
+
+                InputStream in = new BufferedInputStream(new FileInputStream(source.readString()));
+                try {
+                    return new EventBundle(EventCodec.decode(in));
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read the events.", e);
+            }
+        }
+
+        @Override
+        public EventBundle[] newArray(int size) {
+            return new EventBundle[size];
+        }
+    };
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The bundle never contains a file descriptor, so it can be put into an Intent and a saved state.
+     * </p>
+     */
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the payload is larger than {@link #MAX_INLINE_BYTES} and there is
+     *                               no cache directory, or the file cannot be written.
+     */
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        if (mData == null) {
+            mData = EventCodec.encode(mEvents, true);
+        }
+        if (mData.length <= MAX_INLINE_BYTES) {
+            dest.writeInt(MODE_INLINE);
+            dest.writeByteArray(mData);
+            return;
+        }
+
+        if (mCacheDir == null) {
+            throw new IllegalStateException("The events take " + mData.length + " bytes, more than "
+                    + MAX_INLINE_BYTES + ", create the bundle with a cache directory.");
+        }
+        if (mFile == null) {
+            try {
+                mFile = writeFile(mCacheDir, mData);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot write the events.", e);
+            }
+        }
+        dest.writeInt(MODE_FILE);
+        dest.writeString(mFile.getPath());
+    }
+
+    private static File writeFile(File dir, byte[] data) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        final File file = new File(dir, "events-" + Long.toHexString(crc.getValue()) + "-" + data.length);
+        if (file.isFile() && file.length() == data.length) {
+            return file;
+        }
+
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        // The file is renamed when it is complete, a reader never sees a part of it.
+        File tmp = new File(dir, file.getName() + ".tmp");
+        FileOutputStream out = new FileOutputStream(tmp);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,284 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A compact binary format to move a large number of events at once, it is much smaller than writing the
+ * events one by one to a {@link android.os.Parcel}.
+ * <p>
+ * The times are the variable-length differences to the previous event, and the titles, the comments and
+ * the creators are written once and then referred by their index in a dictionary. The body may be
+ * compressed by deflate. The events are decoded as {@link SimpleEvent}.
+ * </p>
+ *
+ * @see EventBundle
+ */
+public final class EventCodec {
+    private static final int MAGIC = 0x4F534543;
+    private static final int VERSION = 1;
+    private static final int FLAG_DEFLATE = 1;
+    private static final int EVENT_FLAG_ALL_DAY = 1;
+
+    /**
+     * The references of the strings, a larger value is the index of the dictionary plus REF_DICTIONARY.
+     */
+    private static final int REF_NULL = 0;
+    private static final int REF_INLINE = 1;
+    private static final int REF_DICTIONARY = 2;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private EventCodec() {
+    }
+
+    /**
+     * Encode the events to bytes.
+     *
+     * @param events  the events.
+     * @param deflate whether to compress the body.
+     * @return the encoded bytes.
+     */
+    public static byte[] encode(List<? extends ICalendarEvent> events, boolean deflate) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(events.size() * 16 + 16);
+        try {
+            encode(events, out, deflate);
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw.
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode the events to the stream, the stream is not closed.
+     *
+     * @param events  the events.
+     * @param out     the stream.
+     * @param deflate whether to compress the body.
+     * @throws IOException if the stream cannot be written.
+     */
+    public static void encode(List<? extends ICalendarEvent> events, OutputStream out, boolean deflate) throws IOException {
+        writeInt(out, MAGIC);
+        out.write(VERSION);
+        out.write(deflate ? FLAG_DEFLATE : 0);
+
+        Deflater deflater = null;
+        OutputStream body = new BufferedOutputStream(out, 8192) {
+            @Override
+            public void close() throws IOException {
+                // Keep the stream of the caller open.
+                flush();
+            }
+        };
+        if (deflate) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+            body = new DeflaterOutputStream(body, deflater, 8192);
+        }
+
+        try {
+            HashMap<String, Integer> dictionary = new HashMap<>();
+            writeVarLong(body, events.size());
+            long previousStart = 0;
+            for (ICalendarEvent event : events) {
+                final long start = event.getStartTime();
+                writeVarLong(body, zigZag(start - previousStart));
+                writeVarLong(body, zigZag(event.getEndTime() - start));
+                previousStart = start;
+                writeVarLong(body, zigZag(event.getType()));
+                body.write(event.isAllDayEvent() ? EVENT_FLAG_ALL_DAY : 0);
+                // The ids are unique, they are not put into the dictionary.
+                writeString(body, event.getID(), null);
+                writeString(body, event.getTitle(), dictionary);
+                writeString(body, event.getComment(), dictionary);
+                writeString(body, event.getCreator(), dictionary);
+            }
+            body.close();
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Decode the events from the bytes.
+     *
+     * @param data the bytes written by {@link #encode(List, boolean)}.
+     * @return the events.
+     * @throws IOException if the data is broken.
+     */
+    public static List<ICalendarEvent> decode(byte[] data) throws IOException {
+        return decode(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Decode the events from the stream, the stream is not closed but may be read beyond the events.
+     *
+     * @param in the stream written by {@link #encode(List, OutputStream, boolean)}.
+     * @return the events.
+     * @throws IOException if the stream cannot be read or the data is broken.
+     */
+    public static List<ICalendarEvent> decode(InputStream in) throws IOException {
+        if (readInt(in) != MAGIC) {
+            throw new IOException("Not an event stream.");
+        }
+        final int version = readByte(in);
+        if (version != VERSION) {
+            throw new IOException("Unsupported version: " + version);
+        }
+
+        final boolean deflate = (readByte(in) & FLAG_DEFLATE) != 0;
+        InputStream body = new BufferedInputStream(in, 8192);
+        if (deflate) {
+            body = new InflaterInputStream(body);
+        }
+
+        final long count = readVarLong(body);
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new IOException("Invalid count: " + count);
+        }
+
+        List<String> dictionary = new ArrayList<>();
+        List<ICalendarEvent> events = new ArrayList<>((int) Math.min(count, 1 << 16));
+        long previousStart = 0;
+        for (long i = 0; i < count; i++) {
+            final long start = previousStart + unZigZag(readVarLong(body));
+            final long end = start + unZigZag(readVarLong(body));
+            previousStart = start;
+            SimpleEvent event = new SimpleEvent();
+            event.setStartTime(start);
+            event.setEndTime(end);
+            event.setType((int) unZigZag(readVarLong(body)));
+            event.setAllDayEvent((readByte(body) & EVENT_FLAG_ALL_DAY) != 0);
+            event.setID(readString(body, null));
+            event.setTitle(readString(body, dictionary));
+            event.setComment(readString(body, dictionary));
+            event.setCreator(readString(body, dictionary));
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static void writeString(OutputStream out, String value, HashMap<String, Integer> dictionary) throws IOException {
+        if (value == null) {
+            writeVarLong(out, REF_NULL);
+            return;
+        }
+
+        if (dictionary != null) {
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                writeVarLong(out, index + REF_DICTIONARY);
+                return;
+            }
+            dictionary.put(value, dictionary.size());
+        }
+
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarLong(out, REF_INLINE);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(InputStream in, List<String> dictionary) throws IOException {
+        final long ref = readVarLong(in);
+        if (ref == REF_NULL) {
+            return null;
+        }
+
+        if (ref == REF_INLINE) {
+            final long length = readVarLong(in);
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Invalid string length: " + length);
+            }
+
+            byte[] bytes = new byte[(int) length];
+            readFully(in, bytes);
+            String value = new String(bytes, UTF_8);
+            if (dictionary != null) {
+                dictionary.add(value);
+            }
+            return value;
+        }
+
+        final long index = ref - REF_DICTIONARY;
+        if (dictionary == null || index < 0 || index >= dictionary.size()) {
+            throw new IOException("Invalid string reference: " + ref);
+        }
+        return dictionary.get((int) index);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = readByte(in);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid variable-length number.");
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        return readByte(in) << 24 | readByte(in) << 16 | readByte(in) << 8 | readByte(in);
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        final int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private static void readFully(InputStream in, byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            final int read = in.read(bytes, offset, bytes.length - offset);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            offset += read;
+        }
+    }
+}
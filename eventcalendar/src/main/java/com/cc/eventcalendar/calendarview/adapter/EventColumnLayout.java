@@ -0,0 +1,113 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Lay out the overlapping events side by side. The events that overlap each other directly or through
+ * the other events are a cluster, every event of a cluster gets the lowest column that is free when it
+ * starts, and all of them share the number of the columns of the cluster. An event that starts when
+ * another ends can use its column. An event shorter than the minimum duration is drawn with the minimum
+ * height, so it takes its column until the minimum duration after its start.
+ */
+final class EventColumnLayout {
+    /**
+     * The order of the events that are laid out, the longer event is first when they start together.
+     */
+    static final Comparator<ICalendarEvent> LAYOUT_ORDER = new Comparator<ICalendarEvent>() {
+        @Override
+        public int compare(ICalendarEvent lhs, ICalendarEvent rhs) {
+            if (lhs.getStartTime() != rhs.getStartTime()) {
+                return lhs.getStartTime() < rhs.getStartTime() ? -1 : 1;
+            }
+            return lhs.getEndTime() > rhs.getEndTime() ? -1 : (lhs.getEndTime() == rhs.getEndTime() ? 0 : 1);
+        }
+    };
+
+    private EventColumnLayout() {
+    }
+
+    /**
+     * Sort the indices of the events by {@link #LAYOUT_ORDER}, the events themselves are not moved.
+     *
+     * @param events the events.
+     * @param order  receives the indices of the events in the layout order, its length is at least the
+     *               number of the events.
+     */
+    static void sort(final List<? extends ICalendarEvent> events, int[] order) {
+        final int size = events.size();
+        Integer[] indices = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer lhs, Integer rhs) {
+                return LAYOUT_ORDER.compare(events.get(lhs), events.get(rhs));
+            }
+        });
+        for (int i = 0; i < size; i++) {
+            order[i] = indices[i];
+        }
+    }
+
+    /**
+     * Assign the columns, it takes O(n log n) time.
+     *
+     * @param events       the events.
+     * @param order        the indices of the events in the order of {@link #LAYOUT_ORDER}.
+     * @param minDuration  the duration of the minimum height of an event.
+     * @param columns      receives the column of the event at the same index.
+     * @param columnCounts receives the number of the columns of the cluster of the event at the same index.
+     */
+    static void layout(final List<? extends ICalendarEvent> events, int[] order, final long minDuration,
+                       int[] columns, int[] columnCounts) {
+        final int size = events.size();
+        // The events that are not ended by the drawn end time, and the columns that are freed in the cluster.
+        PriorityQueue<Integer> active = new PriorityQueue<>(Math.max(size, 1), new Comparator<Integer>() {
+            @Override
+            public int compare(Integer lhs, Integer rhs) {
+                final long lhsEnd = getDrawnEnd(events.get(lhs), minDuration);
+                final long rhsEnd = getDrawnEnd(events.get(rhs), minDuration);
+                return lhsEnd < rhsEnd ? -1 : (lhsEnd == rhsEnd ? 0 : 1);
+            }
+        });
+        PriorityQueue<Integer> freeColumns = new PriorityQueue<>();
+        int clusterFirst = 0;
+        int clusterColumns = 0;
+        for (int i = 0; i < size; i++) {
+            final int index = order[i];
+            final long start = events.get(index).getStartTime();
+            while (!active.isEmpty() && getDrawnEnd(events.get(active.peek()), minDuration) <= start) {
+                freeColumns.add(columns[active.poll()]);
+            }
+            if (active.isEmpty()) {
+                fillColumnCount(order, columnCounts, clusterFirst, i, clusterColumns);
+                freeColumns.clear();
+                clusterFirst = i;
+                clusterColumns = 0;
+            }
+
+            columns[index] = freeColumns.isEmpty() ? clusterColumns++ : freeColumns.poll();
+            active.add(index);
+        }
+        fillColumnCount(order, columnCounts, clusterFirst, size, clusterColumns);
+    }
+
+    /**
+     * @return the time where the drawing of the event ends.
+     */
+    private static long getDrawnEnd(ICalendarEvent event, long minDuration) {
+        return Math.max(event.getEndTime(), event.getStartTime() + minDuration);
+    }
+
+    private static void fillColumnCount(int[] order, int[] columnCounts, int from, int to, int count) {
+        for (int i = from; i < to; i++) {
+            columnCounts[order[i]] = count;
+        }
+    }
+}
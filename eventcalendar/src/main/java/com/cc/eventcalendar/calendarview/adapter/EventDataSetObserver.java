@@ -0,0 +1,44 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import android.database.DataSetObserver;
+
+/**
+ * An observer that is told which days are changed, so the views only need to refresh the days they show.
+ * The days are specified by the keys of {@link com.cc.eventcalendar.calendarview.util.DayKey}, a range
+ * whose first key is greater than the last key is empty.
+ */
+public abstract class EventDataSetObserver extends DataSetObserver {
+
+    /**
+     * Called when the events of the days are changed. The default implementation calls
+     * {@link #onChanged()}.
+     *
+     * @param firstDayKey the key of the first changed day, inclusive.
+     * @param lastDayKey  the key of the last changed day, inclusive.
+     */
+    public void onDaysChanged(int firstDayKey, int lastDayKey) {
+        onChanged();
+    }
+
+    /**
+     * Called when one event is added, removed or modified. The default implementation calls
+     * {@link #onDaysChanged(int, int)} with the old and the new days of the event.
+     *
+     * @param id             the id of the event.
+     * @param oldFirstDayKey the key of the first day of the event before the change.
+     * @param oldLastDayKey  the key of the last day of the event before the change, the range is empty
+     *                       if the event is added.
+     * @param newFirstDayKey the key of the first day of the event after the change.
+     * @param newLastDayKey  the key of the last day of the event after the change, the range is empty if
+     *                       the event is removed.
+     */
+    public void onEventChanged(String id, int oldFirstDayKey, int oldLastDayKey, int newFirstDayKey, int newLastDayKey) {
+        if (oldFirstDayKey <= oldLastDayKey) {
+            onDaysChanged(oldFirstDayKey, oldLastDayKey);
+        }
+
+        if (newFirstDayKey <= newLastDayKey && (newFirstDayKey != oldFirstDayKey || newLastDayKey != oldLastDayKey)) {
+            onDaysChanged(newFirstDayKey, newLastDayKey);
+        }
+    }
+}
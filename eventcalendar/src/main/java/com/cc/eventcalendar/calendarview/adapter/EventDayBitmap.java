@@ -0,0 +1,227 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+/**
+ * A bitmap of the days that have events, keyed by the epoch day. Every day keeps the number of the
+ * events on it so the events can be added and removed incrementally, and the bit of the day is set
+ * while the number is not zero.
+ *
+ * @see com.cc.eventcalendar.calendarview.util.DayKey
+ */
+public class EventDayBitmap {
+    /**
+     * The number of days that the bitmap grows at least.
+     */
+    private static final int MIN_GROW_DAYS = 512;
+
+    /**
+     * The epoch day of the first bit, always a multiple of 64.
+     */
+    private int mFirstDay;
+    private int[] mCounts;
+    private long[] mWords;
+
+    /**
+     * Whether the words are shared with a snapshot, they are copied before the next change. The words
+     * are small, one long covers 64 days.
+     */
+    private boolean mShared;
+
+    /**
+     * Whether the bitmap is a snapshot that cannot be changed.
+     */
+    private boolean mReadOnly;
+
+    /**
+     * Create a snapshot of the bitmap, the snapshot can be read by other threads and never changes.
+     *
+     * @return a read-only bitmap, changing it throws {@link UnsupportedOperationException}.
+     */
+    public EventDayBitmap snapshot() {
+        if (mReadOnly) {
+            return this;
+        }
+
+        EventDayBitmap snapshot = new EventDayBitmap();
+        snapshot.mFirstDay = mFirstDay;
+        snapshot.mWords = mWords;
+        snapshot.mReadOnly = true;
+        mShared = mWords != null;
+        return snapshot;
+    }
+
+    /**
+     * Create a read-only bitmap from the words, see {@link EventSnapshotFile}.
+     *
+     * @param firstDay the epoch day of the first bit, a multiple of 64.
+     * @param words    the words of the bitmap, they are not copied.
+     */
+    static EventDayBitmap readOnly(int firstDay, long[] words) {
+        EventDayBitmap bitmap = new EventDayBitmap();
+        bitmap.mFirstDay = firstDay;
+        bitmap.mWords = words.length == 0 ? null : words;
+        bitmap.mReadOnly = true;
+        return bitmap;
+    }
+
+    /**
+     * @return the epoch day of the first bit.
+     */
+    int getFirstDay() {
+        return mFirstDay;
+    }
+
+    /**
+     * @return the words of the bitmap that must not be changed, or null if it is empty.
+     */
+    long[] getWords() {
+        return mWords;
+    }
+
+    /**
+     * Mark the days between <code>firstDay</code> and <code>lastDay</code> that have one more event.
+     *
+     * @param firstDay the first epoch day, inclusive.
+     * @param lastDay  the last epoch day, inclusive.
+     */
+    public void add(int firstDay, int lastDay) {
+        if (lastDay < firstDay) {
+            return;
+        }
+
+        checkWritable();
+        ensureCapacity(firstDay, lastDay);
+        unshareWords();
+        for (int i = firstDay - mFirstDay, end = lastDay - mFirstDay; i <= end; i++) {
+            if (mCounts[i]++ == 0) {
+                mWords[i >> 6] |= 1L << i;
+            }
+        }
+    }
+
+    /**
+     * Remove one event from the days between <code>firstDay</code> and <code>lastDay</code>, the days
+     * must have been added by {@link #add(int, int)}.
+     *
+     * @param firstDay the first epoch day, inclusive.
+     * @param lastDay  the last epoch day, inclusive.
+     */
+    public void remove(int firstDay, int lastDay) {
+        checkWritable();
+        if (lastDay < firstDay || mCounts == null) {
+            return;
+        }
+
+        unshareWords();
+        final int from = Math.max(firstDay - mFirstDay, 0);
+        final int to = Math.min(lastDay - mFirstDay, mCounts.length - 1);
+        for (int i = from; i <= to; i++) {
+            if (mCounts[i] > 0 && --mCounts[i] == 0) {
+                mWords[i >> 6] &= ~(1L << i);
+            }
+        }
+    }
+
+    /**
+     * Check whether has event on the specified day.
+     *
+     * @param day the epoch day.
+     * @return true if has event on the day, otherwise false.
+     */
+    public boolean get(int day) {
+        return (getRange(day, 1) & 1) != 0;
+    }
+
+    /**
+     * Get the bits of the continuous days, it only reads one or two words of the bitmap.
+     *
+     * @param firstDay the first epoch day.
+     * @param count    the number of the days, between 1 and 64.
+     * @return the bits of the days, the bit <code>i</code> is set if there are events on the day
+     * <code>firstDay + i</code>.
+     */
+    public long getRange(int firstDay, int count) {
+        if (count <= 0 || count > 64) {
+            throw new IllegalArgumentException("The count must be between 1 and 64: " + count);
+        }
+
+        if (mWords == null) {
+            return 0;
+        }
+
+        final long offset = (long) firstDay - mFirstDay;
+        final int wordIndex = (int) (offset >> 6);
+        final int bit = (int) (offset & 63);
+        long bits = getWord(wordIndex) >>> bit;
+        if (bit != 0) {
+            bits |= getWord(wordIndex + 1) << (64 - bit);
+        }
+        return count == 64 ? bits : bits & ((1L << count) - 1);
+    }
+
+    /**
+     * Remove all of the days.
+     */
+    public void clear() {
+        checkWritable();
+        mCounts = null;
+        mWords = null;
+        mFirstDay = 0;
+        mShared = false;
+    }
+
+    private void checkWritable() {
+        if (mReadOnly) {
+            throw new UnsupportedOperationException("The snapshot of the bitmap cannot be changed.");
+        }
+    }
+
+    private void unshareWords() {
+        if (mShared) {
+            mWords = mWords.clone();
+            mShared = false;
+        }
+    }
+
+    private long getWord(int index) {
+        return index >= 0 && index < mWords.length ? mWords[index] : 0;
+    }
+
+    private void ensureCapacity(int firstDay, int lastDay) {
+        if (mCounts == null) {
+            mFirstDay = firstDay & ~63;
+            mCounts = new int[alignUp(Math.max(lastDay - mFirstDay + 1, MIN_GROW_DAYS))];
+            mWords = new long[mCounts.length >> 6];
+            mShared = false;
+            return;
+        }
+
+        final int lastDayOfBitmap = mFirstDay + mCounts.length - 1;
+        if (firstDay >= mFirstDay && lastDay <= lastDayOfBitmap) {
+            return;
+        }
+
+        // Grow to both directions at least MIN_GROW_DAYS to keep the amortized cost low.
+        int newFirstDay = mFirstDay;
+        if (firstDay < mFirstDay) {
+            newFirstDay = Math.min(firstDay, mFirstDay - MIN_GROW_DAYS) & ~63;
+        }
+        int newLastDay = lastDayOfBitmap;
+        if (lastDay > lastDayOfBitmap) {
+            newLastDay = Math.max(lastDay, lastDayOfBitmap + MIN_GROW_DAYS);
+        }
+
+        int[] counts = new int[alignUp(newLastDay - newFirstDay + 1)];
+        long[] words = new long[counts.length >> 6];
+        final int shift = mFirstDay - newFirstDay;
+        System.arraycopy(mCounts, 0, counts, shift, mCounts.length);
+        System.arraycopy(mWords, 0, words, shift >> 6, mWords.length);
+        mFirstDay = newFirstDay;
+        mCounts = counts;
+        mWords = words;
+        mShared = false;
+    }
+
+    private static int alignUp(int days) {
+        return (days + 63) & ~63;
+    }
+}
@@ -0,0 +1,172 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The common filters of {@link EventsAdapter}. The filters that are created with the same arguments are
+ * equal, so setting an equal filter again does not filter the events again. Any other
+ * {@link EventsAdapter.EventFilter} can be combined with them, it is equal only to itself.
+ */
+public final class EventFilters {
+
+    private EventFilters() {
+    }
+
+    /**
+     * @param types the accepted types, see {@link ICalendarEvent#getType()}.
+     * @return the filter that accepts the events of the types.
+     */
+    public static EventsAdapter.EventFilter ofTypes(int... types) {
+        int[] sorted = types.clone();
+        Arrays.sort(sorted);
+        return new TypeFilter(sorted);
+    }
+
+    /**
+     * @param creators the accepted creators, see {@link ICalendarEvent#getCreator()}.
+     * @return the filter that accepts the events of the creators.
+     */
+    public static EventsAdapter.EventFilter ofCreators(String... creators) {
+        return new CreatorFilter(new HashSet<>(Arrays.asList(creators)));
+    }
+
+    /**
+     * @param filters the filters.
+     * @return the filter that accepts the events accepted by all of the filters.
+     */
+    public static EventsAdapter.EventFilter allOf(EventsAdapter.EventFilter... filters) {
+        return new CompositeFilter(true, filters.clone());
+    }
+
+    /**
+     * @param filters the filters.
+     * @return the filter that accepts the events accepted by any of the filters.
+     */
+    public static EventsAdapter.EventFilter anyOf(EventsAdapter.EventFilter... filters) {
+        return new CompositeFilter(false, filters.clone());
+    }
+
+    /**
+     * @param filter the filter.
+     * @return the filter that accepts the events rejected by the filter.
+     */
+    public static EventsAdapter.EventFilter not(EventsAdapter.EventFilter filter) {
+        if (filter == null) {
+            throw new IllegalArgumentException("The filter cannot be null.");
+        }
+        return new NotFilter(filter);
+    }
+
+    private static final class TypeFilter implements EventsAdapter.EventFilter {
+        private final int[] mTypes;
+
+        TypeFilter(int[] types) {
+            mTypes = types;
+        }
+
+        @Override
+        public boolean onFilterEvent(ICalendarEvent event) {
+            return Arrays.binarySearch(mTypes, event.getType()) >= 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TypeFilter && Arrays.equals(mTypes, ((TypeFilter) o).mTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(mTypes);
+        }
+    }
+
+    private static final class CreatorFilter implements EventsAdapter.EventFilter {
+        private final Set<String> mCreators;
+
+        CreatorFilter(Set<String> creators) {
+            mCreators = creators;
+        }
+
+        @Override
+        public boolean onFilterEvent(ICalendarEvent event) {
+            return mCreators.contains(event.getCreator());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CreatorFilter && mCreators.equals(((CreatorFilter) o).mCreators);
+        }
+
+        @Override
+        public int hashCode() {
+            return mCreators.hashCode();
+        }
+    }
+
+    private static final class CompositeFilter implements EventsAdapter.EventFilter {
+        private final boolean mAll;
+        private final EventsAdapter.EventFilter[] mFilters;
+
+        CompositeFilter(boolean all, EventsAdapter.EventFilter[] filters) {
+            for (EventsAdapter.EventFilter filter : filters) {
+                if (filter == null) {
+                    throw new IllegalArgumentException("The filter cannot be null.");
+                }
+            }
+            mAll = all;
+            mFilters = filters;
+        }
+
+        @Override
+        public boolean onFilterEvent(ICalendarEvent event) {
+            for (EventsAdapter.EventFilter filter : mFilters) {
+                if (filter.onFilterEvent(event) != mAll) {
+                    return !mAll;
+                }
+            }
+            return mAll;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CompositeFilter)) {
+                return false;
+            }
+
+            CompositeFilter other = (CompositeFilter) o;
+            return mAll == other.mAll && Arrays.equals(mFilters, other.mFilters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(mFilters) * 2 + (mAll ? 1 : 0);
+        }
+    }
+
+    private static final class NotFilter implements EventsAdapter.EventFilter {
+        private final EventsAdapter.EventFilter mFilter;
+
+        NotFilter(EventsAdapter.EventFilter filter) {
+            mFilter = filter;
+        }
+
+        @Override
+        public boolean onFilterEvent(ICalendarEvent event) {
+            return !mFilter.onFilterEvent(event);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof NotFilter && mFilter.equals(((NotFilter) o).mFilter);
+        }
+
+        @Override
+        public int hashCode() {
+            return ~mFilter.hashCode();
+        }
+    }
+}
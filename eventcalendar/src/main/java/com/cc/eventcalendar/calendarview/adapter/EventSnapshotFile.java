@@ -0,0 +1,228 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.util.DayKey;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The binary file that keeps the events of {@link EventsAdapter} between the launches. The events are
+ * saved as the columns sorted by the start time together with the day bitmap and the string table, so
+ * the file can be mapped into memory and queried without creating the events, see {@link MappedEventStore}.
+ * <p>
+ * The file starts with a header of the magic number, the version, the time zone of the day keys and the
+ * CRC32 of the body. A file whose header does not match is rejected and the events must be loaded again.
+ * The header is checked when the file is opened, while the checksum reads the whole body, so it is checked
+ * by {@link #verify(MappedEventStore)} off the main thread.
+ * </p>
+ */
+public final class EventSnapshotFile {
+    static final int MAGIC = 0x4F534556;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 40;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Comparator<ICalendarEvent> START_TIME_COMPARATOR = new Comparator<ICalendarEvent>() {
+        @Override
+        public int compare(ICalendarEvent lhs, ICalendarEvent rhs) {
+            final long lhsStart = lhs.getStartTime();
+            final long rhsStart = rhs.getStartTime();
+            return lhsStart < rhsStart ? -1 : (lhsStart == rhsStart ? 0 : 1);
+        }
+    };
+
+    private EventSnapshotFile() {
+    }
+
+    /**
+     * Write the events to the file, the old file is replaced when the new one is complete.
+     *
+     * @param file   the file.
+     * @param events the events.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(File file, List<? extends ICalendarEvent> events) throws IOException {
+        List<ICalendarEvent> sorted = new ArrayList<>(events.size());
+        EventDayBitmap eventDays = new EventDayBitmap();
+        for (ICalendarEvent event : events) {
+            if (event != null) {
+                sorted.add(event);
+                eventDays.add(DayKey.of(event.getStartTime()), DayKey.ofEndTime(event.getEndTime()));
+            }
+        }
+        Collections.sort(sorted, START_TIME_COMPARATOR);
+
+        // The string table, the index of every distinct string.
+        HashMap<String, Integer> stringIndexes = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        final int count = sorted.size();
+        int[] refs = new int[count * 4];
+        for (int i = 0; i < count; i++) {
+            ICalendarEvent event = sorted.get(i);
+            refs[i * 4] = addString(event.getID(), stringIndexes, strings);
+            refs[i * 4 + 1] = addString(event.getTitle(), stringIndexes, strings);
+            refs[i * 4 + 2] = addString(event.getComment(), stringIndexes, strings);
+            refs[i * 4 + 3] = addString(event.getCreator(), stringIndexes, strings);
+        }
+        int stringBytes = 0;
+        for (byte[] string : strings) {
+            stringBytes += string.length;
+        }
+
+        final long[] words = eventDays.getWords() == null ? new long[0] : eventDays.getWords();
+        final long bodySize = (long) count * (3 * 8 + 6 * 4) + 8 + words.length * 8L + strings.size() * 4L + 4 + stringBytes;
+        if (HEADER_SIZE + bodySize > Integer.MAX_VALUE) {
+            throw new IOException("Too many events to save: " + count);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) (HEADER_SIZE + bodySize));
+        buffer.position(HEADER_SIZE);
+        long maxEndTime = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(sorted.get(i).getStartTime());
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(sorted.get(i).getEndTime());
+        }
+        for (int i = 0; i < count; i++) {
+            maxEndTime = Math.max(maxEndTime, sorted.get(i).getEndTime());
+            buffer.putLong(maxEndTime);
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(sorted.get(i).getType());
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(sorted.get(i).isAllDayEvent() ? MappedEventStore.FLAG_ALL_DAY : 0);
+        }
+        for (int ref : refs) {
+            buffer.putInt(ref);
+        }
+        buffer.putInt(eventDays.getFirstDay());
+        buffer.putInt(words.length);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+        buffer.putInt(stringBytes);
+        int offset = 0;
+        for (byte[] string : strings) {
+            buffer.putInt(offset);
+            offset += string.length;
+        }
+        for (byte[] string : strings) {
+            buffer.put(string);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, (int) bodySize);
+        buffer.position(0);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(count);
+        buffer.putInt(strings.size());
+        buffer.putInt(DayKey.getTimeZone().getID().hashCode());
+        buffer.putInt(0);
+        buffer.putLong(bodySize);
+        buffer.putLong(crc.getValue());
+
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(tmp);
+        try {
+            out.write(buffer.array());
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+
+    /**
+     * Map the file into memory and check the header, it does not read the body so it takes the same time
+     * for any size of the file. The checksum is checked by {@link #verify(MappedEventStore)}.
+     *
+     * @param file the file.
+     * @return the store that reads the events from the file, or null if the file does not exist, does
+     * not match the layout of its header or is written by another version or in another time zone.
+     */
+    public static MappedEventStore open(File file) {
+        if (!file.isFile() || file.length() < HEADER_SIZE) {
+            return null;
+        }
+
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            final MappedByteBuffer buffer;
+            try {
+                FileChannel channel = randomAccessFile.getChannel();
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } finally {
+                // The mapping stays valid after the file is closed.
+                randomAccessFile.close();
+            }
+
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || buffer.getInt(16) != DayKey.getTimeZone().getID().hashCode()
+                    || buffer.getLong(24) != buffer.capacity() - HEADER_SIZE) {
+                return null;
+            }
+
+            return new MappedEventStore(buffer, buffer.getInt(8), buffer.getInt(12));
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            // The sizes in the file are broken.
+            return null;
+        }
+    }
+
+    /**
+     * Check the CRC32 of the body of the file, it reads the whole file, so it must not be called on the
+     * main thread.
+     *
+     * @param store the store returned by {@link #open(File)}.
+     * @return true if the body matches the checksum of the header.
+     */
+    public static boolean verify(MappedEventStore store) {
+        final ByteBuffer buffer = store.getBuffer();
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[8192];
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_SIZE);
+        while (body.hasRemaining()) {
+            final int length = Math.min(chunk.length, body.remaining());
+            body.get(chunk, 0, length);
+            crc.update(chunk, 0, length);
+        }
+        return crc.getValue() == buffer.getLong(32);
+    }
+
+    private static int addString(String value, HashMap<String, Integer> indexes, List<byte[]> strings) {
+        if (value == null) {
+            return -1;
+        }
+
+        Integer index = indexes.get(value);
+        if (index == null) {
+            index = strings.size();
+            indexes.put(value, index);
+            strings.add(value.getBytes(UTF_8));
+        }
+        return index;
+    }
+}
@@ -0,0 +1,40 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+import java.util.List;
+
+/**
+ * The source that {@link EventsAdapter} loads the events from on demand, the adapter requests the days
+ * that the calendar views are showing plus the prefetch distance around them. The days are specified
+ * by the keys of {@link com.cc.eventcalendar.calendarview.util.DayKey}.
+ *
+ * @see EventsAdapter#setEventSource(EventSource)
+ */
+public interface EventSource {
+
+    /**
+     * Load the events of the days. It is called on the main thread and must not block, the result is
+     * delivered to the callback on any thread.
+     *
+     * @param startDay the key of the first day, inclusive.
+     * @param endDay   the key of the last day, inclusive.
+     * @param callback the callback that receives the result, it must be called exactly once.
+     */
+    void load(int startDay, int endDay, Callback callback);
+
+    interface Callback {
+        /**
+         * Deliver the events that happen on the requested days. The events replace the loaded events
+         * with the same id.
+         *
+         * @param events the events, may be null or empty if there is no event.
+         */
+        void onLoaded(List<? extends ICalendarEvent> events);
+
+        /**
+         * Report that the days cannot be loaded, they will be requested again when they are shown.
+         */
+        void onFailed();
+    }
+}
@@ -0,0 +1,87 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import android.util.SparseArray;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The storage engine behind {@link EventsAdapter}. A store indexes the events by the days they
+ * happen on, the keys of the days are generated by {@link com.cc.eventcalendar.calendarview.util.DayKey}.
+ */
+public interface EventStore {
+
+    /**
+     * Add one event to the store, the event will be found on every day it spans.
+     *
+     * @param event the event that will be added.
+     */
+    void addEvent(ICalendarEvent event);
+
+    /**
+     * Remove the event with the specified id. An empty id removes one event without id that has exactly
+     * the start time and the end time.
+     *
+     * @param id        the id of the event, or null or empty for an event without id.
+     * @param startTime the start time of the event when it was added.
+     * @param endTime   the end time of the event when it was added.
+     * @return true if the event is removed, otherwise false.
+     */
+    boolean removeEvent(String id, long startTime, long endTime);
+
+    /**
+     * Get the events of one day.
+     *
+     * @param key the key of the day.
+     * @return the events happen on the day, may be null if there is no event.
+     */
+    List<? extends ICalendarEvent> getEventsOfDay(int key);
+
+    /**
+     * Check whether has event on the specified day.
+     *
+     * @param key the key of the day.
+     * @return true if has event on the day, otherwise false.
+     */
+    boolean hasEventsOnDay(int key);
+
+    /**
+     * Get the events that happen between the specified time, the result is ordered by the start time
+     * of the events if the store supports it.
+     *
+     * @param startTime the start time in millisecond, inclusive.
+     * @param endTime   the end time in millisecond, exclusive.
+     * @return the events overlap the time range, never null.
+     */
+    List<ICalendarEvent> getEvents(long startTime, long endTime);
+
+    /**
+     * Replace the events of one day.
+     *
+     * @param key    the key of the day.
+     * @param events the new events of the day.
+     */
+    void setEventsOfDay(int key, Collection<? extends BaseEvent> events);
+
+    /**
+     * Convert the store to the per-day layout.
+     *
+     * @return the events grouped by the key of the day.
+     */
+    SparseArray<Collection<? extends BaseEvent>> toSparseArray();
+
+    /**
+     * Remove all of the events.
+     */
+    void clear();
+
+    /**
+     * Create an empty store of the same kind, the events can be loaded into it on another thread and
+     * then replace this store.
+     *
+     * @return a new empty store.
+     */
+    EventStore newStore();
+}
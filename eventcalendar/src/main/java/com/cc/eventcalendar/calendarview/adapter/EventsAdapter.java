@@ -1,27 +1,234 @@
 package com.cc.eventcalendar.calendarview.adapter;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.util.SparseArray;
 
 import com.cc.eventcalendar.calendarview.ICalendarEvent;
-import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+import com.cc.eventcalendar.calendarview.util.DayKey;
+import com.cc.eventcalendar.calendarview.util.DayRangeSet;
+import com.cc.eventcalendar.calendarview.util.RecurrenceRule;
 import com.cc.eventcalendar.calendarview.util.StrUtil;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Created by ChengCn on 12/30/2015.
  */
 public class EventsAdapter extends AbsOSEventAdapter {
-    private Calendar mTempDate;
-    private SparseArray<Collection<? extends BaseEvent>> mEvents;
+    private EventStore mEvents;
     private EventFilter mFilter;
 
+    /**
+     * The index of the events by id, every mutation must keep it consistent with the store.
+     */
+    private HashMap<String, IndexedEvent> mIndex;
+
+    /**
+     * Whether the index is shared with the snapshot in concurrent mode, it is copied before the next change.
+     */
+    private boolean mIndexShared;
+
+    /**
+     * The days that have events, and the days that have the events accepted by the filter.
+     */
+    private EventDayBitmap mEventDays;
+    private EventDayBitmap mFilteredEventDays;
+
+    /**
+     * Whether the events can be changed on any thread, see {@link #EventsAdapter(EventStore, boolean)}.
+     */
+    private final boolean mConcurrent;
+
+    /**
+     * The lock of the writers, it is held from the start to the end of a batch.
+     */
+    private final ReentrantLock mWriteLock = new ReentrantLock();
+
+    /**
+     * The state that the readers use. In concurrent mode it is an immutable snapshot that is replaced
+     * when a change is finished, otherwise it refers to the live structures.
+     */
+    private volatile Snapshot mSnapshot;
+
+    private Handler mMainHandler;
+
+    /**
+     * The maximum number of the ranges of the changed days that are tracked, the filtered days of the
+     * snapshot are all dropped when more ranges are changed.
+     */
+    private static final int MAX_CHANGED_RANGES = 64;
+
+    /**
+     * The maximum numbers of the days whose filtered events, summaries and conflicts are kept by a snapshot.
+     */
+    private static final int MAX_FILTERED_DAYS = 128;
+    private static final int MAX_SUMMARY_DAYS = 3 * 366;
+    private static final int MAX_CONFLICT_DAYS = 128;
+
+    /**
+     * The cached value of a day that has no event at all, {@link #getEvent(int)} returns null for it.
+     */
+    private static final List<ICalendarEvent> NO_EVENTS = new ArrayList<>(0);
+
+    /**
+     * The days that are changed since the snapshot is published, the next snapshot only keeps the
+     * filtered events of the other days.
+     */
+    private final DayRangeSet mChangedDays = new DayRangeSet();
+    private boolean mAllDaysChanged;
+
+    /**
+     * The events without id, they are not in the index but their days are marked the same as the other
+     * events. They cannot be found by {@link #setEvents(List)} to compute the difference.
+     */
+    private List<IndexedEvent> mUnindexedEvents = new ArrayList<>();
+
+    /**
+     * The recurring events, they are kept apart from the store and expanded when the days are read. A
+     * change replaces the set, and the snapshot keeps the set of its batch.
+     */
+    private RecurringEventSet mRecurringEvents = RecurringEventSet.EMPTY;
+
+    /**
+     * The events of the snapshot file that the readers use until the events are loaded.
+     */
+    private MappedEventStore mMappedEvents;
+
+    /**
+     * The changes made while the events of the snapshot file are shown, they are applied again to the
+     * events loaded from the file, or null if no file is shown.
+     */
+    private List<Runnable> mMappedWrites;
+
+    /**
+     * The generation of the loads, a load is cancelled when a newer one starts.
+     */
+    private final AtomicInteger mLoadGeneration = new AtomicInteger();
+
+    /**
+     * The number of the events that a background load handles between the checks of the cancellation.
+     */
+    private static final int LOAD_CHECK_INTERVAL = 1024;
+
+    /**
+     * The default number of the days that are loaded before and after the shown days.
+     */
+    public static final int DEFAULT_PREFETCH_DAYS = 31;
+
+    private final Object mSourceLock = new Object();
+    private volatile EventSource mEventSource;
+    private int mPrefetchDays = DEFAULT_PREFETCH_DAYS;
+
+    /**
+     * The generation of the source, the results of the replaced source are dropped.
+     */
+    private int mSourceGeneration;
+
+    /**
+     * The days that are loaded or being loaded from the source.
+     */
+    private final DayRangeSet mRequestedDays = new DayRangeSet();
+
+    /**
+     * The days that are not sent to the source yet, the requests are coalesced until the main thread
+     * is idle.
+     */
+    private final DayRangeSet mPendingDays = new DayRangeSet();
+    private boolean mFlushPosted;
+
+    /**
+     * The maximum number of the events loaded from the source, zero if it is unlimited.
+     */
+    private volatile int mMaxCachedEvents;
+    private final DayBlockLru mBlockLru = new DayBlockLru();
+
+    /**
+     * The number of the indexed events that are loaded from the source, only they can be evicted.
+     */
+    private int mSourceEventCount;
+
+    /**
+     * The days that are shown last time and the pinned day, the days around them are not evicted.
+     */
+    private int mShownFirstDay;
+    private int mShownLastDay = -1;
+    private int mPinnedDay;
+    private boolean mHasPinnedDay;
+
+    private long mRequestHitCount;
+    private long mRequestMissCount;
+    private long mEvictionCount;
+
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushPendingDays();
+        }
+    };
+
+    private static final Comparator<ICalendarEvent> START_TIME_COMPARATOR = new Comparator<ICalendarEvent>() {
+        @Override
+        public int compare(ICalendarEvent lhs, ICalendarEvent rhs) {
+            final long lhsStart = lhs.getStartTime();
+            final long rhsStart = rhs.getStartTime();
+            return lhsStart < rhsStart ? -1 : (lhsStart == rhsStart ? 0 : 1);
+        }
+    };
+
     public EventsAdapter() {
-        mEvents = new SparseArray<>();
-        mTempDate = Calendar.getInstance();
+        this(new DayBucketEventStore());
+    }
+
+    /**
+     * Create an adapter with the specified storage engine.
+     *
+     * @param store the store that keeps the events.
+     * @see DayBucketEventStore
+     * @see IntervalTreeEventStore
+     * @see ColumnarEventStore
+     */
+    public EventsAdapter(EventStore store) {
+        this(store, false);
+    }
+
+    /**
+     * Create an adapter with the specified storage engine.
+     * <p>
+     * In concurrent mode the events can be changed on any thread. The writers are serialized, and every
+     * finished change (or batch of changes) publishes an immutable snapshot that {@link #getEvent(int)},
+     * {@link #hasEvent(long)} and the other read methods use without locks, so the views never see a
+     * half applied change. The observers are always notified on the main thread.
+     * </p>
+     *
+     * @param store      the store that keeps the events, it must be a {@link SnapshotEventStore} in
+     *                   concurrent mode.
+     * @param concurrent whether to enable the concurrent mode.
+     */
+    public EventsAdapter(EventStore store, boolean concurrent) {
+        if (store == null) {
+            throw new IllegalArgumentException("The event store cannot be null.");
+        }
+        if (concurrent && !(store instanceof SnapshotEventStore)) {
+            throw new IllegalArgumentException("The concurrent mode needs a SnapshotEventStore.");
+        }
+        mEvents = store;
+        mConcurrent = concurrent;
+        mIndex = new HashMap<>();
+        mEventDays = new EventDayBitmap();
+        mFilteredEventDays = new EventDayBitmap();
+        publishSnapshot();
     }
 
     @Override
@@ -33,96 +240,176 @@ public class EventsAdapter extends AbsOSEventAdapter {
      * Get the event of the specified key
      *
      * @param key the key that generated by the date.
-     * @return a list of the event that happened on the date.
+     * @return a list of the event that happened on the date. If a filter is set, the list of the accepted
+     * events is kept until the day is changed and it cannot be modified.
      * @see {@link #getKey(long)}
      */
     @Override
     public List<? extends ICalendarEvent> getEvent(int key) {
-        List<? extends ICalendarEvent> events = (List<? extends ICalendarEvent>) mEvents.get(key);
-        if (mFilter == null || events == null || events.isEmpty()) {
+        touchDays(key, key);
+        return getEventsOfDay(mSnapshot, key);
+    }
+
+    private List<? extends ICalendarEvent> getEventsOfDay(Snapshot snapshot, int key) {
+        final DayCache<List<ICalendarEvent>> cache = snapshot.mFilteredDays;
+        if (cache != null) {
+            List<ICalendarEvent> cached = cache.get(key);
+            if (cached != null) {
+                return cached == NO_EVENTS ? null : cached;
+            }
+        }
+
+        final EventFilter filter = snapshot.mFilter;
+        List<? extends ICalendarEvent> events = snapshot.mEvents.getEventsOfDay(key);
+        final List<ICalendarEvent> instances = snapshot.mRecurringEvents.getEventsOfDay(key);
+        if (instances != null) {
+            List<ICalendarEvent> merged = new ArrayList<>(instances.size() + (events == null ? 0 : events.size()));
+            if (events != null) {
+                merged.addAll(events);
+            }
+            merged.addAll(instances);
+            events = merged;
+        }
+        if (filter == null) {
+            return events;
+        }
+        if (events == null || events.isEmpty()) {
+            cache.put(key, NO_EVENTS);
             return events;
         }
 
         List<ICalendarEvent> ret = new ArrayList<>();
-        for (int i = events.size() - 1; i >= 0; i--) {
-            if (mFilter.onFilterEvent(events.get(i))) {
+        for (int i = 0, size = events.size(); i < size; i++) {
+            if (filter.onFilterEvent(events.get(i))) {
                 ret.add(events.get(i));
             }
         }
 
+        ret = Collections.unmodifiableList(ret);
+        cache.put(key, ret);
         return ret;
     }
 
+    /**
+     * Get the events that happen between the specified time.
+     *
+     * @param startTime the start time in millisecond, inclusive.
+     * @param endTime   the end time in millisecond, exclusive.
+     * @return the events overlap the time range.
+     */
+    public List<ICalendarEvent> getEvents(long startTime, long endTime) {
+        final Snapshot snapshot = mSnapshot;
+        final EventFilter filter = snapshot.mFilter;
+        List<ICalendarEvent> events = snapshot.mEvents.getEvents(startTime, endTime);
+        if (!snapshot.mRecurringEvents.isEmpty()) {
+            events.addAll(snapshot.mRecurringEvents.getEvents(startTime, endTime));
+        }
+        if (filter == null || events.isEmpty()) {
+            return events;
+        }
+
+        for (int i = events.size() - 1; i >= 0; i--) {
+            if (!filter.onFilterEvent(events.get(i))) {
+                events.remove(i);
+            }
+        }
+        return events;
+    }
+
     public SparseArray<Collection<? extends BaseEvent>> getEvents() {
-        return mEvents;
+        return mSnapshot.mEvents.toSparseArray();
     }
 
     /**
-     * update one day of events
+     * Replace the events of one day. The events that are on the day before are matched with the new
+     * events by id: the missing ones are removed from all of their days, the new and changed ones are
+     * added to all of their days, and only the days of the changed events are notified. The events without
+     * id cannot be matched, the ones on the day are removed from all of their days and the new ones are
+     * added.
      *
      * @param events   the events of the day
      * @param dateTime the time in millisecond of the day.
      */
-    public void updateOneDayEvents(List<? extends BaseEvent> events, long dateTime) {
-        List<BaseEvent> updated = new ArrayList<>();
-        if (events != null) {
-            updated.addAll(events);
+    public void updateOneDayEvents(List<? extends BaseEvent> events, final long dateTime) {
+        final List<BaseEvent> copy = events == null ? null : new ArrayList<BaseEvent>(events);
+        beginBatch();
+        try {
+            updateOneDayEventsInternal(copy, dateTime);
+            recordMappedWrite(new Runnable() {
+                @Override
+                public void run() {
+                    updateOneDayEventsInternal(copy, dateTime);
+                }
+            });
+        } finally {
+            endBatch();
         }
+    }
 
-        updateCrossDayEvent(updated);
-        List<BaseEvent> oneDayOldReservations = (List<BaseEvent>) mEvents.get(getKey(dateTime));
-        mEvents.put(getKey(dateTime), updated);
-        if (oneDayOldReservations == null || oneDayOldReservations.isEmpty()) {
-            notifyDataSetChanged();
-            return;
-        }
-        for (int i = oneDayOldReservations.size() - 1; i >= 0; i--) {
-            for (int j = 0; j < updated.size(); j++) {
-                if (oneDayOldReservations.get(i).getID().equals(updated.get(j).getID())) {
-                    oneDayOldReservations.remove(i);
-                    break;
+    private void updateOneDayEventsInternal(List<? extends BaseEvent> events, long dateTime) {
+        final int key = getKey(dateTime);
+        // The later event replaces the earlier one with the same id, the same as addEvent().
+        HashMap<String, BaseEvent> latest = new HashMap<>();
+        if (events != null) {
+            for (BaseEvent event : events) {
+                if (event != null && !StrUtil.isEmpty(event.getID())) {
+                    latest.put(event.getID(), event);
                 }
             }
         }
 
-        if (!oneDayOldReservations.isEmpty()) {
-            deleteCrossDayEvent(oneDayOldReservations);
+        List<? extends ICalendarEvent> oldEvents = mEvents.getEventsOfDay(key);
+        if (oldEvents != null && !oldEvents.isEmpty()) {
+            // The list of the day is changed by the removal.
+            for (ICalendarEvent old : new ArrayList<>(oldEvents)) {
+                final String id = old.getID();
+                if (!StrUtil.isEmpty(id) && !latest.containsKey(id)) {
+                    notifyEventChanged(id, removeEventInternal(id), null);
+                }
+            }
         }
-        notifyDataSetChanged();
-    }
 
+        removeUnindexedEvents(key);
 
-    private void updateCrossDayEvent(List<? extends BaseEvent> events) {
-        if (events == null || events.isEmpty()) {
+        if (events == null) {
             return;
         }
+        for (BaseEvent event : events) {
+            if (event == null) {
+                continue;
+            }
 
-        ICalendarEvent old;
-        for (ICalendarEvent ev : events) {
-            if (ev.getDuration() >= OSTimeUtil.MILLIS_IN_DAY) {
-                old = getEventById(ev.getID());
-                if (old != null) {
-                    deleteEventInternal(old);
+            if (StrUtil.isEmpty(event.getID())) {
+                mEvents.addEvent(event);
+                indexEvent(event, false);
+                notifyDaysChanged(DayKey.of(event.getStartTime()), DayKey.ofEndTime(event.getEndTime()));
+            } else if (latest.get(event.getID()) == event) {
+                IndexedEvent indexed = mIndex.get(event.getID());
+                if (indexed == null || !isUnchanged(indexed, event)) {
+                    addEventToList(event, false);
                 }
-                addEventToList(ev);
             }
         }
     }
 
-    private void deleteCrossDayEvent(List<? extends BaseEvent> events) {
-        if (events == null) {
-            return;
-        }
-
-        ICalendarEvent tmp;
-        for (ICalendarEvent ev : events) {
-            if (ev.getDuration() >= OSTimeUtil.MILLIS_IN_DAY) {
-                tmp = getEventById(ev.getID());
-                if (tmp != null) {
-                    deleteEventInternal(tmp);
-                }
+    /**
+     * Remove the events without id that happen on the day from the store, without notification of the
+     * observers of the events.
+     */
+    private void removeUnindexedEvents(int key) {
+        int kept = 0;
+        for (int i = 0, size = mUnindexedEvents.size(); i < size; i++) {
+            final IndexedEvent unindexed = mUnindexedEvents.get(i);
+            if (key < unindexed.mFirstDay || key > unindexed.mLastDay) {
+                mUnindexedEvents.set(kept++, unindexed);
+                continue;
             }
+
+            mEvents.removeEvent(null, unindexed.mStartTime, unindexed.mEndTime);
+            unmarkEventDays(unindexed);
+            notifyDaysChanged(unindexed.mFirstDay, unindexed.mLastDay);
         }
+        mUnindexedEvents.subList(kept, mUnindexedEvents.size()).clear();
     }
 
     /**
@@ -130,20 +417,28 @@ public class EventsAdapter extends AbsOSEventAdapter {
      *
      * @param event the event that will be updated.
      */
-    public synchronized void updateEvent(ICalendarEvent event) {
+    public void updateEvent(final ICalendarEvent event) {
         if (event == null) {
             return;
         }
 
-        for (int i = 0; i < mEvents.size(); i++) {
-            List<BaseEvent> events = (List<BaseEvent>) mEvents.get(mEvents.keyAt(i));
-            ICalendarEvent ev = getEventFromListById(events, event.getID());
-            if (ev != null) {
-                deleteEventInternal(ev);
-                addEventToList(event);
-                notifyDataSetChanged();
-                return;
-            }
+        beginBatch();
+        try {
+            updateEventInternal(event);
+            recordMappedWrite(new Runnable() {
+                @Override
+                public void run() {
+                    updateEventInternal(event);
+                }
+            });
+        } finally {
+            endBatch();
+        }
+    }
+
+    private void updateEventInternal(ICalendarEvent event) {
+        if (findEvent(event.getID()) != null) {
+            addEventToList(event, false);
         }
     }
 
@@ -158,13 +453,19 @@ public class EventsAdapter extends AbsOSEventAdapter {
             return false;
         }
 
-        ICalendarEvent ev = getEventById(event.getID());
-        boolean isDeleted = deleteEventInternal(ev);
-        if (isDeleted) {
-            notifyDataSetChanged();
+        final String id = event.getID();
+        beginBatch();
+        try {
+            recordMappedWrite(new Runnable() {
+                @Override
+                public void run() {
+                    deleteEventInternal(findEvent(id));
+                }
+            });
+            return deleteEventInternal(findEvent(id));
+        } finally {
+            endBatch();
         }
-
-        return isDeleted;
     }
 
     private boolean deleteEventInternal(ICalendarEvent event) {
@@ -172,46 +473,32 @@ public class EventsAdapter extends AbsOSEventAdapter {
             return false;
         }
 
-        boolean isDeleted = false;
-        long eventTime = event.getStartTime();
-        mTempDate.setTimeInMillis(eventTime);
-        OSTimeUtil.changeToStartOfDay(mTempDate);
-        eventTime = mTempDate.getTimeInMillis();
-        while (event.getEndTime() > eventTime) {
-            List<BaseEvent> events = (List<BaseEvent>) mEvents.get(getKey(eventTime));
-            if (events == null || events.isEmpty()) {
-                eventTime += OSTimeUtil.MILLIS_IN_DAY;
-                continue;
-            }
-
-            for (int i = 0; i < events.size(); i++) {
-                if (events.get(i).getID().equalsIgnoreCase(event.getID())) {
-                    events.remove(i);
-                    isDeleted = true;
-                    break;
-                }
-            }
-
-            eventTime += OSTimeUtil.MILLIS_IN_DAY;
+        IndexedEvent indexed = removeEventInternal(event.getID());
+        if (indexed == null) {
+            return false;
         }
-        return isDeleted;
-    }
 
-    private ICalendarEvent getEventFromListById(List<BaseEvent> reservations, String id) {
-        if (reservations == null || StrUtil.isEmpty(id)) {
-            return null;
-        }
+        notifyEventChanged(event.getID(), indexed, null);
+        return true;
+    }
 
-        for (ICalendarEvent reservation : reservations) {
-            if (reservation.getID().equals(id)) {
-                return reservation;
-            }
+    /**
+     * Remove the event from the index and the store without notification.
+     *
+     * @return the removed index entry, or null if there is no event with the id.
+     */
+    private IndexedEvent removeEventInternal(String id) {
+        IndexedEvent indexed = unindexEvent(id);
+        if (indexed != null) {
+            // Only the days that the event was added to will be touched.
+            mEvents.removeEvent(indexed.mId, indexed.mStartTime, indexed.mEndTime);
         }
-        return null;
+        return indexed;
     }
 
     /**
-     * Get a calendar event by id.
+     * Get a calendar event by id. It reads the index of the published snapshot, so it does not wait for
+     * the writers in concurrent mode.
      *
      * @param id the id of the calendar event.
      * @return the corresponding calendar event.
@@ -221,14 +508,17 @@ public class EventsAdapter extends AbsOSEventAdapter {
             return null;
         }
 
-        for (int i = 0; i < mEvents.size(); i++) {
-            ICalendarEvent event = getEventFromListById((List<BaseEvent>) mEvents.get(mEvents.keyAt(i)), id);
-            if (event != null) {
-                return event;
-            }
-        }
+        final Snapshot snapshot = mSnapshot;
+        IndexedEvent indexed = snapshot.mIndex.get(id);
+        return indexed == null ? null : getIndexedEvent(snapshot.mIndexedEvents, indexed);
+    }
 
-        return null;
+    /**
+     * @return the event with the id in the current index, it is called by the writer in a batch.
+     */
+    private ICalendarEvent findEvent(String id) {
+        IndexedEvent indexed = mIndex.get(id);
+        return indexed == null ? null : getIndexedEvent(indexed);
     }
 
     /**
@@ -238,144 +528,1532 @@ public class EventsAdapter extends AbsOSEventAdapter {
      * @return true if has event on the specified time, otherwise false.
      */
     public boolean hasEvent(long time) {
-        List<? extends ICalendarEvent> events = (List<? extends ICalendarEvent>) mEvents.get(getKey(time));
+        final int key = DayKey.of(time);
+        touchDays(key, key);
+        final Snapshot snapshot = mSnapshot;
+        return snapshot.getEventDays().get(key)
+                || snapshot.mRecurringEvents.getEventDays(key, 1, snapshot.mFilter) != 0;
+    }
 
-        if (events == null) {
-            return false;
-        }
+    /**
+     * Check which of the continuous days have events, the filter is applied if it is set.
+     *
+     * @param firstDay the key of the first day.
+     * @param count    the number of the days, between 1 and 64.
+     * @return the bits of the days, the bit <code>i</code> is set if there are events on the day
+     * <code>firstDay + i</code>.
+     * @see DayKey
+     */
+    public long getEventDays(int firstDay, int count) {
+        touchDays(firstDay, firstDay + count - 1);
+        final Snapshot snapshot = mSnapshot;
+        return snapshot.getEventDays().getRange(firstDay, count)
+                | snapshot.mRecurringEvents.getEventDays(firstDay, count, snapshot.mFilter);
+    }
 
-        if (mFilter == null) {
-            return !events.isEmpty();
+    /**
+     * Get the summaries of the continuous days, the filter is applied if it is set. A summary is kept until
+     * the day is changed, so the days that are not changed are not computed again. It does not request
+     * the days from the {@link EventSource} and does not change which days are recently used.
+     *
+     * @param firstDay the key of the first day.
+     * @param count    the number of the days.
+     * @return the summaries of the days, the summary at <code>i</code> is the day <code>firstDay + i</code>.
+     */
+    public DaySummary[] getDaySummaries(int firstDay, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The count cannot be negative: " + count);
         }
 
-        for (ICalendarEvent event : events) {
-            if (mFilter.onFilterEvent(event)) {
-                return true;
+        final Snapshot snapshot = mSnapshot;
+        final boolean hasRecurringEvents = !snapshot.mRecurringEvents.isEmpty();
+        DaySummary[] ret = new DaySummary[count];
+        for (int i = 0; i < count; i++) {
+            final int key = firstDay + i;
+            if (!hasRecurringEvents && !snapshot.getEventDays().get(key)) {
+                ret[i] = DaySummary.EMPTY;
+                continue;
             }
-        }
 
-        return false;
+            DaySummary summary = snapshot.mDaySummaries.get(key);
+            if (summary == null) {
+                summary = DaySummary.of(getEventsOfDay(snapshot, key), DayKey.getStartTime(key),
+                        DayKey.getStartTime(key + 1));
+                snapshot.mDaySummaries.put(key, summary);
+            }
+            ret[i] = summary;
+        }
+        return ret;
     }
 
     /**
-     * Set the event of the adapter.
+     * Get the groups of the overlapping events in the specified time, the filter is applied if it is set.
+     * The events are read from the index once and swept in the order of the start time, the overlaps out
+     * of the range and the all day events are ignored.
      *
-     * @param events the list of the events.
+     * @param startTime the start time in millisecond, inclusive.
+     * @param endTime   the end time in millisecond, exclusive.
+     * @return the groups that have more than one event, in the order of the start time.
+     * @see #getDayConflicts(int)
      */
-    public void setEvents(SparseArray<Collection<? extends BaseEvent>> events) {
-        clearEvent();
-
-        if (events == null || events.size() == 0) {
-            notifyDataSetChanged();
-            return;
-        }
-
-        createEventsData(events);
-        notifyDataSetChanged();
-    }
-
-    private void createEventsData(SparseArray<Collection<? extends BaseEvent>> events) {
-        for (int i = 0; i < events.size(); i++) {
-            final int key = events.keyAt(i);
-            List<? extends BaseEvent> eventsOfDay = new ArrayList<>(events.get(key));
-            mEvents.put(key, eventsOfDay);
+    public List<ConflictGroup> getConflicts(long startTime, long endTime) {
+        if (startTime >= endTime) {
+            return Collections.emptyList();
         }
+        return ConflictDetector.find(getEvents(startTime, endTime), startTime, endTime);
     }
 
     /**
-     * Set the event of the adapter.
+     * Get the groups of the overlapping events of one day, the filter is applied if it is set. The groups
+     * are kept until the day is changed, so a change of one event only finds the conflicts of its days
+     * again.
      *
-     * @param events the list of the events.
+     * @param key the key of the day.
+     * @return the groups that have more than one event, in the order of the start time.
      */
-    public void setEvents(List<? extends ICalendarEvent> events) {
-        clearEvent();
-        if (events == null || events.isEmpty()) {
-            notifyDataSetChanged();
-            return;
+    public List<ConflictGroup> getDayConflicts(int key) {
+        final Snapshot snapshot = mSnapshot;
+        List<ConflictGroup> conflicts = snapshot.mDayConflicts.get(key);
+        if (conflicts == null) {
+            conflicts = ConflictDetector.find(getEventsOfDay(snapshot, key), DayKey.getStartTime(key),
+                    DayKey.getStartTime(key + 1));
+            snapshot.mDayConflicts.put(key, conflicts);
         }
-
-        addEvent(events);
+        return conflicts;
     }
 
     /**
-     * add a list of events to the adapter.
+     * Check if an event would overlap the other events, such as when the event is edited. The event with
+     * the same id is not a conflict, so an event that is changed can be checked before it is updated. It
+     * only reads the events of the time of the event from the index.
      *
-     * @param events the added events list.
+     * @param event the event to check, it does not need to be added.
+     * @return true if the event overlaps any other event that is accepted by the filter.
      */
-    public void addEvent(List<? extends ICalendarEvent> events) {
-        if (events == null || events.isEmpty()) {
-            return;
+    public boolean wouldConflict(ICalendarEvent event) {
+        if (event == null) {
+            throw new IllegalArgumentException("The event cannot be null.");
         }
-
-        for (ICalendarEvent event : events) {
-            addEventToList(event);
+        if (event.isAllDayEvent() || event.getEndTime() <= event.getStartTime()) {
+            return false;
         }
 
-        notifyDataSetChanged();
+        final String id = event.getID();
+        List<ICalendarEvent> events = getEvents(event.getStartTime(), event.getEndTime());
+        for (int i = 0, size = events.size(); i < size; i++) {
+            ICalendarEvent other = events.get(i);
+            if (other == event || other.isAllDayEvent() || (id != null && id.equals(other.getID()))) {
+                continue;
+            }
+            if (other.getStartTime() < event.getEndTime() && other.getEndTime() > event.getStartTime()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Add one event to the adapter.
+     * Find the free slots between the events, the filter is applied if it is set. The events of the range
+     * are read from the index once and swept in the order of the start time, the all day events do not
+     * make the time busy.
      *
-     * @param event the event that will be added.
+     * @param rangeStart   the start time of the range in millisecond, inclusive.
+     * @param rangeEnd     the end time of the range in millisecond, exclusive.
+     * @param duration     the duration of a slot in millisecond.
+     * @param workingHours the hours of the days to search in, or null to search all of the range.
+     * @param maxResults   the maximum number of the slots.
+     * @return the ascending start times of the slots, a slot ends at its start time plus the duration.
      */
-    public void addEvent(ICalendarEvent event) {
-        addEventToList(event);
-
-        notifyDataSetChanged();
+    public long[] findFreeSlots(long rangeStart, long rangeEnd, long duration, WorkingHours workingHours,
+                                int maxResults) {
+        List<ICalendarEvent> events = rangeEnd - rangeStart < duration ? Collections.<ICalendarEvent>emptyList()
+                : getEvents(rangeStart, rangeEnd);
+        return FreeSlotFinder.find(events, rangeStart, rangeEnd, duration, workingHours, maxResults);
     }
 
-    private void addEventToList(ICalendarEvent event) {
-        if (event == null) {
-            return;
+    /**
+     * Add a recurring event, or replace the recurring event with the same id. The rule is kept once and
+     * the instances are created when the days are read, they are {@link RecurringEventInstance}. The
+     * recurring events are kept apart from the other events, {@link #setEvents(List)} does not remove them.
+     *
+     * @param event          the first instance of the event, it must not be changed after it is added.
+     * @param rule           the recurrence rule.
+     * @param exceptionDates the start times of the instances that are excluded, may be null.
+     */
+    public void addRecurringEvent(ICalendarEvent event, RecurrenceRule rule, long[] exceptionDates) {
+        if (event == null || rule == null || StrUtil.isEmpty(event.getID())) {
+            throw new IllegalArgumentException("The event with an id and the rule are required.");
         }
 
-        List<BaseEvent> tmp;
-        mTempDate.setTimeInMillis(event.getStartTime());
-        OSTimeUtil.changeToStartOfDay(mTempDate);
-        while (mTempDate.getTimeInMillis() < event.getEndTime()) {
-            tmp = (List<BaseEvent>) mEvents.get(getKey(mTempDate.getTimeInMillis()));
-            if (tmp == null) {
-                tmp = new ArrayList<>();
-            }
-            tmp.add((BaseEvent) event);
-            mEvents.put(getKey(mTempDate.getTimeInMillis()), tmp);
-            mTempDate.add(Calendar.DAY_OF_MONTH, 1);
+        beginBatch();
+        try {
+            mRecurringEvents = mRecurringEvents.put(event, rule, exceptionDates);
+            markAllDaysChanged();
+            notifyDataSetChanged();
+        } finally {
+            endBatch();
         }
     }
 
     /**
-     * Clear all of the event.
+     * Remove a recurring event.
+     *
+     * @param id the id of the recurring event.
+     * @return the recurring event that is removed, or null if there is no such event.
      */
-    private void clearEvent() {
-        mEvents.clear();
+    public ICalendarEvent removeRecurringEvent(String id) {
+        beginBatch();
+        try {
+            ICalendarEvent removed = mRecurringEvents.get(id);
+            if (removed != null) {
+                mRecurringEvents = mRecurringEvents.remove(id);
+                markAllDaysChanged();
+                notifyDataSetChanged();
+            }
+            return removed;
+        } finally {
+            endBatch();
+        }
     }
 
-    public void setEventFilter(EventFilter filter) {
-        mFilter = filter;
-        notifyDataSetChanged();
+    /**
+     * @param id the id of the recurring event.
+     * @return the recurring event, or null if there is no such event.
+     */
+    public ICalendarEvent getRecurringEvent(String id) {
+        return mSnapshot.mRecurringEvents.get(id);
     }
 
     /**
-     * The utility method that convert a date time in millisecond to a integer key.
-     *
-     * @param timeInMillis the date time in millisecond.
-     * @return return a date time key.
+     * Remove all of the recurring events.
      */
-    public static int getKey(long timeInMillis) {
-        return (int) (timeInMillis >>> 10);
+    public void clearRecurringEvents() {
+        beginBatch();
+        try {
+            if (!mRecurringEvents.isEmpty()) {
+                mRecurringEvents = RecurringEventSet.EMPTY;
+                markAllDaysChanged();
+                notifyDataSetChanged();
+            }
+        } finally {
+            endBatch();
+        }
     }
 
     /**
-     * Event filter
+     * Set the event of the adapter.
+     *
+     * @param events the list of the events.
      */
-    public interface EventFilter {
-        /**
-         * Filter event.
-         *
-         * @param event the event that will be filter.
-         * @return true if the event is expected. otherwise false.
-         */
+    public void setEvents(SparseArray<Collection<? extends BaseEvent>> events) {
+        beginBatch();
+        try {
+            mLoadGeneration.incrementAndGet();
+            clearEvent();
+            if (events != null && events.size() > 0) {
+                createEventsData(events);
+            }
+            notifyDataSetChanged();
+        } finally {
+            endBatch();
+        }
+    }
+
+    private void createEventsData(SparseArray<Collection<? extends BaseEvent>> events) {
+        if (mEvents instanceof ColumnarEventStore) {
+            // The multi-day events are in the lists of several days, every event is added once.
+            IdentityHashMap<BaseEvent, Boolean> added = new IdentityHashMap<>();
+            List<BaseEvent> all = new ArrayList<>();
+            for (int i = 0; i < events.size(); i++) {
+                for (BaseEvent event : events.valueAt(i)) {
+                    if (event != null && added.put(event, Boolean.TRUE) == null) {
+                        all.add(event);
+                    }
+                }
+            }
+            ((ColumnarEventStore) mEvents).addAll(all);
+            for (BaseEvent event : all) {
+                indexEvent(event, false);
+            }
+            return;
+        }
+
+        // The multi-day events are in the lists of several days, every event is indexed once.
+        IdentityHashMap<BaseEvent, Boolean> indexed = new IdentityHashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            final int key = events.keyAt(i);
+            List<? extends BaseEvent> eventsOfDay = new ArrayList<>(events.get(key));
+            mEvents.setEventsOfDay(key, eventsOfDay);
+            for (BaseEvent event : eventsOfDay) {
+                if (indexed.put(event, Boolean.TRUE) == null) {
+                    indexEvent(event, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Set the event of the adapter. The events are compared with the current ones by id, only the added,
+     * changed and removed events are applied and only their days are notified. An event is not changed if
+     * it is the same object, or it has the same time and the same {@link VersionedEvent#getVersion()
+     * version}, or it has the same fields as the current one.
+     * <p>
+     * All of the events are replaced and the whole data set is notified if any event has no id.
+     * </p>
+     *
+     * @param events the list of the events.
+     */
+    public void setEvents(List<? extends ICalendarEvent> events) {
+        beginBatch();
+        try {
+            mLoadGeneration.incrementAndGet();
+            if (canDiffEvents(events)) {
+                diffEvents(events);
+            } else {
+                clearEvent();
+                addEvent(events);
+                notifyDataSetChanged();
+            }
+        } finally {
+            endBatch();
+        }
+    }
+
+    private boolean canDiffEvents(List<? extends ICalendarEvent> events) {
+        // The readers use the events of the snapshot file, they are not in the index.
+        if (events == null || !mUnindexedEvents.isEmpty() || mMappedEvents != null) {
+            return false;
+        }
+
+        for (int i = 0, size = events.size(); i < size; i++) {
+            ICalendarEvent event = events.get(i);
+            if (event != null && StrUtil.isEmpty(event.getID())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void diffEvents(List<? extends ICalendarEvent> events) {
+        // The later event replaces the earlier one with the same id, the same as addEvent().
+        HashMap<String, ICalendarEvent> latest = new HashMap<>(Math.max(16, events.size() * 4 / 3 + 1));
+        for (int i = 0, size = events.size(); i < size; i++) {
+            ICalendarEvent event = events.get(i);
+            if (event != null) {
+                latest.put(event.getID(), event);
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String id : mIndex.keySet()) {
+            if (!latest.containsKey(id)) {
+                removed.add(id);
+            }
+        }
+        for (String id : removed) {
+            notifyEventChanged(id, removeEventInternal(id), null);
+        }
+
+        List<ICalendarEvent> changed = new ArrayList<>();
+        for (int i = 0, size = events.size(); i < size; i++) {
+            ICalendarEvent event = events.get(i);
+            if (event == null || latest.get(event.getID()) != event) {
+                continue;
+            }
+
+            IndexedEvent indexed = mIndex.get(event.getID());
+            if (indexed == null || !isUnchanged(indexed, event)) {
+                changed.add(event);
+            }
+        }
+        addEventsToList(changed, false);
+    }
+
+    /**
+     * @return the events that are not null, an event is dropped if a later one has the same id since the
+     * later one replaces it.
+     */
+    private static List<ICalendarEvent> getLatestEvents(List<? extends ICalendarEvent> events) {
+        List<ICalendarEvent> ret = new ArrayList<>();
+        if (events == null) {
+            return ret;
+        }
+
+        HashMap<String, ICalendarEvent> latest = new HashMap<>(Math.max(16, events.size() * 4 / 3 + 1));
+        for (int i = 0, size = events.size(); i < size; i++) {
+            ICalendarEvent event = events.get(i);
+            if (event != null && !StrUtil.isEmpty(event.getID())) {
+                latest.put(event.getID(), event);
+            }
+        }
+        for (int i = 0, size = events.size(); i < size; i++) {
+            ICalendarEvent event = events.get(i);
+            if (event != null && (StrUtil.isEmpty(event.getID()) || latest.get(event.getID()) == event)) {
+                ret.add(event);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @return true if the event is the same as the indexed one.
+     */
+    private boolean isUnchanged(IndexedEvent indexed, ICalendarEvent event) {
+        if (indexed.mStartTime != event.getStartTime() || indexed.mEndTime != event.getEndTime()) {
+            return false;
+        }
+        if (indexed.mEvent == event) {
+            return true;
+        }
+        if (indexed.mHasVersion && event instanceof VersionedEvent) {
+            return indexed.mVersion == ((VersionedEvent) event).getVersion();
+        }
+
+        ICalendarEvent old = getIndexedEvent(indexed);
+        return old.getType() == event.getType() && old.isAllDayEvent() == event.isAllDayEvent()
+                && equals(old.getTitle(), event.getTitle()) && equals(old.getComment(), event.getComment())
+                && equals(old.getCreator(), event.getCreator());
+    }
+
+    private static boolean equals(String lhs, String rhs) {
+        return lhs == null ? rhs == null : lhs.equals(rhs);
+    }
+
+    /**
+     * Set the events of the adapter in the background. The events are sorted, stored and indexed by the
+     * executor, then the new data replaces the old one on the main thread and the observers are notified
+     * once. The load is cancelled if {@link #setEvents(List)} or this method is called again before it
+     * finishes, and the changes made while it runs are replaced by the loaded events.
+     *
+     * @param events   the list of the events, it is copied so the caller can reuse it.
+     * @param executor the executor that loads the events.
+     */
+    public void setEventsAsync(List<? extends ICalendarEvent> events, Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("The executor cannot be null.");
+        }
+
+        startLoad(events == null ? new ArrayList<ICalendarEvent>() : new ArrayList<ICalendarEvent>(events),
+                null, executor);
+    }
+
+    /**
+     * Save the events to a file that {@link #loadSnapshot(File, Executor)} shows them from at the next
+     * launch. The events without id are not saved.
+     *
+     * @param file the file.
+     * @throws IOException if the file cannot be written.
+     * @see EventSnapshotFile
+     */
+    public void saveSnapshot(File file) throws IOException {
+        List<ICalendarEvent> events;
+        mWriteLock.lock();
+        try {
+            events = new ArrayList<>(mIndex.size());
+            for (IndexedEvent indexed : mIndex.values()) {
+                events.add(getIndexedEvent(indexed));
+            }
+        } finally {
+            mWriteLock.unlock();
+        }
+
+        EventSnapshotFile.write(file, events);
+    }
+
+    /**
+     * Show the events saved by {@link #saveSnapshot(File)}. The file is mapped into memory and the read
+     * methods are served from the mapping at once, while the executor checks the checksum of the file and
+     * loads the events into the store the same as {@link #setEventsAsync(List, Executor)}. Only the header
+     * of the file is read on the calling thread. While a filter is set the mapped days are not filtered
+     * until the events are loaded.
+     * <p>
+     * The events added, updated and deleted while the file is shown are not shown until the loaded events
+     * replace the file, then the same changes are applied to the loaded events again, so they are not
+     * lost. The days loaded from the {@link EventSource} are dropped with the old events and loaded again
+     * when they are requested. {@link #setEvents(List)} and {@link #setEventsAsync(List, Executor)} stop
+     * showing the file and its changes.
+     * </p>
+     * <p>
+     * If the checksum does not match, the mapped events are dropped on the main thread and the observers
+     * are notified, the same as if the file was not shown. The changes made meanwhile are kept then.
+     * </p>
+     *
+     * @param file     the file.
+     * @param executor the executor that checks and loads the events.
+     * @return true if the file is shown, or false if it does not exist or does not match the version or
+     * the time zone, the events must be set again then.
+     */
+    public boolean loadSnapshot(File file, Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("The executor cannot be null.");
+        }
+
+        final MappedEventStore mapped = EventSnapshotFile.open(file);
+        if (mapped == null) {
+            return false;
+        }
+
+        beginBatch();
+        try {
+            markAllDaysChanged();
+            mMappedEvents = mapped;
+            mMappedWrites = new ArrayList<>();
+            notifyDataSetChanged();
+        } finally {
+            endBatch();
+        }
+        startLoad(null, mapped, executor);
+        return true;
+    }
+
+    /**
+     * Load the events by the executor, the events are read from the mapped store if it is not null.
+     */
+    private void startLoad(final List<ICalendarEvent> events, final MappedEventStore mapped, Executor executor) {
+        final int generation = mLoadGeneration.incrementAndGet();
+        final EventStore store = mEvents.newStore();
+        final EventFilter filter = mFilter;
+        final Handler handler = getMainHandler();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mapped != null && !EventSnapshotFile.verify(mapped)) {
+                    handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            dropMappedEvents(mapped);
+                        }
+                    });
+                    return;
+                }
+
+                final LoadedEvents loaded = loadEvents(mapped != null ? mapped.getAllEvents() : events,
+                        store, filter, generation);
+                if (loaded == null) {
+                    return;
+                }
+
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        swapEvents(loaded, generation, mapped != null);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Set the source that the events are loaded from on demand. The days are loaded when
+     * {@link #requestDays(int, int)} is called for them, the calendar views call it for the days they
+     * show. The events that are already in the adapter are kept.
+     *
+     * @param source the source of the events, or null to stop loading.
+     */
+    public void setEventSource(EventSource source) {
+        synchronized (mSourceLock) {
+            mEventSource = source;
+            mSourceGeneration++;
+            mRequestedDays.clear();
+            mPendingDays.clear();
+            mBlockLru.clear();
+        }
+    }
+
+    public EventSource getEventSource() {
+        return mEventSource;
+    }
+
+    /**
+     * Set the number of the days that are loaded before and after the requested days.
+     *
+     * @param days the number of the days, {@link #DEFAULT_PREFETCH_DAYS} by default.
+     */
+    public void setPrefetchDays(int days) {
+        if (days < 0) {
+            throw new IllegalArgumentException("The prefetch days cannot be negative: " + days);
+        }
+
+        synchronized (mSourceLock) {
+            mPrefetchDays = days;
+        }
+    }
+
+    public int getPrefetchDays() {
+        return mPrefetchDays;
+    }
+
+    /**
+     * Make sure the events of the days are loaded from the {@link EventSource}, it does nothing if
+     * there is no source. The days that are loaded or being loaded are not requested again, and the
+     * missing days are merged into as few loads as possible and sent to the source on the main thread
+     * later, so it is cheap to call it while drawing.
+     *
+     * @param firstDay the key of the first shown day, inclusive.
+     * @param lastDay  the key of the last shown day, inclusive.
+     */
+    public void requestDays(int firstDay, int lastDay) {
+        synchronized (mSourceLock) {
+            if (mEventSource == null || firstDay > lastDay) {
+                return;
+            }
+
+            mShownFirstDay = firstDay;
+            mShownLastDay = lastDay;
+            // Start loading when the shown days get within half of the prefetch distance of the
+            // missing days, so the loads are not smaller than that.
+            final int margin = mPrefetchDays / 2;
+            if (mRequestedDays.contains(firstDay - margin, lastDay + margin)) {
+                mRequestHitCount++;
+                return;
+            }
+
+            mRequestMissCount++;
+
+            final int first = firstDay - mPrefetchDays;
+            final int last = lastDay + mPrefetchDays;
+            mRequestedDays.getGaps(first, last, mPendingDays);
+            mRequestedDays.add(first, last);
+            if (!mFlushPosted) {
+                mFlushPosted = true;
+                getMainHandler().post(mFlushRunnable);
+            }
+        }
+    }
+
+    private void flushPendingDays() {
+        final EventSource source;
+        final int generation;
+        final int[] ranges;
+        synchronized (mSourceLock) {
+            mFlushPosted = false;
+            source = mEventSource;
+            generation = mSourceGeneration;
+            ranges = new int[mPendingDays.size() * 2];
+            for (int i = 0; i < mPendingDays.size(); i++) {
+                ranges[i * 2] = mPendingDays.getFirstDay(i);
+                ranges[i * 2 + 1] = mPendingDays.getLastDay(i);
+            }
+            mPendingDays.clear();
+        }
+
+        if (source == null) {
+            return;
+        }
+
+        for (int i = 0; i < ranges.length; i += 2) {
+            source.load(ranges[i], ranges[i + 1], new LoadCallback(generation, ranges[i], ranges[i + 1]));
+        }
+    }
+
+    private void onDaysLoaded(int generation, List<? extends ICalendarEvent> events) {
+        synchronized (mSourceLock) {
+            if (generation != mSourceGeneration) {
+                return;
+            }
+        }
+
+        beginBatch();
+        try {
+            if (events != null && !events.isEmpty()) {
+                addEventsToList(getLatestEvents(events), true);
+            }
+            trimEvents();
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Set the maximum number of the events that are kept when the events are loaded from an
+     * {@link EventSource}. When the loaded events exceed it, the blocks of 32 days that are least recently
+     * read by {@link #getEvent(int)}, {@link #hasEvent(long)} and {@link #getEventDays(int, int)} are
+     * evicted until the loaded events are reduced to three quarters of it, and the evicted days are
+     * loaded again when they are requested. The days around the shown days and the pinned day are never
+     * evicted, neither are the events without id.
+     * <p>
+     * Only the events delivered by the source are counted and evicted. The events added by
+     * {@link #addEvent(ICalendarEvent)}, {@link #updateEvent(ICalendarEvent)} and the other methods cannot
+     * be loaded again, so they are always kept, and an event of the source that is replaced by one of
+     * them is kept too.
+     * </p>
+     *
+     * @param maxEvents the maximum number of the events, zero means unlimited which is the default.
+     */
+    public void setMaxCachedEvents(int maxEvents) {
+        if (maxEvents < 0) {
+            throw new IllegalArgumentException("The maximum number of the events cannot be negative: " + maxEvents);
+        }
+
+        mMaxCachedEvents = maxEvents;
+    }
+
+    public int getMaxCachedEvents() {
+        return mMaxCachedEvents;
+    }
+
+    /**
+     * Pin the days within the prefetch distance of the day, they are not evicted. The calendar view
+     * pins its selected day.
+     *
+     * @param dayKey the key of the day.
+     */
+    public void setPinnedDay(int dayKey) {
+        synchronized (mSourceLock) {
+            mPinnedDay = dayKey;
+            mHasPinnedDay = true;
+        }
+    }
+
+    /**
+     * @return the number of the calls of {@link #requestDays(int, int)} whose days and the margin around
+     * them are loaded or being loaded already. It does not count the reads of the days.
+     */
+    public long getRequestHitCount() {
+        synchronized (mSourceLock) {
+            return mRequestHitCount;
+        }
+    }
+
+    /**
+     * @return the number of the calls of {@link #requestDays(int, int)} that load more days from the
+     * source.
+     */
+    public long getRequestMissCount() {
+        synchronized (mSourceLock) {
+            return mRequestMissCount;
+        }
+    }
+
+    /**
+     * @return the number of the evicted events of the source.
+     */
+    public long getEvictionCount() {
+        synchronized (mSourceLock) {
+            return mEvictionCount;
+        }
+    }
+
+    private void touchDays(int firstDay, int lastDay) {
+        if (mMaxCachedEvents > 0 && mEventSource != null) {
+            synchronized (mSourceLock) {
+                mBlockLru.touch(firstDay, lastDay);
+            }
+        }
+    }
+
+    /**
+     * Evict the events of the source on the least recently used days if they exceed the budget, it is
+     * called in a batch.
+     */
+    private void trimEvents() {
+        final int maxEvents = mMaxCachedEvents;
+        if (maxEvents <= 0 || mSourceEventCount <= maxEvents) {
+            return;
+        }
+
+        final int[] blocks;
+        synchronized (mSourceLock) {
+            DayRangeSet pinnedDays = new DayRangeSet();
+            pinnedDays.add(mShownFirstDay - mPrefetchDays, mShownLastDay + mPrefetchDays);
+            if (mHasPinnedDay) {
+                pinnedDays.add(mPinnedDay - mPrefetchDays, mPinnedDay + mPrefetchDays);
+            }
+            blocks = mBlockLru.getEvictionOrder(mRequestedDays, pinnedDays);
+        }
+
+        final int target = maxEvents - maxEvents / 4;
+        final DayRangeSet evictedDays = new DayRangeSet();
+        for (int i = 0; i < blocks.length && mSourceEventCount > target; i++) {
+            final int firstDay = DayBlockLru.firstDayOf(blocks[i]);
+            final int lastDay = DayBlockLru.lastDayOf(blocks[i]);
+            evictedDays.add(firstDay, lastDay);
+            synchronized (mSourceLock) {
+                mRequestedDays.remove(firstDay, lastDay);
+            }
+
+            // The events that also happen on the days that are kept stay in the adapter, and so do the
+            // events of the host that the source cannot load again.
+            int evicted = 0;
+            List<ICalendarEvent> events = mEvents.getEvents(DayKey.getStartTime(firstDay), DayKey.getStartTime(lastDay + 1));
+            for (ICalendarEvent event : events) {
+                IndexedEvent indexed = mIndex.get(event.getID());
+                if (indexed != null && indexed.mFromSource
+                        && evictedDays.contains(indexed.mFirstDay, indexed.mLastDay)) {
+                    removeEventInternal(event.getID());
+                    notifyEventChanged(event.getID(), indexed, null);
+                    evicted++;
+                }
+            }
+            synchronized (mSourceLock) {
+                mEvictionCount += evicted;
+            }
+        }
+    }
+
+    private void onDaysFailed(int generation, int firstDay, int lastDay) {
+        synchronized (mSourceLock) {
+            if (generation == mSourceGeneration) {
+                mRequestedDays.remove(firstDay, lastDay);
+            }
+        }
+    }
+
+    /**
+     * Build the store and the index of the events, it runs on the thread of the executor.
+     *
+     * @return the loaded events, or null if the load is cancelled.
+     */
+    private LoadedEvents loadEvents(List<ICalendarEvent> events, EventStore store, EventFilter filter,
+                                    int generation) {
+        // The later event replaces the earlier one with the same id, the same as addEvent().
+        HashMap<String, IndexedEvent> index = new HashMap<>(Math.max(16, events.size() * 4 / 3 + 1));
+        List<IndexedEvent> unindexed = new ArrayList<>();
+        List<ICalendarEvent> stored = new ArrayList<>(events.size());
+        for (int i = 0, size = events.size(); i < size; i++) {
+            ICalendarEvent event = events.get(i);
+            if (event == null) {
+                continue;
+            }
+
+            if (StrUtil.isEmpty(event.getID())) {
+                unindexed.add(new IndexedEvent(event));
+                stored.add(event);
+            } else {
+                index.put(event.getID(), new IndexedEvent(event));
+            }
+        }
+        for (IndexedEvent indexed : index.values()) {
+            stored.add(indexed.mEvent);
+        }
+
+        // The sorted events are appended to the buckets in order and keep the days sorted.
+        Collections.sort(stored, START_TIME_COMPARATOR);
+        if (store instanceof ColumnarEventStore) {
+            // The columnar store builds its rows at once instead of inserting them one by one.
+            ((ColumnarEventStore) store).addAll(stored);
+        } else {
+            for (int i = 0, size = stored.size(); i < size; i++) {
+                if (i % LOAD_CHECK_INTERVAL == 0 && generation != mLoadGeneration.get()) {
+                    return null;
+                }
+                store.addEvent(stored.get(i));
+            }
+        }
+
+        EventDayBitmap eventDays = new EventDayBitmap();
+        EventDayBitmap filteredEventDays = new EventDayBitmap();
+        final boolean keepEvents = !(store instanceof ColumnarEventStore);
+        for (IndexedEvent indexed : index.values()) {
+            addEventDays(indexed, filter, eventDays, filteredEventDays);
+            if (!keepEvents) {
+                indexed.mEvent = null;
+            }
+        }
+        for (IndexedEvent indexed : unindexed) {
+            addEventDays(indexed, filter, eventDays, filteredEventDays);
+        }
+        return generation == mLoadGeneration.get() ? new LoadedEvents(store, index, unindexed, eventDays,
+                filteredEventDays, filter) : null;
+    }
+
+    private static void addEventDays(IndexedEvent indexed, EventFilter filter, EventDayBitmap eventDays,
+                                     EventDayBitmap filteredEventDays) {
+        indexed.mAccepted = filter == null || filter.onFilterEvent(indexed.mEvent);
+        eventDays.add(indexed.mFirstDay, indexed.mLastDay);
+        if (indexed.mAccepted) {
+            filteredEventDays.add(indexed.mFirstDay, indexed.mLastDay);
+        }
+    }
+
+    /**
+     * Stop reading the events of the snapshot file whose checksum does not match, it runs on the main thread.
+     */
+    private void dropMappedEvents(MappedEventStore mapped) {
+        beginBatch();
+        try {
+            // The file may be replaced by other events already.
+            if (mMappedEvents != mapped) {
+                return;
+            }
+
+            markAllDaysChanged();
+            mMappedEvents = null;
+            mMappedWrites = null;
+            notifyDataSetChanged();
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Replace the events with the loaded ones, it runs on the main thread.
+     *
+     * @param fromFile whether the events are loaded from the snapshot file, the changes made while it is
+     *                 shown are applied to them again.
+     */
+    private void swapEvents(LoadedEvents loaded, int generation, boolean fromFile) {
+        beginBatch();
+        try {
+            if (generation != mLoadGeneration.get()) {
+                return;
+            }
+
+            final List<Runnable> writes = mMappedWrites;
+            markAllDaysChanged();
+            mMappedEvents = null;
+            mMappedWrites = null;
+            resetRequestedDays();
+            mEvents = loaded.mStore;
+            mIndex = loaded.mIndex;
+            mSourceEventCount = 0;
+            mIndexShared = false;
+            mUnindexedEvents = loaded.mUnindexedEvents;
+            mEventDays = loaded.mEventDays;
+            mFilteredEventDays = loaded.mFilteredEventDays;
+            if (mFilter != loaded.mFilter) {
+                // The filter is changed while loading.
+                refilterEvents();
+            }
+            if (fromFile && writes != null) {
+                for (Runnable write : writes) {
+                    write.run();
+                }
+            }
+            notifyDataSetChanged();
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * add a list of events to the adapter.
+     *
+     * @param events the added events list.
+     */
+    public void addEvent(List<? extends ICalendarEvent> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+
+        final List<ICalendarEvent> latest = getLatestEvents(events);
+        beginBatch();
+        try {
+            addEventsToList(latest, false);
+            recordMappedWrite(new Runnable() {
+                @Override
+                public void run() {
+                    addEventsToList(latest, false);
+                }
+            });
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Add one event to the adapter.
+     *
+     * @param event the event that will be added.
+     */
+    public void addEvent(final ICalendarEvent event) {
+        beginBatch();
+        try {
+            addEventToList(event, false);
+            recordMappedWrite(new Runnable() {
+                @Override
+                public void run() {
+                    addEventToList(event, false);
+                }
+            });
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Keep the change to apply it again to the events of the snapshot file, it is called in a batch.
+     */
+    private void recordMappedWrite(Runnable write) {
+        if (mMappedWrites != null) {
+            mMappedWrites.add(write);
+        }
+    }
+
+    /**
+     * Forget the days loaded from the source when the store is replaced, they are loaded into the new
+     * store when they are requested again.
+     */
+    private void resetRequestedDays() {
+        synchronized (mSourceLock) {
+            mRequestedDays.clear();
+            mPendingDays.clear();
+            mBlockLru.clear();
+        }
+    }
+
+    /**
+     * Add the events that have different ids. The columnar store sorts them and builds the rows once,
+     * instead of moving the rows for every event.
+     *
+     * @param fromSource whether the events are loaded from the {@link EventSource}, see {@link #trimEvents()}.
+     */
+    private void addEventsToList(List<ICalendarEvent> events, boolean fromSource) {
+        if (!(mEvents instanceof ColumnarEventStore)) {
+            for (int i = 0, size = events.size(); i < size; i++) {
+                addEventToList(events.get(i), fromSource);
+            }
+            return;
+        }
+
+        final IndexedEvent[] old = new IndexedEvent[events.size()];
+        for (int i = 0; i < old.length; i++) {
+            old[i] = removeEventInternal(events.get(i).getID());
+        }
+        ((ColumnarEventStore) mEvents).addAll(events);
+        for (int i = 0; i < old.length; i++) {
+            final ICalendarEvent event = events.get(i);
+            indexEvent(event, fromSource);
+            notifyEventChanged(event.getID(), old[i], event);
+        }
+    }
+
+    private void addEventToList(ICalendarEvent event, boolean fromSource) {
+        if (event == null) {
+            return;
+        }
+
+        // The id is unique in the adapter, the new event replaces the old one.
+        IndexedEvent old = removeEventInternal(event.getID());
+        mEvents.addEvent(event);
+        indexEvent(event, fromSource);
+        notifyEventChanged(event.getID(), old, event);
+    }
+
+    /**
+     * Notify the days of the event before and after the change.
+     *
+     * @param id    the id of the event.
+     * @param old   the index entry before the change, or null if the event is added.
+     * @param event the event after the change, or null if the event is removed.
+     */
+    private void notifyEventChanged(String id, IndexedEvent old, ICalendarEvent event) {
+        final int oldFirstDay = old == null ? 0 : old.mFirstDay;
+        final int oldLastDay = old == null ? -1 : old.mLastDay;
+        final int newFirstDay = event == null ? 0 : DayKey.of(event.getStartTime());
+        final int newLastDay = event == null ? -1 : DayKey.ofEndTime(event.getEndTime());
+        notifyEventChanged(id, oldFirstDay, oldLastDay, newFirstDay, newLastDay);
+    }
+
+    /**
+     * Add the event to the index.
+     *
+     * @param fromSource whether the event is loaded from the {@link EventSource}, so it can be evicted.
+     * @return the old index entry of the id.
+     */
+    private IndexedEvent indexEvent(ICalendarEvent event, boolean fromSource) {
+        if (event == null) {
+            return null;
+        }
+        if (StrUtil.isEmpty(event.getID())) {
+            // The event cannot be found by id, but its days have events the same as the others.
+            IndexedEvent unindexed = new IndexedEvent(event);
+            markDaysChanged(unindexed.mFirstDay, unindexed.mLastDay);
+            addEventDays(unindexed, mFilter, mEventDays, mFilteredEventDays);
+            mUnindexedEvents.add(unindexed);
+            return null;
+        }
+
+        IndexedEvent indexed = new IndexedEvent(event, fromSource);
+        markDaysChanged(indexed.mFirstDay, indexed.mLastDay);
+        IndexedEvent old = getWritableIndex().put(event.getID(), indexed);
+        unmarkEventDays(old);
+        if (fromSource) {
+            mSourceEventCount++;
+        }
+        addEventDays(indexed, mFilter, mEventDays, mFilteredEventDays);
+        if (mEvents instanceof ColumnarEventStore) {
+            // The store keeps a copy of the event, the index does not hold the event of the caller.
+            indexed.mEvent = null;
+        }
+        return old;
+    }
+
+    /**
+     * @return the event of the index entry, it is read from the store if the entry does not keep it.
+     */
+    private ICalendarEvent getIndexedEvent(IndexedEvent indexed) {
+        return getIndexedEvent(mEvents, indexed);
+    }
+
+    private static ICalendarEvent getIndexedEvent(EventStore store, IndexedEvent indexed) {
+        if (indexed.mEvent != null) {
+            return indexed.mEvent;
+        }
+        return ((ColumnarEventStore) store).getEvent(indexed.mId, indexed.mStartTime, indexed.mEndTime);
+    }
+
+    private IndexedEvent unindexEvent(String id) {
+        if (!mIndex.containsKey(id)) {
+            return null;
+        }
+
+        IndexedEvent indexed = getWritableIndex().remove(id);
+        unmarkEventDays(indexed);
+        return indexed;
+    }
+
+    /**
+     * @return the index that can be changed, it is copied if the snapshot shares it.
+     */
+    private HashMap<String, IndexedEvent> getWritableIndex() {
+        if (mIndexShared) {
+            mIndex = new HashMap<>(mIndex);
+            mIndexShared = false;
+        }
+        return mIndex;
+    }
+
+    /**
+     * Remove the days of the entry that leaves the index.
+     */
+    private void unmarkEventDays(IndexedEvent indexed) {
+        if (indexed == null) {
+            return;
+        }
+
+        if (indexed.mFromSource) {
+            mSourceEventCount--;
+        }
+        markDaysChanged(indexed.mFirstDay, indexed.mLastDay);
+        mEventDays.remove(indexed.mFirstDay, indexed.mLastDay);
+        if (indexed.mAccepted) {
+            mFilteredEventDays.remove(indexed.mFirstDay, indexed.mLastDay);
+        }
+    }
+
+    /**
+     * Clear all of the event.
+     */
+    private void clearEvent() {
+        markAllDaysChanged();
+        mMappedEvents = null;
+        mMappedWrites = null;
+        resetRequestedDays();
+        mUnindexedEvents = new ArrayList<>();
+        mEvents.clear();
+        mIndex = new HashMap<>();
+        mIndexShared = false;
+        mSourceEventCount = 0;
+        mEventDays.clear();
+        mFilteredEventDays.clear();
+    }
+
+    /**
+     * Set the filter of the events, the days are filtered once and the accepted events are kept until
+     * the days are changed. Nothing is done if the filter equals the current one, see {@link EventFilters}.
+     *
+     * @param filter the filter, or null to show all of the events.
+     */
+    public void setEventFilter(EventFilter filter) {
+        beginBatch();
+        try {
+            if (filter == null ? mFilter == null : filter.equals(mFilter)) {
+                return;
+            }
+
+            mFilter = filter;
+            refilterEvents();
+            notifyDataSetChanged();
+        } finally {
+            endBatch();
+        }
+    }
+
+    private void refilterEvents() {
+        markAllDaysChanged();
+        mFilteredEventDays.clear();
+        for (IndexedEvent indexed : mIndex.values()) {
+            refilterEvent(indexed);
+        }
+        for (IndexedEvent indexed : mUnindexedEvents) {
+            refilterEvent(indexed);
+        }
+    }
+
+    private void refilterEvent(IndexedEvent indexed) {
+        indexed.mAccepted = mFilter == null || mFilter.onFilterEvent(getIndexedEvent(indexed));
+        if (indexed.mAccepted) {
+            mFilteredEventDays.add(indexed.mFirstDay, indexed.mLastDay);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The batch also holds the lock of the writers, the changes of other threads wait until it ends.
+     * </p>
+     */
+    @Override
+    public void beginBatch() {
+        mWriteLock.lock();
+        super.beginBatch();
+    }
+
+    @Override
+    public void endBatch() {
+        if (!mWriteLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("endBatch() is called without beginBatch().");
+        }
+
+        try {
+            super.endBatch();
+        } finally {
+            mWriteLock.unlock();
+        }
+    }
+
+    @Override
+    protected void dispatchDataSetChanged() {
+        publishSnapshot();
+        if (postToMainThread()) {
+            getMainHandler().post(new Runnable() {
+                @Override
+                public void run() {
+                    EventsAdapter.super.dispatchDataSetChanged();
+                }
+            });
+        } else {
+            super.dispatchDataSetChanged();
+        }
+    }
+
+    @Override
+    protected void dispatchDataInvalidated() {
+        publishSnapshot();
+        if (postToMainThread()) {
+            getMainHandler().post(new Runnable() {
+                @Override
+                public void run() {
+                    EventsAdapter.super.dispatchDataInvalidated();
+                }
+            });
+        } else {
+            super.dispatchDataInvalidated();
+        }
+    }
+
+    @Override
+    protected void dispatchDaysChanged(final int[] ranges) {
+        publishSnapshot();
+        if (postToMainThread()) {
+            getMainHandler().post(new Runnable() {
+                @Override
+                public void run() {
+                    EventsAdapter.super.dispatchDaysChanged(ranges);
+                }
+            });
+        } else {
+            super.dispatchDaysChanged(ranges);
+        }
+    }
+
+    @Override
+    protected void dispatchEventChanged(final String id, final int oldFirstDayKey, final int oldLastDayKey,
+                                        final int newFirstDayKey, final int newLastDayKey) {
+        publishSnapshot();
+        if (postToMainThread()) {
+            getMainHandler().post(new Runnable() {
+                @Override
+                public void run() {
+                    EventsAdapter.super.dispatchEventChanged(id, oldFirstDayKey, oldLastDayKey,
+                            newFirstDayKey, newLastDayKey);
+                }
+            });
+        } else {
+            super.dispatchEventChanged(id, oldFirstDayKey, oldLastDayKey, newFirstDayKey, newLastDayKey);
+        }
+    }
+
+    /**
+     * Publish the current state to the readers, it is called by the writer when a change is finished.
+     */
+    private void publishSnapshot() {
+        final Snapshot current = mSnapshot;
+        final DayCache<List<ICalendarEvent>> filteredDays = mFilter == null ? null
+                : nextDayCache(current == null ? null : current.mFilteredDays, MAX_FILTERED_DAYS);
+        final DayCache<DaySummary> daySummaries = nextDayCache(current == null ? null : current.mDaySummaries,
+                MAX_SUMMARY_DAYS);
+        final DayCache<List<ConflictGroup>> dayConflicts = nextDayCache(
+                current == null ? null : current.mDayConflicts, MAX_CONFLICT_DAYS);
+        mChangedDays.clear();
+        mAllDaysChanged = false;
+        final EventStore events = mConcurrent ? ((SnapshotEventStore) mEvents).snapshot() : mEvents;
+        // The index is copied by the next change instead of every snapshot, the same as the event days.
+        mIndexShared = mConcurrent;
+        if (mMappedEvents != null) {
+            final EventDayBitmap eventDays = mMappedEvents.getEventDays();
+            mSnapshot = new Snapshot(mMappedEvents, eventDays, eventDays, mFilter, mIndex, events,
+                    mRecurringEvents, filteredDays, daySummaries, dayConflicts);
+        } else if (mConcurrent) {
+            mSnapshot = new Snapshot(events, mEventDays.snapshot(), mFilteredEventDays.snapshot(), mFilter,
+                    mIndex, events, mRecurringEvents, filteredDays, daySummaries, dayConflicts);
+        } else {
+            mSnapshot = new Snapshot(events, mEventDays, mFilteredEventDays, mFilter, mIndex, events,
+                    mRecurringEvents, filteredDays, daySummaries, dayConflicts);
+        }
+    }
+
+    /**
+     * @return the cache of the next snapshot, the days that are not changed are copied from the cache of
+     * the current snapshot.
+     */
+    private <V> DayCache<V> nextDayCache(DayCache<V> current, int maxDays) {
+        if (current == null || current.getFilter() != mFilter || mAllDaysChanged) {
+            return new DayCache<>(mFilter, maxDays);
+        }
+        return mChangedDays.size() == 0 ? current : current.copyWithout(mChangedDays, maxDays);
+    }
+
+    private void markDaysChanged(int firstDay, int lastDay) {
+        if (mAllDaysChanged || firstDay > lastDay) {
+            return;
+        }
+
+        mChangedDays.add(firstDay, lastDay);
+        if (mChangedDays.size() > MAX_CHANGED_RANGES) {
+            markAllDaysChanged();
+        }
+    }
+
+    private void markAllDaysChanged() {
+        mAllDaysChanged = true;
+        mChangedDays.clear();
+    }
+
+    /**
+     * @return true if the notification must be posted to the main thread.
+     */
+    private boolean postToMainThread() {
+        return mConcurrent && Looper.myLooper() != Looper.getMainLooper();
+    }
+
+    private synchronized Handler getMainHandler() {
+        if (mMainHandler == null) {
+            mMainHandler = new Handler(Looper.getMainLooper());
+        }
+        return mMainHandler;
+    }
+
+    /**
+     * The utility method that convert a date time in millisecond to a integer key, any time in the same
+     * local day has the same key.
+     *
+     * @param timeInMillis the date time in millisecond.
+     * @return return a date time key.
+     * @see DayKey#of(long)
+     */
+    public static int getKey(long timeInMillis) {
+        return DayKey.of(timeInMillis);
+    }
+
+    /**
+     * Event filter. The filter is called by the thread that changes the events, which is not the main
+     * thread in the concurrent mode or when the events are set by {@link #setEventsAsync(List, Executor)}.
+     */
+    public interface EventFilter {
+        /**
+         * Filter event.
+         *
+         * @param event the event that will be filter.
+         * @return true if the event is expected. otherwise false.
+         */
         boolean onFilterEvent(ICalendarEvent event);
     }
+
+    /**
+     * The state that the read methods use.
+     */
+    private static class Snapshot {
+        final EventStore mEvents;
+        final EventDayBitmap mEventDays;
+        final EventDayBitmap mFilteredEventDays;
+        final EventFilter mFilter;
+
+        /**
+         * The index of the events by id and the store that the entries are in, the events of the snapshot
+         * file are not in the index.
+         */
+        final HashMap<String, IndexedEvent> mIndex;
+        final EventStore mIndexedEvents;
+
+        /**
+         * The recurring events of the batch.
+         */
+        final RecurringEventSet mRecurringEvents;
+
+        /**
+         * The accepted events of the days that are read, or null if there is no filter.
+         */
+        final DayCache<List<ICalendarEvent>> mFilteredDays;
+
+        /**
+         * The summaries of the days that are read.
+         */
+        final DayCache<DaySummary> mDaySummaries;
+
+        /**
+         * The conflicts of the days that are read.
+         */
+        final DayCache<List<ConflictGroup>> mDayConflicts;
+
+        Snapshot(EventStore events, EventDayBitmap eventDays, EventDayBitmap filteredEventDays, EventFilter filter,
+                 HashMap<String, IndexedEvent> index, EventStore indexedEvents, RecurringEventSet recurringEvents,
+                 DayCache<List<ICalendarEvent>> filteredDays, DayCache<DaySummary> daySummaries,
+                 DayCache<List<ConflictGroup>> dayConflicts) {
+            mEvents = events;
+            mEventDays = eventDays;
+            mFilteredEventDays = filteredEventDays;
+            mFilter = filter;
+            mIndex = index;
+            mIndexedEvents = indexedEvents;
+            mRecurringEvents = recurringEvents;
+            mFilteredDays = filteredDays;
+            mDaySummaries = daySummaries;
+            mDayConflicts = dayConflicts;
+        }
+
+        EventDayBitmap getEventDays() {
+            return mFilter == null ? mEventDays : mFilteredEventDays;
+        }
+    }
+
+    /**
+     * The callback of one load of the {@link EventSource}, the result is applied on the main thread.
+     */
+    private class LoadCallback implements EventSource.Callback {
+        private final int mGeneration;
+        private final int mFirstDay;
+        private final int mLastDay;
+        private boolean mDone;
+
+        LoadCallback(int generation, int firstDay, int lastDay) {
+            mGeneration = generation;
+            mFirstDay = firstDay;
+            mLastDay = lastDay;
+        }
+
+        @Override
+        public void onLoaded(List<? extends ICalendarEvent> events) {
+            if (!finish()) {
+                return;
+            }
+
+            final List<ICalendarEvent> copy = events == null ? new ArrayList<ICalendarEvent>()
+                    : new ArrayList<ICalendarEvent>(events);
+            getMainHandler().post(new Runnable() {
+                @Override
+                public void run() {
+                    onDaysLoaded(mGeneration, copy);
+                }
+            });
+        }
+
+        @Override
+        public void onFailed() {
+            if (finish()) {
+                onDaysFailed(mGeneration, mFirstDay, mLastDay);
+            }
+        }
+
+        private synchronized boolean finish() {
+            if (mDone) {
+                return false;
+            }
+
+            mDone = true;
+            return true;
+        }
+    }
+
+    /**
+     * The events that are loaded in the background.
+     */
+    private static class LoadedEvents {
+        final EventStore mStore;
+        final HashMap<String, IndexedEvent> mIndex;
+        final List<IndexedEvent> mUnindexedEvents;
+        final EventDayBitmap mEventDays;
+        final EventDayBitmap mFilteredEventDays;
+        final EventFilter mFilter;
+
+        LoadedEvents(EventStore store, HashMap<String, IndexedEvent> index, List<IndexedEvent> unindexedEvents,
+                     EventDayBitmap eventDays, EventDayBitmap filteredEventDays, EventFilter filter) {
+            mStore = store;
+            mIndex = index;
+            mUnindexedEvents = unindexedEvents;
+            mEventDays = eventDays;
+            mFilteredEventDays = filteredEventDays;
+            mFilter = filter;
+        }
+    }
+
+    /**
+     * The entry of the id index, or of an event without id. The time of the event is cached when it is
+     * added, so the days that the event occupies in the store can be found even if the event is modified
+     * outside.
+     */
+    private static class IndexedEvent {
+        /**
+         * The id, or null if the event has no id.
+         */
+        final String mId;
+
+        /**
+         * The event, or null if the store keeps a copy of it, see {@link ColumnarEventStore}. An event
+         * without id is always kept.
+         */
+        ICalendarEvent mEvent;
+        final long mStartTime;
+        final long mEndTime;
+
+        /**
+         * The version of a {@link VersionedEvent}.
+         */
+        final boolean mHasVersion;
+        final long mVersion;
+
+        /**
+         * The keys of the days that the event spans.
+         */
+        final int mFirstDay;
+        final int mLastDay;
+
+        /**
+         * Whether the event is loaded from the {@link EventSource}, only such events are evicted.
+         */
+        final boolean mFromSource;
+
+        /**
+         * Whether the event is accepted by the current filter, it is only read by the writer, so it is
+         * changed in place even if a snapshot shares the entry.
+         */
+        boolean mAccepted;
+
+        IndexedEvent(ICalendarEvent event) {
+            this(event, false);
+        }
+
+        IndexedEvent(ICalendarEvent event, boolean fromSource) {
+            mId = event.getID();
+            mFromSource = fromSource;
+            mEvent = event;
+            mStartTime = event.getStartTime();
+            mEndTime = event.getEndTime();
+            mHasVersion = event instanceof VersionedEvent;
+            mVersion = mHasVersion ? ((VersionedEvent) event).getVersion() : 0;
+            mFirstDay = DayKey.of(mStartTime);
+            mLastDay = DayKey.ofEndTime(mEndTime);
+        }
+    }
 }
@@ -0,0 +1,136 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.util.DayKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Find the free slots between the events, the events sorted by the start time are swept once together
+ * with the working hours of the days. The all day events do not make the time busy.
+ *
+ * @see EventsAdapter#findFreeSlots(long, long, long, WorkingHours, int)
+ */
+final class FreeSlotFinder {
+    private static final long[] EMPTY = new long[0];
+
+    private static final Comparator<ICalendarEvent> START_TIME_COMPARATOR = new Comparator<ICalendarEvent>() {
+        @Override
+        public int compare(ICalendarEvent lhs, ICalendarEvent rhs) {
+            final long lhsStart = lhs.getStartTime();
+            final long rhsStart = rhs.getStartTime();
+            return lhsStart < rhsStart ? -1 : (lhsStart == rhsStart ? 0 : 1);
+        }
+    };
+
+    private FreeSlotFinder() {
+    }
+
+    /**
+     * Find the free slots, the slots in a free time follow each other from the start of the free time.
+     *
+     * @param events     the events that overlap the range.
+     * @param rangeStart the start of the range.
+     * @param rangeEnd   the end of the range, exclusive.
+     * @param duration   the duration of a slot.
+     * @param hours      the working hours, or null to search all of the time.
+     * @param maxResults the maximum number of the slots.
+     * @return the ascending start times of the slots.
+     */
+    static long[] find(List<? extends ICalendarEvent> events, long rangeStart, long rangeEnd, long duration,
+                       WorkingHours hours, int maxResults) {
+        if (duration <= 0 || maxResults < 0) {
+            throw new IllegalArgumentException("Invalid duration or max results: " + duration + ", " + maxResults);
+        }
+        if (rangeEnd - rangeStart < duration || maxResults == 0) {
+            return EMPTY;
+        }
+
+        List<ICalendarEvent> busy = new ArrayList<>(events.size());
+        for (int i = 0, size = events.size(); i < size; i++) {
+            ICalendarEvent event = events.get(i);
+            if (!event.isAllDayEvent() && event.getEndTime() > event.getStartTime()) {
+                busy.add(event);
+            }
+        }
+        Collections.sort(busy, START_TIME_COMPARATOR);
+
+        Sweep sweep = new Sweep(busy, duration, maxResults);
+        if (hours == null) {
+            sweep.findInWindow(rangeStart, rangeEnd);
+            return sweep.getSlots();
+        }
+
+        Calendar day = Calendar.getInstance(DayKey.getTimeZone());
+        final int lastDay = DayKey.ofEndTime(rangeEnd);
+        for (int key = DayKey.of(rangeStart); key <= lastDay && !sweep.isFull(); key++) {
+            day.setTimeInMillis(DayKey.getStartTime(key));
+            if (!hours.isWorkingDay(day.get(Calendar.DAY_OF_WEEK))) {
+                continue;
+            }
+
+            final long windowStart = Math.max(WorkingHours.getTime(day, hours.getStartMinute()), rangeStart);
+            day.setTimeInMillis(DayKey.getStartTime(key));
+            final long windowEnd = Math.min(WorkingHours.getTime(day, hours.getEndMinute()), rangeEnd);
+            sweep.findInWindow(windowStart, windowEnd);
+        }
+        return sweep.getSlots();
+    }
+
+    /**
+     * The state of the sweep, the windows must be searched in order.
+     */
+    private static class Sweep {
+        private final List<ICalendarEvent> mBusy;
+        private final long mDuration;
+        private final int mMaxResults;
+        private long[] mSlots = new long[8];
+        private int mSize;
+
+        /**
+         * The next event to sweep and the latest end of the swept events.
+         */
+        private int mNext;
+        private long mBusyUntil = Long.MIN_VALUE;
+
+        Sweep(List<ICalendarEvent> busy, long duration, int maxResults) {
+            mBusy = busy;
+            mDuration = duration;
+            mMaxResults = maxResults;
+        }
+
+        void findInWindow(long windowStart, long windowEnd) {
+            long time = windowStart;
+            while (mSize < mMaxResults && windowEnd - time >= mDuration) {
+                // Sweep the events that start before the slot ends.
+                while (mNext < mBusy.size() && mBusy.get(mNext).getStartTime() < time + mDuration) {
+                    mBusyUntil = Math.max(mBusyUntil, mBusy.get(mNext).getEndTime());
+                    mNext++;
+                }
+                if (mBusyUntil > time) {
+                    time = mBusyUntil;
+                    continue;
+                }
+
+                if (mSize == mSlots.length) {
+                    mSlots = Arrays.copyOf(mSlots, mSize * 2);
+                }
+                mSlots[mSize++] = time;
+                time += mDuration;
+            }
+        }
+
+        boolean isFull() {
+            return mSize >= mMaxResults;
+        }
+
+        long[] getSlots() {
+            return Arrays.copyOf(mSlots, mSize);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import android.util.SparseArray;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.util.DayKey;
+import com.cc.eventcalendar.calendarview.util.StrUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An event store built on an augmented interval tree. Every event is stored only once no matter how
+ * many days it spans, and the day or range queries cost O(log n + k).
+ * <p>
+ * The tree is a AVL tree ordered by the start time of the events, each node keeps the max end time of
+ * its subtree so the subtrees that cannot overlap the queried range are skipped.
+ * </p>
+ * <p>
+ * The nodes are immutable, a change copies the path from the root to the changed node and shares the
+ * rest of the tree, so {@link #snapshot()} is O(1) and the snapshot never changes.
+ * </p>
+ */
+public class IntervalTreeEventStore implements SnapshotEventStore {
+    private Node mRoot;
+    private int mSize;
+
+    /**
+     * The insertion sequence, used to order the events that have same start time.
+     */
+    private long mSequence;
+
+    /**
+     * Whether the store is a snapshot that cannot be changed.
+     */
+    private final boolean mReadOnly;
+
+    public IntervalTreeEventStore() {
+        mReadOnly = false;
+    }
+
+    private IntervalTreeEventStore(Node root, int size) {
+        mRoot = root;
+        mSize = size;
+        mReadOnly = true;
+    }
+
+    @Override
+    public EventStore snapshot() {
+        return mReadOnly ? this : new IntervalTreeEventStore(mRoot, mSize);
+    }
+
+    @Override
+    public EventStore newStore() {
+        return new IntervalTreeEventStore();
+    }
+
+    @Override
+    public void addEvent(ICalendarEvent event) {
+        checkWritable();
+        if (event == null) {
+            return;
+        }
+
+        mRoot = insert(mRoot, new Node(event, mSequence++));
+        mSize++;
+    }
+
+    @Override
+    public boolean removeEvent(String id, long startTime, long endTime) {
+        checkWritable();
+        Node node = findNode(mRoot, id, startTime, endTime);
+        if (node == null) {
+            return false;
+        }
+
+        mRoot = delete(mRoot, node.mStart, node.mSequence);
+        mSize--;
+        return true;
+    }
+
+    @Override
+    public List<? extends ICalendarEvent> getEventsOfDay(int key) {
+        List<ICalendarEvent> ret = new ArrayList<>();
+        collect(mRoot, DayKey.getStartTime(key), DayKey.getStartTime(key + 1), ret);
+        return ret.isEmpty() ? null : ret;
+    }
+
+    @Override
+    public boolean hasEventsOnDay(int key) {
+        return hasOverlap(mRoot, DayKey.getStartTime(key), DayKey.getStartTime(key + 1));
+    }
+
+    @Override
+    public List<ICalendarEvent> getEvents(long startTime, long endTime) {
+        List<ICalendarEvent> ret = new ArrayList<>();
+        if (endTime > startTime) {
+            collect(mRoot, startTime, endTime, ret);
+        }
+        return ret;
+    }
+
+    @Override
+    public void setEventsOfDay(int key, Collection<? extends BaseEvent> events) {
+        checkWritable();
+        List<ICalendarEvent> old = new ArrayList<>();
+        collect(mRoot, DayKey.getStartTime(key), DayKey.getStartTime(key + 1), old);
+        for (ICalendarEvent event : old) {
+            removeEvent(event.getID(), event.getStartTime(), event.getEndTime());
+        }
+
+        if (events == null) {
+            return;
+        }
+
+        for (BaseEvent event : events) {
+            addEvent(event);
+        }
+    }
+
+    @Override
+    public SparseArray<Collection<? extends BaseEvent>> toSparseArray() {
+        SparseArray<Collection<? extends BaseEvent>> ret = new SparseArray<>();
+        List<ICalendarEvent> events = new ArrayList<>(mSize);
+        collect(mRoot, Long.MIN_VALUE, Long.MAX_VALUE, events);
+        for (ICalendarEvent event : events) {
+            final int lastKey = DayKey.ofEndTime(event.getEndTime());
+            for (int key = DayKey.of(event.getStartTime()); key <= lastKey; key++) {
+                List<BaseEvent> eventsOfDay = (List<BaseEvent>) ret.get(key);
+                if (eventsOfDay == null) {
+                    eventsOfDay = new ArrayList<>();
+                    ret.put(key, eventsOfDay);
+                }
+                eventsOfDay.add((BaseEvent) event);
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public void clear() {
+        checkWritable();
+        mRoot = null;
+        mSize = 0;
+    }
+
+    /**
+     * @return the number of the events in the store.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    private void checkWritable() {
+        if (mReadOnly) {
+            throw new UnsupportedOperationException("The snapshot of the store cannot be changed.");
+        }
+    }
+
+    private static void collect(Node node, long start, long end, List<ICalendarEvent> out) {
+        if (node == null || node.mMaxEnd <= start) {
+            return;
+        }
+
+        collect(node.mLeft, start, end, out);
+        if (node.mStart >= end) {
+            // All of the nodes in the right subtree start after the range.
+            return;
+        }
+
+        if (node.mEnd > start) {
+            out.add(node.mEvent);
+        }
+        collect(node.mRight, start, end, out);
+    }
+
+    private static boolean hasOverlap(Node node, long start, long end) {
+        while (node != null && node.mMaxEnd > start) {
+            if (node.mStart < end && node.mEnd > start) {
+                return true;
+            }
+
+            if (node.mLeft != null && node.mLeft.mMaxEnd > start) {
+                // If the left subtree can overlap the range but has no overlap, the right subtree cannot
+                // overlap too since all of it start later.
+                node = node.mLeft;
+            } else if (node.mStart < end) {
+                node = node.mRight;
+            } else {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static Node findNode(Node node, String id, long start, long end) {
+        if (node == null || node.mMaxEnd < start) {
+            return null;
+        }
+
+        Node ret = findNode(node.mLeft, id, start, end);
+        if (ret != null) {
+            return ret;
+        }
+
+        if (node.mStart > end) {
+            return null;
+        }
+
+        if (node.mEnd >= start && matches(node, id, start, end)) {
+            return node;
+        }
+        return findNode(node.mRight, id, start, end);
+    }
+
+    private static boolean matches(Node node, String id, long start, long end) {
+        if (StrUtil.isEmpty(id)) {
+            // An event without id is matched by the time it was added with.
+            return StrUtil.isEmpty(node.mEvent.getID()) && node.mStart == start && node.mEnd == end;
+        }
+        return id.equals(node.mEvent.getID());
+    }
+
+    private static int compare(long start, long sequence, Node node) {
+        if (start != node.mStart) {
+            return start < node.mStart ? -1 : 1;
+        }
+        return sequence < node.mSequence ? -1 : (sequence == node.mSequence ? 0 : 1);
+    }
+
+    private static Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+
+        if (compare(newNode.mStart, newNode.mSequence, node) < 0) {
+            return balance(node.withChildren(insert(node.mLeft, newNode), node.mRight));
+        }
+        return balance(node.withChildren(node.mLeft, insert(node.mRight, newNode)));
+    }
+
+    private static Node delete(Node node, long start, long sequence) {
+        if (node == null) {
+            return null;
+        }
+
+        final int c = compare(start, sequence, node);
+        if (c < 0) {
+            return balance(node.withChildren(delete(node.mLeft, start, sequence), node.mRight));
+        } else if (c > 0) {
+            return balance(node.withChildren(node.mLeft, delete(node.mRight, start, sequence)));
+        }
+
+        if (node.mLeft == null) {
+            return node.mRight;
+        } else if (node.mRight == null) {
+            return node.mLeft;
+        }
+
+        // Replace the node with the smallest node of the right subtree.
+        Node successor = node.mRight;
+        while (successor.mLeft != null) {
+            successor = successor.mLeft;
+        }
+        return balance(successor.withChildren(node.mLeft, deleteMin(node.mRight)));
+    }
+
+    private static Node deleteMin(Node node) {
+        if (node.mLeft == null) {
+            return node.mRight;
+        }
+        return balance(node.withChildren(deleteMin(node.mLeft), node.mRight));
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.mHeight;
+    }
+
+    private static Node balance(Node node) {
+        final int factor = height(node.mLeft) - height(node.mRight);
+        if (factor > 1) {
+            Node left = node.mLeft;
+            if (height(left.mLeft) < height(left.mRight)) {
+                left = rotateLeft(left);
+            }
+            return rotateRight(node.withChildren(left, node.mRight));
+        } else if (factor < -1) {
+            Node right = node.mRight;
+            if (height(right.mRight) < height(right.mLeft)) {
+                right = rotateRight(right);
+            }
+            return rotateLeft(node.withChildren(node.mLeft, right));
+        }
+        return node;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.mRight;
+        return right.withChildren(node.withChildren(node.mLeft, right.mLeft), right.mRight);
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.mLeft;
+        return left.withChildren(left.mLeft, node.withChildren(left.mRight, node.mRight));
+    }
+
+    private static class Node {
+        final ICalendarEvent mEvent;
+        final long mStart;
+        final long mEnd;
+        final long mSequence;
+        final long mMaxEnd;
+        final int mHeight;
+        final Node mLeft;
+        final Node mRight;
+
+        Node(ICalendarEvent event, long sequence) {
+            // Cache the time of the event, the position of the node must not change even if the event is
+            // modified outside.
+            this(event, event.getStartTime(), event.getEndTime(), sequence, null, null);
+        }
+
+        Node(ICalendarEvent event, long start, long end, long sequence, Node left, Node right) {
+            mEvent = event;
+            mStart = start;
+            mEnd = end;
+            mSequence = sequence;
+            mLeft = left;
+            mRight = right;
+            mHeight = Math.max(height(left), height(right)) + 1;
+            long maxEnd = end;
+            if (left != null && left.mMaxEnd > maxEnd) {
+                maxEnd = left.mMaxEnd;
+            }
+            if (right != null && right.mMaxEnd > maxEnd) {
+                maxEnd = right.mMaxEnd;
+            }
+            mMaxEnd = maxEnd;
+        }
+
+        /**
+         * Create a copy of the node with the new children.
+         */
+        Node withChildren(Node left, Node right) {
+            if (left == mLeft && right == mRight) {
+                return this;
+            }
+            return new Node(mEvent, mStart, mEnd, mSequence, left, right);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import android.util.SparseArray;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.util.DayKey;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A read-only event store that reads the events from a file mapped into memory, the file is written by
+ * {@link EventSnapshotFile}. The queries read the columns in the mapping and only create the events
+ * that are returned, as {@link SimpleEvent}.
+ * <p>
+ * The store is read before the checksum of the file is checked, so a broken string reference is read as
+ * null instead of throwing.
+ * </p>
+ */
+public class MappedEventStore implements EventStore {
+    static final int FLAG_ALL_DAY = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer mBuffer;
+    private final int mSize;
+    private final int mStringCount;
+
+    /**
+     * The positions of the columns in the buffer.
+     */
+    private final int mStartTimes;
+    private final int mEndTimes;
+    private final int mMaxEndTimes;
+    private final int mTypes;
+    private final int mFlags;
+    private final int mRefs;
+    private final int mStringOffsets;
+    private final int mStringData;
+    private final int mStringBytes;
+    private final EventDayBitmap mEventDays;
+
+    MappedEventStore(ByteBuffer buffer, int size, int stringCount) {
+        mBuffer = buffer;
+        mSize = size;
+        mStringCount = stringCount;
+        mStartTimes = EventSnapshotFile.HEADER_SIZE;
+        mEndTimes = mStartTimes + size * 8;
+        mMaxEndTimes = mEndTimes + size * 8;
+        mTypes = mMaxEndTimes + size * 8;
+        mFlags = mTypes + size * 4;
+        mRefs = mFlags + size * 4;
+
+        final int bitmap = mRefs + size * 16;
+        final int firstDay = buffer.getInt(bitmap);
+        long[] words = new long[buffer.getInt(bitmap + 4)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong(bitmap + 8 + i * 8);
+        }
+        mEventDays = EventDayBitmap.readOnly(firstDay, words);
+
+        final int strings = bitmap + 8 + words.length * 8;
+        mStringBytes = buffer.getInt(strings);
+        mStringOffsets = strings + 4;
+        mStringData = mStringOffsets + stringCount * 4;
+        if (mStringData + mStringBytes != buffer.capacity()) {
+            throw new IllegalArgumentException("The size of the file does not match the content.");
+        }
+    }
+
+    ByteBuffer getBuffer() {
+        return mBuffer;
+    }
+
+    /**
+     * @return the days that have events, it is read-only.
+     */
+    public EventDayBitmap getEventDays() {
+        return mEventDays;
+    }
+
+    /**
+     * @return all of the events in the order of the start time.
+     */
+    public List<ICalendarEvent> getAllEvents() {
+        List<ICalendarEvent> ret = new ArrayList<>(mSize);
+        for (int row = 0; row < mSize; row++) {
+            ret.add(createEvent(row));
+        }
+        return ret;
+    }
+
+    /**
+     * @return the number of the events in the store.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public void addEvent(ICalendarEvent event) {
+        throw new UnsupportedOperationException("The mapped store cannot be changed.");
+    }
+
+    @Override
+    public boolean removeEvent(String id, long startTime, long endTime) {
+        throw new UnsupportedOperationException("The mapped store cannot be changed.");
+    }
+
+    @Override
+    public List<? extends ICalendarEvent> getEventsOfDay(int key) {
+        if (!mEventDays.get(key)) {
+            return null;
+        }
+
+        List<ICalendarEvent> ret = getEvents(DayKey.getStartTime(key), DayKey.getStartTime(key + 1));
+        return ret.isEmpty() ? null : ret;
+    }
+
+    @Override
+    public boolean hasEventsOnDay(int key) {
+        return mEventDays.get(key);
+    }
+
+    @Override
+    public List<ICalendarEvent> getEvents(long startTime, long endTime) {
+        List<ICalendarEvent> ret = new ArrayList<>();
+        if (endTime <= startTime) {
+            return ret;
+        }
+
+        for (int row = firstRowEndingAfter(startTime); row < mSize && getStartTime(row) < endTime; row++) {
+            if (getEndTime(row) > startTime) {
+                ret.add(createEvent(row));
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public void setEventsOfDay(int key, Collection<? extends BaseEvent> events) {
+        throw new UnsupportedOperationException("The mapped store cannot be changed.");
+    }
+
+    @Override
+    public SparseArray<Collection<? extends BaseEvent>> toSparseArray() {
+        SparseArray<Collection<? extends BaseEvent>> ret = new SparseArray<>();
+        for (int row = 0; row < mSize; row++) {
+            final BaseEvent event = createEvent(row);
+            final int lastKey = DayKey.ofEndTime(getEndTime(row));
+            for (int key = DayKey.of(getStartTime(row)); key <= lastKey; key++) {
+                List<BaseEvent> eventsOfDay = (List<BaseEvent>) ret.get(key);
+                if (eventsOfDay == null) {
+                    eventsOfDay = new ArrayList<>();
+                    ret.put(key, eventsOfDay);
+                }
+                eventsOfDay.add(event);
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("The mapped store cannot be changed.");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return a new {@link ColumnarEventStore}, the events of the file are loaded into the same layout.
+     */
+    @Override
+    public EventStore newStore() {
+        return new ColumnarEventStore();
+    }
+
+    private long getStartTime(int row) {
+        return mBuffer.getLong(mStartTimes + row * 8);
+    }
+
+    private long getEndTime(int row) {
+        return mBuffer.getLong(mEndTimes + row * 8);
+    }
+
+    private SimpleEvent createEvent(int row) {
+        final int refs = mRefs + row * 16;
+        SimpleEvent event = new SimpleEvent(getString(mBuffer.getInt(refs)), getStartTime(row), getEndTime(row));
+        event.setTitle(getString(mBuffer.getInt(refs + 4)));
+        event.setComment(getString(mBuffer.getInt(refs + 8)));
+        event.setCreator(getString(mBuffer.getInt(refs + 12)));
+        event.setType(mBuffer.getInt(mTypes + row * 4));
+        event.setAllDayEvent((mBuffer.getInt(mFlags + row * 4) & FLAG_ALL_DAY) != 0);
+        return event;
+    }
+
+    private String getString(int index) {
+        if (index < 0 || index >= mStringCount) {
+            return null;
+        }
+
+        final int start = mBuffer.getInt(mStringOffsets + index * 4);
+        final int end = index + 1 < mStringCount ? mBuffer.getInt(mStringOffsets + (index + 1) * 4) : mStringBytes;
+        if (start < 0 || start > end || end > mStringBytes) {
+            return null;
+        }
+        byte[] bytes = new byte[end - start];
+        ByteBuffer data = mBuffer.duplicate();
+        data.position(mStringData + start);
+        data.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * @return the index of the first row whose maximum end time is after the time.
+     */
+    private int firstRowEndingAfter(long time) {
+        int low = 0;
+        int high = mSize - 1;
+        while (low <= high) {
+            final int mid = low + (high - low) / 2;
+            if (mBuffer.getLong(mMaxEndTimes + mid * 8) <= time) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -56,4 +56,18 @@ public interface OSEventAdapter {
 	 * Notifies observers about invalidating data
 	 */
 	void notifyDataInvalidatedEvent();
+
+	/**
+	 * Notifies observers that the events of the days are changed.
+	 * @param firstDayKey the key of the first changed day, inclusive.
+	 * @param lastDayKey the key of the last changed day, inclusive.
+	 * @see EventDataSetObserver#onDaysChanged(int, int)
+	 */
+	void notifyDaysChanged(int firstDayKey, int lastDayKey);
+
+	/**
+	 * Notifies observers that one event is changed.
+	 * @see EventDataSetObserver#onEventChanged(String, int, int, int, int)
+	 */
+	void notifyEventChanged(String id, int oldFirstDayKey, int oldLastDayKey, int newFirstDayKey, int newLastDayKey);
 }
@@ -0,0 +1,100 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+/**
+ * One instance of a recurring event, it has the id and the fields of the recurring event and its own
+ * start time and end time. The instances are created by {@link EventsAdapter} when the days are read,
+ * change the recurring event by {@link EventsAdapter#addRecurringEvent} instead of the instances.
+ * <p>
+ * An instance is written to a {@link Parcel} as a {@link SimpleEvent}.
+ * </p>
+ */
+public class RecurringEventInstance extends BaseEvent implements Parcelable {
+    private final ICalendarEvent mMaster;
+
+    RecurringEventInstance(ICalendarEvent master, long startTime, long endTime) {
+        mMaster = master;
+        mStartTime = startTime;
+        mEndTime = endTime;
+    }
+
+    /**
+     * @return the recurring event that the instance is created from.
+     */
+    public ICalendarEvent getMaster() {
+        return mMaster;
+    }
+
+    @Override
+    public void setID(String id) {
+        throw new UnsupportedOperationException("The instance of a recurring event cannot be changed.");
+    }
+
+    @Override
+    public String getID() {
+        return mMaster.getID();
+    }
+
+    @Override
+    public void setTitle(String title) {
+        throw new UnsupportedOperationException("The instance of a recurring event cannot be changed.");
+    }
+
+    @Override
+    public String getTitle() {
+        return mMaster.getTitle();
+    }
+
+    @Override
+    public void setComment(String comment) {
+        throw new UnsupportedOperationException("The instance of a recurring event cannot be changed.");
+    }
+
+    @Override
+    public String getComment() {
+        return mMaster.getComment();
+    }
+
+    @Override
+    public void setCreator(String creator) {
+        throw new UnsupportedOperationException("The instance of a recurring event cannot be changed.");
+    }
+
+    @Override
+    public String getCreator() {
+        return mMaster.getCreator();
+    }
+
+    @Override
+    public boolean isAllDayEvent() {
+        return mMaster.isAllDayEvent();
+    }
+
+    @Override
+    public int getType() {
+        return mMaster.getType();
+    }
+
+    public static final Creator<SimpleEvent> CREATOR = SimpleEvent.CREATOR;
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(getID());
+        dest.writeString(getTitle());
+        dest.writeString(getComment());
+        dest.writeString(getCreator());
+        dest.writeLong(mStartTime);
+        dest.writeLong(mEndTime);
+        dest.writeInt(getType());
+        dest.writeInt(isAllDayEvent() ? 1 : 0);
+    }
+}
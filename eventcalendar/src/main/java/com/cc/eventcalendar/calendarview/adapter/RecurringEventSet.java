@@ -0,0 +1,224 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.util.DayKey;
+import com.cc.eventcalendar.calendarview.util.RecurrenceRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The recurring events of {@link EventsAdapter}. The rule of an event is kept once, the instances are only
+ * created for the days that are read. They are cached by the blocks of {@link DayBlockLru#BLOCK_DAYS}
+ * days, about a month, and the least recently used blocks are dropped when there are more than
+ * {@link #MAX_CACHED_BLOCKS}.
+ * <p>
+ * The events of a set never change, a change creates a new set, so a snapshot of the adapter keeps the
+ * set of its batch. Only the cache of the instances is changed by the reads, its methods are thread safe.
+ * </p>
+ */
+class RecurringEventSet {
+    static final int MAX_CACHED_BLOCKS = 24;
+
+    static final RecurringEventSet EMPTY = new RecurringEventSet(new LinkedHashMap<String, Entry>());
+
+    private final LinkedHashMap<String, Entry> mEntries;
+
+    private final LinkedHashMap<Integer, Block> mBlocks = new LinkedHashMap<Integer, Block>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Block> eldest) {
+            return size() > MAX_CACHED_BLOCKS;
+        }
+    };
+
+    private RecurringEventSet(LinkedHashMap<String, Entry> entries) {
+        mEntries = entries;
+    }
+
+    /**
+     * @return a new set that has the recurring event, it replaces the one with the same id.
+     */
+    RecurringEventSet put(ICalendarEvent event, RecurrenceRule rule, long[] exceptionDates) {
+        LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(mEntries);
+        entries.put(event.getID(), new Entry(event, rule, exceptionDates));
+        return new RecurringEventSet(entries);
+    }
+
+    /**
+     * @return a new set without the recurring event, or this set if there is no such event.
+     */
+    RecurringEventSet remove(String id) {
+        if (!mEntries.containsKey(id)) {
+            return this;
+        }
+
+        LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(mEntries);
+        entries.remove(id);
+        return entries.isEmpty() ? EMPTY : new RecurringEventSet(entries);
+    }
+
+    ICalendarEvent get(String id) {
+        Entry entry = mEntries.get(id);
+        return entry == null ? null : entry.mEvent;
+    }
+
+    boolean isEmpty() {
+        return mEntries.isEmpty();
+    }
+
+    /**
+     * @return the instances on the day, or null if there is none. The list must not be changed.
+     */
+    synchronized List<ICalendarEvent> getEventsOfDay(int key) {
+        if (mEntries.isEmpty()) {
+            return null;
+        }
+
+        final int block = DayBlockLru.blockOf(key);
+        return getBlock(block).mDays.get(key - DayBlockLru.firstDayOf(block));
+    }
+
+    /**
+     * Check which of the continuous days have instances.
+     *
+     * @param firstDay the key of the first day.
+     * @param count    the number of the days, between 1 and 64.
+     * @param filter   the filter of the instances, may be null.
+     * @return the bits of the days, see {@link EventsAdapter#getEventDays(int, int)}.
+     */
+    synchronized long getEventDays(int firstDay, int count, EventsAdapter.EventFilter filter) {
+        if (mEntries.isEmpty()) {
+            return 0;
+        }
+
+        long ret = 0;
+        final int lastDay = firstDay + count - 1;
+        for (int block = DayBlockLru.blockOf(firstDay); block <= DayBlockLru.blockOf(lastDay); block++) {
+            final long bits = getBlock(block).getBits(filter);
+            final int shift = DayBlockLru.firstDayOf(block) - firstDay;
+            ret |= shift >= 0 ? bits << shift : bits >>> -shift;
+        }
+        return count >= 64 ? ret : ret & ((1L << count) - 1);
+    }
+
+    /**
+     * @return the instances that overlap the time range, they are not cached.
+     */
+    List<ICalendarEvent> getEvents(long startTime, long endTime) {
+        List<ICalendarEvent> ret = new ArrayList<>();
+        for (Entry entry : mEntries.values()) {
+            for (long time : entry.expand(startTime, endTime)) {
+                ret.add(new RecurringEventInstance(entry.mEvent, time, time + entry.mDuration));
+            }
+        }
+        return ret;
+    }
+
+    private Block getBlock(int block) {
+        Block ret = mBlocks.get(block);
+        if (ret == null) {
+            ret = expand(block);
+            mBlocks.put(block, ret);
+        }
+        return ret;
+    }
+
+    private Block expand(int block) {
+        final int firstDay = DayBlockLru.firstDayOf(block);
+        final int lastDay = DayBlockLru.lastDayOf(block);
+        final long startTime = DayKey.getStartTime(firstDay);
+        final long endTime = DayKey.getStartTime(lastDay + 1);
+        Block ret = new Block();
+        for (Entry entry : mEntries.values()) {
+            for (long time : entry.expand(startTime, endTime)) {
+                final long end = time + entry.mDuration;
+                RecurringEventInstance instance = new RecurringEventInstance(entry.mEvent, time, end);
+                final int last = Math.min(DayKey.ofEndTime(end), lastDay);
+                for (int day = Math.max(DayKey.of(time), firstDay); day <= last; day++) {
+                    ret.add(day - firstDay, instance);
+                }
+            }
+        }
+        return ret;
+    }
+
+    private static class Entry {
+        final ICalendarEvent mEvent;
+        final RecurrenceRule mRule;
+        final long mStartTime;
+        final long mDuration;
+        final long[] mExceptionDates;
+
+        Entry(ICalendarEvent event, RecurrenceRule rule, long[] exceptionDates) {
+            mEvent = event;
+            mRule = rule;
+            mStartTime = event.getStartTime();
+            mDuration = event.getEndTime() - event.getStartTime();
+            if (exceptionDates == null) {
+                mExceptionDates = null;
+            } else {
+                mExceptionDates = exceptionDates.clone();
+                Arrays.sort(mExceptionDates);
+            }
+        }
+
+        long[] expand(long startTime, long endTime) {
+            return mRule.expand(mStartTime, mDuration, startTime, endTime, mExceptionDates);
+        }
+    }
+
+    /**
+     * The instances of the days in a block.
+     */
+    private static class Block {
+        /**
+         * The instances of every day of the block, null if the day has none.
+         */
+        final List<List<ICalendarEvent>> mDays = new ArrayList<>(
+                Collections.<List<ICalendarEvent>>nCopies(DayBlockLru.BLOCK_DAYS, null));
+        long mBits;
+
+        /**
+         * The filter that {@link #mFilteredBits} is computed with.
+         */
+        EventsAdapter.EventFilter mFilter;
+        long mFilteredBits;
+
+        void add(int day, ICalendarEvent instance) {
+            List<ICalendarEvent> instances = mDays.get(day);
+            if (instances == null) {
+                instances = new ArrayList<>(2);
+                mDays.set(day, instances);
+            }
+            instances.add(instance);
+            mBits |= 1L << day;
+        }
+
+        long getBits(EventsAdapter.EventFilter filter) {
+            if (filter == null) {
+                return mBits;
+            }
+
+            if (mFilter != filter) {
+                mFilteredBits = 0;
+                for (int day = 0; day < mDays.size(); day++) {
+                    if (mDays.get(day) == null) {
+                        continue;
+                    }
+                    for (ICalendarEvent instance : mDays.get(day)) {
+                        if (filter.onFilterEvent(instance)) {
+                            mFilteredBits |= 1L << day;
+                            break;
+                        }
+                    }
+                }
+                mFilter = filter;
+            }
+            return mFilteredBits;
+        }
+    }
+}
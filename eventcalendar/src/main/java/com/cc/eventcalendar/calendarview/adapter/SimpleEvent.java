@@ -0,0 +1,123 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * A plain event that only keeps the fields of {@link com.cc.eventcalendar.calendarview.ICalendarEvent}.
+ * {@link ColumnarEventStore} creates it from the columns when the events are read.
+ */
+public class SimpleEvent extends BaseEvent implements Parcelable {
+    private String mId;
+    private String mTitle;
+    private String mComment;
+    private String mCreator;
+    private int mType;
+    private boolean mAllDay;
+
+    public SimpleEvent() {
+    }
+
+    public SimpleEvent(String id, long startTime, long endTime) {
+        mId = id;
+        mStartTime = startTime;
+        mEndTime = endTime;
+    }
+
+    @Override
+    public void setID(String id) {
+        mId = id;
+    }
+
+    @Override
+    public String getID() {
+        return mId;
+    }
+
+    @Override
+    public void setTitle(String title) {
+        mTitle = title;
+    }
+
+    @Override
+    public String getTitle() {
+        return mTitle;
+    }
+
+    @Override
+    public void setComment(String comment) {
+        mComment = comment;
+    }
+
+    @Override
+    public String getComment() {
+        return mComment;
+    }
+
+    @Override
+    public void setCreator(String creator) {
+        mCreator = creator;
+    }
+
+    @Override
+    public String getCreator() {
+        return mCreator;
+    }
+
+    public void setAllDayEvent(boolean allDay) {
+        mAllDay = allDay;
+    }
+
+    @Override
+    public boolean isAllDayEvent() {
+        return mAllDay;
+    }
+
+    public void setType(int type) {
+        mType = type;
+    }
+
+    @Override
+    public int getType() {
+        return mType;
+    }
+
+    public static final Creator<SimpleEvent> CREATOR = new Creator<SimpleEvent>() {
+
+        @Override
+        public SimpleEvent createFromParcel(Parcel source) {
+            SimpleEvent item = new SimpleEvent();
+            item.mId = source.readString();
+            item.mTitle = source.readString();
+            item.mComment = source.readString();
+            item.mCreator = source.readString();
+            item.mStartTime = source.readLong();
+            item.mEndTime = source.readLong();
+            item.mType = source.readInt();
+            item.mAllDay = source.readInt() == 1;
+            return item;
+        }
+
+        @Override
+        public SimpleEvent[] newArray(int size) {
+            return new SimpleEvent[size];
+        }
+    };
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(mId);
+        dest.writeString(mTitle);
+        dest.writeString(mComment);
+        dest.writeString(mCreator);
+        dest.writeLong(mStartTime);
+        dest.writeLong(mEndTime);
+        dest.writeInt(mType);
+        dest.writeInt(mAllDay ? 1 : 0);
+    }
+}
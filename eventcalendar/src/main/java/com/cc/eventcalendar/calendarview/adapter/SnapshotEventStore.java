@@ -0,0 +1,18 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+/**
+ * An event store that can create immutable snapshots of itself. The snapshots can be read by any thread
+ * without locks while the store is changed.
+ *
+ * @see EventsAdapter#EventsAdapter(EventStore, boolean)
+ */
+public interface SnapshotEventStore extends EventStore {
+
+    /**
+     * Create a snapshot of the current events.
+     *
+     * @return a read-only store that will never change, changing it throws
+     * {@link UnsupportedOperationException}.
+     */
+    EventStore snapshot();
+}
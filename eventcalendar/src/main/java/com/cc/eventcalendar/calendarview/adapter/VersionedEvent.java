@@ -0,0 +1,15 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+/**
+ * An event that knows its version, such as the modification time or the hash of its content on the
+ * server. {@link EventsAdapter#setEvents(java.util.List)} compares the versions instead of the fields to
+ * find the changed events.
+ */
+public interface VersionedEvent extends ICalendarEvent {
+    /**
+     * @return the version of the event, it must change whenever any field of the event changes.
+     */
+    long getVersion();
+}
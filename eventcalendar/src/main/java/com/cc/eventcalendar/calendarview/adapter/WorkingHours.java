@@ -0,0 +1,86 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.util.DayKey;
+
+import java.util.Calendar;
+
+/**
+ * The hours of the days that the free slots are searched in, such as from 9:00 to 18:00 on the weekdays.
+ * The hours are the local time in the time zone of {@link DayKey}.
+ *
+ * @see EventsAdapter#findFreeSlots(long, long, long, WorkingHours, int)
+ */
+public final class WorkingHours {
+    private static final int MINUTES_IN_DAY = 24 * 60;
+
+    private final int mStartMinute;
+    private final int mEndMinute;
+
+    /**
+     * The bits of the days of week, the bit <code>1 << Calendar.SUNDAY</code> is Sunday.
+     */
+    private final int mWeekdays;
+
+    /**
+     * Create the working hours of every day.
+     *
+     * @param startMinute the start of the hours, the minutes from midnight.
+     * @param endMinute   the end of the hours, exclusive, the minutes from midnight.
+     */
+    public WorkingHours(int startMinute, int endMinute) {
+        this(startMinute, endMinute, Calendar.SUNDAY, Calendar.MONDAY, Calendar.TUESDAY, Calendar.WEDNESDAY,
+                Calendar.THURSDAY, Calendar.FRIDAY, Calendar.SATURDAY);
+    }
+
+    /**
+     * Create the working hours of the days of week.
+     *
+     * @param startMinute the start of the hours, the minutes from midnight.
+     * @param endMinute   the end of the hours, exclusive, the minutes from midnight.
+     * @param weekdays    the days of week, such as {@link Calendar#MONDAY}.
+     */
+    public WorkingHours(int startMinute, int endMinute, int... weekdays) {
+        if (startMinute < 0 || endMinute > MINUTES_IN_DAY || startMinute >= endMinute) {
+            throw new IllegalArgumentException("Invalid working hours: " + startMinute + "-" + endMinute);
+        }
+
+        int bits = 0;
+        for (int weekday : weekdays) {
+            if (weekday < Calendar.SUNDAY || weekday > Calendar.SATURDAY) {
+                throw new IllegalArgumentException("Invalid day of week: " + weekday);
+            }
+            bits |= 1 << weekday;
+        }
+        mStartMinute = startMinute;
+        mEndMinute = endMinute;
+        mWeekdays = bits;
+    }
+
+    public int getStartMinute() {
+        return mStartMinute;
+    }
+
+    public int getEndMinute() {
+        return mEndMinute;
+    }
+
+    /**
+     * @param weekday the day of week, such as {@link Calendar#MONDAY}.
+     * @return true if the day of week has working hours.
+     */
+    public boolean isWorkingDay(int weekday) {
+        return (mWeekdays & (1 << weekday)) != 0;
+    }
+
+    /**
+     * @param day the calendar of the day, it is changed to the time.
+     * @return the time of the minute of the day.
+     */
+    static long getTime(Calendar day, int minute) {
+        day.set(Calendar.HOUR_OF_DAY, minute / 60);
+        day.set(Calendar.MINUTE, minute % 60);
+        day.set(Calendar.SECOND, 0);
+        day.set(Calendar.MILLISECOND, 0);
+        return day.getTimeInMillis();
+    }
+}
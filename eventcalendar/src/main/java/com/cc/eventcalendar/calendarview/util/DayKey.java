@@ -0,0 +1,280 @@
+package com.cc.eventcalendar.calendarview.util;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * The key of a local day, it is the number of the local days since 1970-01-01, so every time in the same
+ * day resolves to the same key and the keys of the continuous days are continuous integers.
+ * <p>
+ * The zone offsets are looked up from a cached table of the offset transitions, so converting between
+ * the time and the key does not allocate a {@link Calendar} or call into the {@link TimeZone}. The table
+ * is immutable and published through a volatile field, a block that is missing is added to a copy of it,
+ * so the conversions do not take a lock once the blocks of the shown days are cached.
+ * </p>
+ */
+public final class DayKey {
+    /**
+     * The number of days of one block of the transition table.
+     */
+    private static final int DAYS_PER_BLOCK = 64;
+    private static final long MILLIS_PER_BLOCK = (long) DAYS_PER_BLOCK * OSTimeUtil.MILLIS_IN_DAY;
+
+    /**
+     * The time zone that is set, or null to use the default time zone.
+     */
+    private static TimeZone sTimeZone;
+
+    /**
+     * The table that the conversions read, or null if it is not created since the time zone is set.
+     */
+    private static volatile Table sTable;
+
+    private DayKey() {
+    }
+
+    /**
+     * Get the key of the day that the time is in.
+     *
+     * @param timeInMillis the time in millisecond.
+     * @return the key of the day in the default time zone.
+     */
+    public static int of(long timeInMillis) {
+        return of(getTable(), timeInMillis);
+    }
+
+    private static int of(Table table, long timeInMillis) {
+        return (int) floorDiv(timeInMillis + getOffset(table, timeInMillis), OSTimeUtil.MILLIS_IN_DAY);
+    }
+
+    /**
+     * Get the key of the day that the date is in.
+     *
+     * @param date the date.
+     * @return the key of the day in the default time zone.
+     */
+    public static int of(Calendar date) {
+        return of(date.getTimeInMillis());
+    }
+
+    /**
+     * Get the key of the last day that an exclusive end time covers, a time range ends at the start of
+     * a day does not cover that day.
+     *
+     * @param endTime the exclusive end time in millisecond.
+     * @return the key of the last day.
+     */
+    public static int ofEndTime(long endTime) {
+        return of(endTime - 1);
+    }
+
+    /**
+     * Get the start time of the day.
+     *
+     * @param key the key of the day.
+     * @return the first millisecond of the day in the default time zone.
+     */
+    public static long getStartTime(int key) {
+        final Table table = getTable();
+        final long localTime = (long) key * OSTimeUtil.MILLIS_IN_DAY;
+        long time = localTime - getOffset(table, localTime);
+        time = localTime - getOffset(table, time);
+        if (of(table, time) < key) {
+            // The midnight is skipped by the daylight saving time, the day starts at the transition.
+            long high = time + OSTimeUtil.MILLIS_IN_DAY;
+            while (high - time > 1) {
+                final long mid = time + (high - time) / 2;
+                if (of(table, mid) < key) {
+                    time = mid;
+                } else {
+                    high = mid;
+                }
+            }
+            time = high;
+        }
+        return time;
+    }
+
+    /**
+     * Set the time zone of the keys, the cached transitions are dropped. It should be called with null
+     * when the default time zone is changed.
+     *
+     * @param timeZone the time zone, or null to use the default time zone.
+     */
+    public static synchronized void setTimeZone(TimeZone timeZone) {
+        sTimeZone = timeZone;
+        sTable = null;
+    }
+
+    /**
+     * @return the time zone of the keys.
+     */
+    public static TimeZone getTimeZone() {
+        return getTable().mTimeZone;
+    }
+
+    private static Table getTable() {
+        final Table table = sTable;
+        return table != null ? table : createTable();
+    }
+
+    private static synchronized Table createTable() {
+        if (sTable == null) {
+            sTable = new Table(sTimeZone == null ? TimeZone.getDefault() : sTimeZone, 0, new Block[0]);
+        }
+        return sTable;
+    }
+
+    private static int getOffset(Table table, long time) {
+        final long blockIndex = floorDiv(time, MILLIS_PER_BLOCK);
+        Block block = table.get(blockIndex);
+        if (block == null) {
+            block = addBlock(table, blockIndex);
+        }
+        return block.getOffset(time);
+    }
+
+    /**
+     * Create the missing block and publish a copy of the table with it, the writers are serialized.
+     */
+    private static synchronized Block addBlock(Table table, long blockIndex) {
+        final Table current = sTable;
+        if (current != null && current.mTimeZone == table.mTimeZone) {
+            // Another thread may have added the block already.
+            table = current;
+            Block block = table.get(blockIndex);
+            if (block != null) {
+                return block;
+            }
+        }
+
+        Block block = new Block(table.mTimeZone, blockIndex * MILLIS_PER_BLOCK);
+        if (table == current) {
+            // The block is not cached if the time zone is changed meanwhile.
+            sTable = table.with(blockIndex, block);
+        }
+        return block;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long r = x / y;
+        if ((x % y != 0) && ((x ^ y) < 0)) {
+            r--;
+        }
+        return r;
+    }
+
+    /**
+     * The blocks of one time zone, it never changes after it is created.
+     */
+    private static class Table {
+        final TimeZone mTimeZone;
+        final int mFirstBlock;
+        final Block[] mBlocks;
+
+        Table(TimeZone timeZone, int firstBlock, Block[] blocks) {
+            mTimeZone = timeZone;
+            mFirstBlock = firstBlock;
+            mBlocks = blocks;
+        }
+
+        Block get(long blockIndex) {
+            final long index = blockIndex - mFirstBlock;
+            return index >= 0 && index < mBlocks.length ? mBlocks[(int) index] : null;
+        }
+
+        /**
+         * @return a copy of the table with the block, the table grows at least 16 blocks to the side of it.
+         */
+        Table with(long blockIndex, Block block) {
+            if (mBlocks.length == 0) {
+                final int first = (int) blockIndex - 16;
+                Block[] blocks = new Block[64];
+                blocks[16] = block;
+                return new Table(mTimeZone, first, blocks);
+            }
+
+            int first = mFirstBlock;
+            int last = mFirstBlock + mBlocks.length;
+            if (blockIndex < first || blockIndex >= last) {
+                first = Math.min(first, (int) blockIndex - 16);
+                last = Math.max(last, (int) blockIndex + 16);
+            }
+            Block[] blocks = new Block[last - first];
+            System.arraycopy(mBlocks, 0, blocks, mFirstBlock - first, mBlocks.length);
+            blocks[(int) (blockIndex - first)] = block;
+            return new Table(mTimeZone, first, blocks);
+        }
+    }
+
+    /**
+     * The offset transitions of a block of days.
+     */
+    private static class Block {
+        /**
+         * The start time of each offset, the first one is the start of the block.
+         */
+        final long[] mTimes;
+        final int[] mOffsets;
+
+        Block(TimeZone timeZone, long startTime) {
+            List<long[]> transitions = new ArrayList<>();
+            int offset = timeZone.getOffset(startTime);
+            transitions.add(new long[]{startTime, offset});
+            long last = startTime;
+            for (int i = 1; i <= DAYS_PER_BLOCK; i++) {
+                final long time = startTime + (long) i * OSTimeUtil.MILLIS_IN_DAY - (i == DAYS_PER_BLOCK ? 1 : 0);
+                final int newOffset = timeZone.getOffset(time);
+                if (newOffset != offset) {
+                    // Binary search the first millisecond of the new offset.
+                    long low = last;
+                    long high = time;
+                    while (high - low > 1) {
+                        final long mid = low + (high - low) / 2;
+                        if (timeZone.getOffset(mid) == offset) {
+                            low = mid;
+                        } else {
+                            high = mid;
+                        }
+                    }
+                    offset = timeZone.getOffset(high);
+                    transitions.add(new long[]{high, offset});
+                    if (offset != newOffset) {
+                        // More than one transition in one day, search the rest of the day again.
+                        last = high;
+                        i--;
+                        continue;
+                    }
+                }
+                last = time;
+            }
+
+            mTimes = new long[transitions.size()];
+            mOffsets = new int[transitions.size()];
+            for (int i = 0; i < mTimes.length; i++) {
+                mTimes[i] = transitions.get(i)[0];
+                mOffsets[i] = (int) transitions.get(i)[1];
+            }
+        }
+
+        int getOffset(long time) {
+            if (mTimes.length == 1) {
+                return mOffsets[0];
+            }
+
+            int low = 0;
+            int high = mTimes.length - 1;
+            while (low < high) {
+                final int mid = (low + high + 1) >>> 1;
+                if (mTimes[mid] <= time) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return mOffsets[low];
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.cc.eventcalendar.calendarview.util;
+
+/**
+ * A set of days that is kept as the sorted, disjoint and non-adjacent ranges of the day keys. The
+ * adjacent or overlapped ranges are merged when they are added.
+ *
+ * @see DayKey
+ */
+public class DayRangeSet {
+    private int[] mFirstDays = new int[8];
+    private int[] mLastDays = new int[8];
+    private int mSize;
+
+    /**
+     * @return the number of the ranges.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @param index the index of the range, between 0 and {@link #size()}.
+     * @return the first day of the range, inclusive.
+     */
+    public int getFirstDay(int index) {
+        checkIndex(index);
+        return mFirstDays[index];
+    }
+
+    /**
+     * @param index the index of the range, between 0 and {@link #size()}.
+     * @return the last day of the range, inclusive.
+     */
+    public int getLastDay(int index) {
+        checkIndex(index);
+        return mLastDays[index];
+    }
+
+    /**
+     * Add the days between <code>firstDay</code> and <code>lastDay</code>.
+     *
+     * @param firstDay the first day, inclusive.
+     * @param lastDay  the last day, inclusive.
+     */
+    public void add(int firstDay, int lastDay) {
+        if (firstDay > lastDay) {
+            return;
+        }
+
+        // The ranges from <code>from</code> to <code>to - 1</code> overlap or touch the new one.
+        int from = indexOfLastBefore(firstDay) + 1;
+        if (from > 0 && (long) mLastDays[from - 1] + 1 >= firstDay) {
+            from--;
+        }
+        int to = from;
+        while (to < mSize && mFirstDays[to] <= (long) lastDay + 1) {
+            to++;
+        }
+
+        if (from < to) {
+            firstDay = Math.min(firstDay, mFirstDays[from]);
+            lastDay = Math.max(lastDay, mLastDays[to - 1]);
+        }
+        replace(from, to, 1);
+        mFirstDays[from] = firstDay;
+        mLastDays[from] = lastDay;
+    }
+
+    /**
+     * Remove the days between <code>firstDay</code> and <code>lastDay</code>.
+     *
+     * @param firstDay the first day, inclusive.
+     * @param lastDay  the last day, inclusive.
+     */
+    public void remove(int firstDay, int lastDay) {
+        if (firstDay > lastDay) {
+            return;
+        }
+
+        int from = indexOfLastBefore(firstDay) + 1;
+        if (from > 0 && mLastDays[from - 1] >= firstDay) {
+            from--;
+        }
+        int to = from;
+        while (to < mSize && mFirstDays[to] <= lastDay) {
+            to++;
+        }
+        if (from == to) {
+            return;
+        }
+
+        // The parts of the first and the last range that are outside of the removed days are kept.
+        final int headFirst = mFirstDays[from];
+        final int tailLast = mLastDays[to - 1];
+        final boolean keepHead = headFirst < firstDay;
+        final boolean keepTail = tailLast > lastDay;
+        replace(from, to, (keepHead ? 1 : 0) + (keepTail ? 1 : 0));
+        if (keepHead) {
+            mFirstDays[from] = headFirst;
+            mLastDays[from] = firstDay - 1;
+            from++;
+        }
+        if (keepTail) {
+            mFirstDays[from] = lastDay + 1;
+            mLastDays[from] = tailLast;
+        }
+    }
+
+    /**
+     * Check whether all of the days between <code>firstDay</code> and <code>lastDay</code> are in the set.
+     *
+     * @param firstDay the first day, inclusive.
+     * @param lastDay  the last day, inclusive.
+     * @return true if the days are in the set or the range is empty.
+     */
+    public boolean contains(int firstDay, int lastDay) {
+        if (firstDay > lastDay) {
+            return true;
+        }
+
+        final int index = indexOfLastBefore(firstDay + 1);
+        return index >= 0 && mLastDays[index] >= lastDay;
+    }
+
+    /**
+     * Check whether any of the days between <code>firstDay</code> and <code>lastDay</code> is in the set.
+     *
+     * @param firstDay the first day, inclusive.
+     * @param lastDay  the last day, inclusive.
+     * @return true if the set has any of the days.
+     */
+    public boolean intersects(int firstDay, int lastDay) {
+        if (firstDay > lastDay) {
+            return false;
+        }
+
+        final int index = indexOfLastBefore(lastDay + 1);
+        return index >= 0 && mLastDays[index] >= firstDay;
+    }
+
+    /**
+     * Find the days between <code>firstDay</code> and <code>lastDay</code> that are not in the set.
+     *
+     * @param firstDay the first day, inclusive.
+     * @param lastDay  the last day, inclusive.
+     * @param out      the set that the missing ranges are added to.
+     */
+    public void getGaps(int firstDay, int lastDay, DayRangeSet out) {
+        if (firstDay > lastDay) {
+            return;
+        }
+
+        int index = indexOfLastBefore(firstDay + 1);
+        long next = firstDay;
+        if (index >= 0) {
+            next = Math.max(next, (long) mLastDays[index] + 1);
+        }
+        for (index++; index < mSize && mFirstDays[index] <= lastDay && next <= lastDay; index++) {
+            if (mFirstDays[index] > next) {
+                out.add((int) next, mFirstDays[index] - 1);
+            }
+            next = (long) mLastDays[index] + 1;
+        }
+        if (next <= lastDay) {
+            out.add((int) next, lastDay);
+        }
+    }
+
+    /**
+     * Remove all of the days.
+     */
+    public void clear() {
+        mSize = 0;
+    }
+
+    /**
+     * @return the index of the last range that starts before the day, or -1 if there is none.
+     */
+    private int indexOfLastBefore(int day) {
+        int low = 0;
+        int high = mSize - 1;
+        while (low <= high) {
+            final int mid = low + (high - low) / 2;
+            if (mFirstDays[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low - 1;
+    }
+
+    /**
+     * Replace the ranges from <code>from</code> to <code>to - 1</code> with <code>count</code> slots.
+     */
+    private void replace(int from, int to, int count) {
+        final int newSize = mSize - (to - from) + count;
+        if (newSize > mFirstDays.length) {
+            int[] firstDays = new int[Math.max(newSize, mFirstDays.length * 2)];
+            int[] lastDays = new int[firstDays.length];
+            System.arraycopy(mFirstDays, 0, firstDays, 0, mSize);
+            System.arraycopy(mLastDays, 0, lastDays, 0, mSize);
+            mFirstDays = firstDays;
+            mLastDays = lastDays;
+        }
+        System.arraycopy(mFirstDays, to, mFirstDays, from + count, mSize - to);
+        System.arraycopy(mLastDays, to, mLastDays, from + count, mSize - to);
+        mSize = newSize;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Invalid index " + index + ", size is " + mSize);
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.cc.eventcalendar.calendarview.util;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * A subset of the recurrence rule of RFC 5545: FREQ of DAILY, WEEKLY, MONTHLY or YEARLY, INTERVAL, COUNT,
+ * UNTIL and BYDAY. The ordinals of BYDAY such as <code>-1FR</code> are only supported by MONTHLY rules,
+ * and BYDAY is not supported by YEARLY rules. The weeks start on Monday.
+ * <p>
+ * The instances keep the local time of the first instance in the time zone of {@link DayKey}.
+ * </p>
+ */
+public final class RecurrenceRule {
+    public static final int DAILY = 0;
+    public static final int WEEKLY = 1;
+    public static final int MONTHLY = 2;
+    public static final int YEARLY = 3;
+
+    private static final String[] FREQUENCIES = {"DAILY", "WEEKLY", "MONTHLY", "YEARLY"};
+    private static final String[] WEEKDAYS = {"SU", "MO", "TU", "WE", "TH", "FR", "SA"};
+    private static final long[] EMPTY = new long[0];
+
+    private final int mFrequency;
+    private final int mInterval;
+    private final int mCount;
+    private final long mUntil;
+
+    /**
+     * The days of BYDAY, the values of {@link Calendar#DAY_OF_WEEK} and the ordinals, 0 means every
+     * such day of the period.
+     */
+    private final int[] mByDays;
+    private final int[] mByDayOrdinals;
+
+    private RecurrenceRule(int frequency, int interval, int count, long until, int[] byDays, int[] byDayOrdinals) {
+        mFrequency = frequency;
+        mInterval = interval;
+        mCount = count;
+        mUntil = until;
+        mByDays = byDays;
+        mByDayOrdinals = byDayOrdinals;
+    }
+
+    /**
+     * Parse the rule, such as <code>FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE;UNTIL=20161231</code>. The UNTIL
+     * in UTC ends with Z, otherwise it is a local time, and a date means the end of the day.
+     *
+     * @param rule the rule, the prefix <code>RRULE:</code> is optional.
+     * @return the rule.
+     * @throws IllegalArgumentException if the rule is invalid or not supported.
+     */
+    public static RecurrenceRule parse(String rule) {
+        if (rule == null) {
+            throw new IllegalArgumentException("The rule cannot be null.");
+        }
+
+        String value = rule.trim();
+        if (value.startsWith("RRULE:")) {
+            value = value.substring(6);
+        }
+
+        int frequency = -1;
+        int interval = 1;
+        int count = 0;
+        long until = Long.MAX_VALUE;
+        int[] byDays = null;
+        int[] byDayOrdinals = null;
+        for (String part : value.split(";")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+
+            final int equal = part.indexOf('=');
+            if (equal <= 0) {
+                throw new IllegalArgumentException("Invalid rule part: " + part);
+            }
+
+            final String name = part.substring(0, equal).toUpperCase();
+            final String argument = part.substring(equal + 1).toUpperCase();
+            if ("FREQ".equals(name)) {
+                frequency = Arrays.asList(FREQUENCIES).indexOf(argument);
+                if (frequency < 0) {
+                    throw new IllegalArgumentException("Unsupported frequency: " + argument);
+                }
+            } else if ("INTERVAL".equals(name)) {
+                interval = parsePositive(name, argument);
+            } else if ("COUNT".equals(name)) {
+                count = parsePositive(name, argument);
+            } else if ("UNTIL".equals(name)) {
+                until = parseUntil(argument);
+            } else if ("BYDAY".equals(name)) {
+                String[] days = argument.split(",");
+                byDays = new int[days.length];
+                byDayOrdinals = new int[days.length];
+                for (int i = 0; i < days.length; i++) {
+                    parseDay(days[i], i, byDays, byDayOrdinals);
+                }
+            } else if (!"WKST".equals(name) || !"MO".equals(argument)) {
+                throw new IllegalArgumentException("Unsupported rule part: " + part);
+            }
+        }
+
+        if (frequency < 0) {
+            throw new IllegalArgumentException("The rule has no frequency: " + rule);
+        }
+        if (byDays != null) {
+            if (frequency == YEARLY) {
+                throw new IllegalArgumentException("BYDAY is not supported by YEARLY rules: " + rule);
+            }
+            for (int ordinal : byDayOrdinals) {
+                if (ordinal != 0 && frequency != MONTHLY) {
+                    throw new IllegalArgumentException("The ordinal of BYDAY needs a MONTHLY rule: " + rule);
+                }
+            }
+        }
+        return new RecurrenceRule(frequency, interval, count, until, byDays, byDayOrdinals);
+    }
+
+    public int getFrequency() {
+        return mFrequency;
+    }
+
+    public int getInterval() {
+        return mInterval;
+    }
+
+    /**
+     * @return the number of the instances, or 0 if it is not limited by COUNT.
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * @return the time of the last instance, or {@link Long#MAX_VALUE} if it is not limited by UNTIL.
+     */
+    public long getUntil() {
+        return mUntil;
+    }
+
+    /**
+     * Find the instances that overlap the time range.
+     *
+     * @param startTime      the start time of the first instance.
+     * @param duration       the duration of every instance.
+     * @param rangeStart     the start of the range, inclusive.
+     * @param rangeEnd       the end of the range, exclusive.
+     * @param exceptionDates the sorted start times of the instances that are excluded, may be null.
+     * @return the ascending start times of the instances.
+     */
+    public long[] expand(long startTime, long duration, long rangeStart, long rangeEnd, long[] exceptionDates) {
+        if (rangeEnd <= rangeStart || startTime >= rangeEnd || startTime > mUntil) {
+            return EMPTY;
+        }
+
+        final TimeZone timeZone = DayKey.getTimeZone();
+        final Calendar first = Calendar.getInstance(timeZone);
+        first.setTimeInMillis(startTime);
+        final Calendar period = (Calendar) first.clone();
+        // The period is kept at noon so a change of the daylight saving time never moves it to another day.
+        period.set(Calendar.HOUR_OF_DAY, 12);
+        period.set(Calendar.MINUTE, 0);
+        period.set(Calendar.SECOND, 0);
+        period.set(Calendar.MILLISECOND, 0);
+        // Move to the first day of the period of the first instance.
+        if (mFrequency == WEEKLY) {
+            period.add(Calendar.DAY_OF_MONTH, -daysFromMonday(period.get(Calendar.DAY_OF_WEEK)));
+        } else if (mFrequency == MONTHLY) {
+            period.set(Calendar.DAY_OF_MONTH, 1);
+        } else if (mFrequency == YEARLY) {
+            period.set(Calendar.DAY_OF_YEAR, 1);
+        }
+
+        // Without COUNT the instances before the range do not matter, skip their periods.
+        final long earliestStart = duration > 0 && rangeStart < Long.MIN_VALUE + duration ? Long.MIN_VALUE
+                : rangeStart - Math.max(duration, 0);
+        if (mCount == 0 && earliestStart > startTime) {
+            final Calendar target = Calendar.getInstance(timeZone);
+            target.setTimeInMillis(earliestStart);
+            final long skip = periodsBetween(period, target) / mInterval - 1;
+            if (skip > 0) {
+                addPeriods(period, skip * mInterval);
+            }
+        }
+
+        long[] ret = EMPTY;
+        int size = 0;
+        int index = 0;
+        final int[] days = new int[31];
+        final Calendar instance = (Calendar) first.clone();
+        while (true) {
+            final int dayCount = getDaysOfPeriod(period, first, days);
+            for (int i = 0; i < dayCount; i++) {
+                instance.setTimeInMillis(period.getTimeInMillis());
+                instance.set(Calendar.DAY_OF_MONTH, days[i]);
+                instance.set(Calendar.HOUR_OF_DAY, first.get(Calendar.HOUR_OF_DAY));
+                instance.set(Calendar.MINUTE, first.get(Calendar.MINUTE));
+                instance.set(Calendar.SECOND, first.get(Calendar.SECOND));
+                instance.set(Calendar.MILLISECOND, first.get(Calendar.MILLISECOND));
+                final long time = instance.getTimeInMillis();
+                if (time < startTime) {
+                    continue;
+                }
+                if (time > mUntil || time >= rangeEnd || (mCount > 0 && index >= mCount)) {
+                    return Arrays.copyOf(ret, size);
+                }
+
+                index++;
+                if (time + duration > rangeStart && !isExcluded(time, exceptionDates)) {
+                    if (size == ret.length) {
+                        ret = Arrays.copyOf(ret, Math.max(8, size * 2));
+                    }
+                    ret[size++] = time;
+                }
+            }
+
+            addPeriods(period, mInterval);
+            if (DayKey.getStartTime(DayKey.of(period)) >= rangeEnd) {
+                return Arrays.copyOf(ret, size);
+            }
+        }
+    }
+
+    /**
+     * Get the days of month of the candidates in the period.
+     *
+     * @return the number of the days, they are ascending.
+     */
+    private int getDaysOfPeriod(Calendar period, Calendar first, int[] out) {
+        final int dayOfMonth = period.get(Calendar.DAY_OF_MONTH);
+        switch (mFrequency) {
+            case DAILY:
+                out[0] = dayOfMonth;
+                return mByDays == null || contains(mByDays, period.get(Calendar.DAY_OF_WEEK)) ? 1 : 0;
+            case WEEKLY: {
+                // The days are in the order from Monday, the days after the end of the month are in the
+                // next month since Calendar is lenient.
+                int count = 0;
+                for (int offset = 0; offset < 7; offset++) {
+                    final int weekday = (Calendar.MONDAY - 1 + offset) % 7 + 1;
+                    final boolean match = mByDays == null ? weekday == first.get(Calendar.DAY_OF_WEEK)
+                            : contains(mByDays, weekday);
+                    if (match) {
+                        out[count++] = dayOfMonth + offset;
+                    }
+                }
+                return count;
+            }
+            case MONTHLY: {
+                final int maxDay = period.getActualMaximum(Calendar.DAY_OF_MONTH);
+                if (mByDays == null) {
+                    final int day = first.get(Calendar.DAY_OF_MONTH);
+                    out[0] = day;
+                    return day <= maxDay ? 1 : 0;
+                }
+
+                // The weekday of the first day of the month.
+                final int firstWeekday = period.get(Calendar.DAY_OF_WEEK);
+                int count = 0;
+                for (int day = 1; day <= maxDay; day++) {
+                    final int weekday = (firstWeekday - 1 + day - 1) % 7 + 1;
+                    for (int i = 0; i < mByDays.length; i++) {
+                        if (mByDays[i] != weekday) {
+                            continue;
+                        }
+                        final int ordinal = mByDayOrdinals[i];
+                        if (ordinal == 0 || (ordinal > 0 && (day - 1) / 7 + 1 == ordinal)
+                                || (ordinal < 0 && (maxDay - day) / 7 + 1 == -ordinal)) {
+                            out[count++] = day;
+                            break;
+                        }
+                    }
+                }
+                return count;
+            }
+            default: {
+                // The period starts on January 1st, the day of month past January is the day of year.
+                Calendar date = (Calendar) period.clone();
+                date.set(Calendar.MONTH, first.get(Calendar.MONTH));
+                final int day = first.get(Calendar.DAY_OF_MONTH);
+                if (day > date.getActualMaximum(Calendar.DAY_OF_MONTH)) {
+                    // February 29th in a common year.
+                    return 0;
+                }
+                date.set(Calendar.DAY_OF_MONTH, day);
+                out[0] = date.get(Calendar.DAY_OF_YEAR);
+                return 1;
+            }
+        }
+    }
+
+    private long periodsBetween(Calendar period, Calendar target) {
+        switch (mFrequency) {
+            case DAILY:
+                return DayKey.of(target) - DayKey.of(period);
+            case WEEKLY:
+                return (DayKey.of(target) - DayKey.of(period)) / 7;
+            case MONTHLY:
+                return (target.get(Calendar.YEAR) - period.get(Calendar.YEAR)) * 12L
+                        + target.get(Calendar.MONTH) - period.get(Calendar.MONTH);
+            default:
+                return target.get(Calendar.YEAR) - period.get(Calendar.YEAR);
+        }
+    }
+
+    private void addPeriods(Calendar period, long periods) {
+        switch (mFrequency) {
+            case DAILY:
+                period.add(Calendar.DAY_OF_MONTH, (int) periods);
+                break;
+            case WEEKLY:
+                period.add(Calendar.DAY_OF_MONTH, (int) (periods * 7));
+                break;
+            case MONTHLY:
+                period.add(Calendar.MONTH, (int) periods);
+                break;
+            default:
+                period.add(Calendar.YEAR, (int) periods);
+                break;
+        }
+    }
+
+    private static int daysFromMonday(int weekday) {
+        return (weekday - Calendar.MONDAY + 7) % 7;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isExcluded(long time, long[] exceptionDates) {
+        return exceptionDates != null && Arrays.binarySearch(exceptionDates, time) >= 0;
+    }
+
+    private static int parsePositive(String name, String argument) {
+        try {
+            final int value = Integer.parseInt(argument);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through.
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + argument);
+    }
+
+    private static void parseDay(String day, int index, int[] days, int[] ordinals) {
+        if (day.length() < 2) {
+            throw new IllegalArgumentException("Invalid BYDAY: " + day);
+        }
+
+        final int weekday = Arrays.asList(WEEKDAYS).indexOf(day.substring(day.length() - 2));
+        if (weekday < 0) {
+            throw new IllegalArgumentException("Invalid BYDAY: " + day);
+        }
+
+        int ordinal = 0;
+        if (day.length() > 2) {
+            try {
+                ordinal = Integer.parseInt(day.substring(0, day.length() - 2).replace("+", ""));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid BYDAY: " + day);
+            }
+            if (ordinal == 0 || ordinal > 5 || ordinal < -5) {
+                throw new IllegalArgumentException("Invalid BYDAY: " + day);
+            }
+        }
+        days[index] = weekday + Calendar.SUNDAY;
+        ordinals[index] = ordinal;
+    }
+
+    private static long parseUntil(String value) {
+        final boolean utc = value.endsWith("Z");
+        final String time = utc ? value.substring(0, value.length() - 1) : value;
+        if (!time.matches("\\d{8}(T\\d{6})?")) {
+            throw new IllegalArgumentException("Invalid UNTIL: " + value);
+        }
+
+        Calendar c = Calendar.getInstance(utc ? TimeZone.getTimeZone("UTC") : DayKey.getTimeZone());
+        c.clear();
+        c.set(Integer.parseInt(time.substring(0, 4)), Integer.parseInt(time.substring(4, 6)) - 1,
+                Integer.parseInt(time.substring(6, 8)));
+        if (time.length() == 8) {
+            // The whole day is included.
+            c.add(Calendar.DAY_OF_MONTH, 1);
+            return c.getTimeInMillis() - 1;
+        }
+
+        c.set(Calendar.HOUR_OF_DAY, Integer.parseInt(time.substring(9, 11)));
+        c.set(Calendar.MINUTE, Integer.parseInt(time.substring(11, 13)));
+        c.set(Calendar.SECOND, Integer.parseInt(time.substring(13, 15)));
+        return c.getTimeInMillis();
+    }
+}
@@ -0,0 +1,44 @@
+package com.cc.eventcalendar.calendarview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EventTextCacheTest {
+
+    @Test
+    public void textIsKeyedByAllOfTheValues() {
+        EventTextCache cache = new EventTextCache();
+        assertNull(cache.get("a", EventTextCache.KIND_TITLE, "Meeting", 100, 12f, 0));
+        EventTextCache.Entry entry = cache.put(new EventTextCache.Entry("Meet...", 40, 10));
+        assertSame(entry, cache.get("a", EventTextCache.KIND_TITLE, new String("Meeting"), 100, 12f, 0));
+
+        assertNull(cache.get("b", EventTextCache.KIND_TITLE, "Meeting", 100, 12f, 0));
+        assertNull(cache.get("a", EventTextCache.KIND_CREATOR, "Meeting", 100, 12f, 0));
+        assertNull(cache.get("a", EventTextCache.KIND_TITLE, "Meeting!", 100, 12f, 0));
+        assertNull(cache.get("a", EventTextCache.KIND_TITLE, "Meeting", 101, 12f, 0));
+        assertNull(cache.get("a", EventTextCache.KIND_TITLE, "Meeting", 100, 13f, 0));
+        assertNull(cache.get("a", EventTextCache.KIND_TITLE, "Meeting", 100, 12f, 1));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(7, cache.getMissCount());
+
+        cache.clear();
+        assertNull(cache.get("a", EventTextCache.KIND_TITLE, "Meeting", 100, 12f, 0));
+    }
+
+    @Test
+    public void leastRecentlyUsedTextIsDropped() {
+        EventTextCache cache = new EventTextCache(2);
+        cache.get("a", EventTextCache.KIND_TITLE, "a", 100, 12f, 0);
+        cache.put(new EventTextCache.Entry("a", 10, 10));
+        cache.get("b", EventTextCache.KIND_TITLE, "b", 100, 12f, 0);
+        cache.put(new EventTextCache.Entry("b", 10, 10));
+        assertNotNull(cache.get("a", EventTextCache.KIND_TITLE, "a", 100, 12f, 0));
+        cache.get("c", EventTextCache.KIND_TITLE, "c", 100, 12f, 0);
+        cache.put(new EventTextCache.Entry("c", 10, 10));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b", EventTextCache.KIND_TITLE, "b", 100, 12f, 0));
+        assertNotNull(cache.get("a", EventTextCache.KIND_TITLE, "a", 100, 12f, 0));
+    }
+}
@@ -0,0 +1,135 @@
+package com.cc.eventcalendar.calendarview;
+
+import com.cc.eventcalendar.calendarview.adapter.DayEventAdapter;
+import com.cc.eventcalendar.calendarview.adapter.TestEvent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimelineHitTesterTest {
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long MIN_DURATION = 10 * MINUTE;
+
+    @Test
+    public void tapsMatchTheLinearScan() {
+        Random random = new Random(25);
+        for (int round = 0; round < 50; round++) {
+            List<ICalendarEvent> events = new ArrayList<>();
+            for (int i = random.nextInt(100); i > 0; i--) {
+                final int start = random.nextInt(24 * 60);
+                final int duration = random.nextInt(4) == 0 ? random.nextInt(10) : random.nextInt(180);
+                events.add(new TestEvent("e" + i, start * MINUTE, (start + duration) * MINUTE));
+            }
+            DayEventAdapter adapter = new DayEventAdapter(events, Calendar.getInstance());
+            TimelineHitTester tester = newTester(adapter);
+
+            for (long time = 17 * 1000L; time < 24 * HOUR; time += 7 * MINUTE) {
+                final int index = tester.findEventAtTime(time, -1);
+                assertSame(findByScan(adapter, time), index < 0 ? null : adapter.getEvent(index));
+            }
+        }
+    }
+
+    @Test
+    public void tapsHitTheColumnUnderThePoint() {
+        TestEvent left = new TestEvent("left", 9 * HOUR, 11 * HOUR);
+        TestEvent right = new TestEvent("right", 10 * HOUR, 12 * HOUR);
+        DayEventAdapter adapter = new DayEventAdapter(Arrays.<ICalendarEvent>asList(left, right),
+                Calendar.getInstance());
+        TimelineHitTester tester = newTester(adapter);
+
+        // The day is 2400 pixels high from the y-coordinate 0, the columns are from 100 to 300.
+        assertSame(left, event(adapter, tester.findEventAt(150, 1050)));
+        assertSame(right, event(adapter, tester.findEventAt(250, 1050)));
+        assertSame(left, event(adapter, tester.findEventAt(50, 1050)));
+        // The left column is free after the left event.
+        assertNull(event(adapter, tester.findEventAt(150, 1150)));
+        assertSame(right, event(adapter, tester.findEventAt(50, 1150)));
+    }
+
+    @Test
+    public void hoursAreCheckedWithTheSameRules() {
+        DayEventAdapter adapter = new DayEventAdapter(Arrays.<ICalendarEvent>asList(
+                // In the hour 9, it is not on the edges of the hour.
+                new TestEvent("inner", 9 * HOUR + 15 * MINUTE, 9 * HOUR + 45 * MINUTE),
+                new TestEvent("first", 10 * HOUR, 10 * HOUR + 30 * MINUTE),
+                new TestEvent("second", 10 * HOUR + 30 * MINUTE, 11 * HOUR),
+                // A short event is drawn with the minimum height.
+                new TestEvent("short", 12 * HOUR - 5 * MINUTE, 12 * HOUR - 4 * MINUTE)),
+                Calendar.getInstance());
+        TimelineHitTester tester = newTester(adapter);
+
+        assertFalse(tester.hasEventInHour(8));
+        assertTrue(tester.hasEventInHour(9));
+        assertFalse(tester.isHourCovered(9));
+        assertTrue(tester.hasEventInHour(10));
+        assertTrue(tester.isHourCovered(10));
+        assertTrue(tester.hasEventInHour(11));
+        assertFalse(tester.isHourCovered(11));
+        assertTrue(tester.hasEventInHour(12));
+        assertFalse(tester.hasEventInHour(13));
+    }
+
+    @Test
+    public void singleEventHoursMatchTheOldChecks() {
+        Random random = new Random(26);
+        for (int round = 0; round < 500; round++) {
+            final int start = random.nextInt(24 * 60);
+            TestEvent event = new TestEvent("e", start * MINUTE, (start + 10 + random.nextInt(300)) * MINUTE);
+            DayEventAdapter adapter = new DayEventAdapter(Arrays.<ICalendarEvent>asList(event),
+                    Calendar.getInstance());
+            TimelineHitTester tester = newTester(adapter);
+
+            for (int hour = 0; hour < 24; hour++) {
+                final long itemStartTime = hour * HOUR;
+                final long itemEndTime = itemStartTime + HOUR;
+                // The old check of the focus, an event starts or ends in the hour.
+                final boolean canFocus = (event.getStartTime() > itemStartTime && event.getStartTime() < itemEndTime)
+                        || (event.getEndTime() > itemStartTime && event.getEndTime() < itemEndTime);
+                if (tester.hasEventInHour(hour)) {
+                    assertEquals(canFocus, !tester.isHourCovered(hour));
+                }
+                // The old check of the hour only finds the events on the edges of the hour.
+                if (event.isHappensOnWithoutEdge(itemStartTime) || event.isHappensOnWithoutEdge(itemEndTime - 1)) {
+                    assertTrue(tester.hasEventInHour(hour));
+                }
+            }
+        }
+    }
+
+    /**
+     * The old check of the taps, it scans all of the events in the order of the start time.
+     */
+    private static ICalendarEvent findByScan(DayEventAdapter adapter, long time) {
+        for (int i = 0; i < adapter.getEventsCount(); i++) {
+            ICalendarEvent event = adapter.getEvent(adapter.getEventIndex(i));
+            if (event.isHappensOn(time)) {
+                return event;
+            } else if (event.getDuration() < MIN_DURATION) {
+                if (event.getStartTime() >= time - MIN_DURATION && event.getStartTime() <= time + MIN_DURATION) {
+                    return event;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static ICalendarEvent event(DayEventAdapter adapter, int index) {
+        return index < 0 ? null : adapter.getEvent(index);
+    }
+
+    private static TimelineHitTester newTester(DayEventAdapter adapter) {
+        TimelineHitTester tester = new TimelineHitTester();
+        tester.setAdapter(adapter);
+        tester.setLayout(0, 0, 2400, 100, 300, MIN_DURATION);
+        return tester;
+    }
+}
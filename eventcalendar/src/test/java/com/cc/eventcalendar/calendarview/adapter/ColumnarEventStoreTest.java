@@ -0,0 +1,149 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ColumnarEventStoreTest {
+
+    @Test
+    public void matchesIntervalTreeStore() {
+        Calendar c = Calendar.getInstance();
+        c.set(2016, Calendar.JANUARY, 1);
+        OSTimeUtil.changeToStartOfDay(c);
+        final long base = c.getTimeInMillis();
+
+        Random random = new Random(5);
+        ColumnarEventStore columnar = new ColumnarEventStore();
+        IntervalTreeEventStore tree = new IntervalTreeEventStore();
+        List<TestEvent> events = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            long start = base + (long) (random.nextDouble() * 90 * OSTimeUtil.MILLIS_IN_DAY);
+            long duration = random.nextInt(20) == 0 ? (long) (random.nextDouble() * 20 * OSTimeUtil.MILLIS_IN_DAY)
+                    : random.nextInt(3 * OSTimeUtil.MILLIS_IN_HOUR);
+            TestEvent event = new TestEvent("id-" + i, start, start + duration);
+            event.setTitle("title-" + random.nextInt(10));
+            events.add(event);
+            columnar.addEvent(event);
+            tree.addEvent(event);
+        }
+        for (int i = 0; i < events.size(); i += 3) {
+            TestEvent event = events.get(i);
+            assertTrue(columnar.removeEvent(event.getID(), event.getStartTime(), event.getEndTime()));
+            tree.removeEvent(event.getID(), event.getStartTime(), event.getEndTime());
+        }
+        assertEquals(tree.size(), columnar.size());
+
+        for (int day = -2; day < 95; day++) {
+            long start = base + (long) day * OSTimeUtil.MILLIS_IN_DAY;
+            long end = start + OSTimeUtil.MILLIS_IN_DAY;
+            assertEquals(ids(tree.getEvents(start, end)), ids(columnar.getEvents(start, end)));
+            int key = EventsAdapter.getKey(start);
+            assertEquals(tree.hasEventsOnDay(key), columnar.hasEventsOnDay(key));
+        }
+
+        TestEvent event = events.get(1);
+        ICalendarEvent copy = columnar.getEvent(event.getID(), event.getStartTime(), event.getEndTime());
+        assertEquals(event.getTitle(), copy.getTitle());
+        assertEquals(event.getEndTime(), copy.getEndTime());
+    }
+
+    @Test
+    public void addAllMatchesAddingOneByOne() {
+        Calendar c = Calendar.getInstance();
+        c.set(2016, Calendar.JANUARY, 1);
+        OSTimeUtil.changeToStartOfDay(c);
+        final long base = c.getTimeInMillis();
+
+        Random random = new Random(9);
+        ColumnarEventStore bulk = new ColumnarEventStore();
+        ColumnarEventStore single = new ColumnarEventStore();
+        for (int round = 0; round < 3; round++) {
+            List<TestEvent> events = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                // The start times are on the half hours, so many of the events start together.
+                long start = base + random.nextInt(30 * 48) * (long) OSTimeUtil.MILLIS_IN_HOUR / 2;
+                TestEvent event = new TestEvent(round + "-" + i, start, start + random.nextInt(5 * OSTimeUtil.MILLIS_IN_HOUR));
+                events.add(event);
+                single.addEvent(event);
+            }
+            events.add(null);
+            bulk.addAll(events);
+        }
+        assertEquals(single.size(), bulk.size());
+
+        for (int day = -1; day < 32; day++) {
+            long start = base + (long) day * OSTimeUtil.MILLIS_IN_DAY;
+            long end = start + OSTimeUtil.MILLIS_IN_DAY;
+            assertEquals(orderedIds(single.getEvents(start, end)), orderedIds(bulk.getEvents(start, end)));
+        }
+    }
+
+    @Test
+    public void longEventDoesNotHideTheOtherRows() {
+        Calendar c = Calendar.getInstance();
+        c.set(2016, Calendar.JANUARY, 1);
+        OSTimeUtil.changeToStartOfDay(c);
+        final long base = c.getTimeInMillis();
+
+        ColumnarEventStore columnar = new ColumnarEventStore();
+        IntervalTreeEventStore tree = new IntervalTreeEventStore();
+        // A year long event before all of the others.
+        TestEvent vacation = new TestEvent("vacation", base - OSTimeUtil.MILLIS_IN_DAY,
+                base + 365L * OSTimeUtil.MILLIS_IN_DAY);
+        columnar.addEvent(vacation);
+        tree.addEvent(vacation);
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            long start = base + (long) (random.nextDouble() * 60 * OSTimeUtil.MILLIS_IN_DAY);
+            TestEvent event = new TestEvent("id-" + i, start, start + OSTimeUtil.MILLIS_IN_HOUR);
+            columnar.addEvent(event);
+            tree.addEvent(event);
+        }
+
+        for (int round = 0; round < 2; round++) {
+            for (int day = -2; day < 400; day += 3) {
+                long start = base + (long) day * OSTimeUtil.MILLIS_IN_DAY;
+                long end = start + OSTimeUtil.MILLIS_IN_DAY;
+                assertEquals(ids(tree.getEvents(start, end)), ids(columnar.getEvents(start, end)));
+                int key = EventsAdapter.getKey(start);
+                assertEquals(tree.hasEventsOnDay(key), columnar.hasEventsOnDay(key));
+            }
+            // Check the rows again without the long event.
+            assertEquals(round == 0, columnar.removeEvent(vacation.getID(), vacation.getStartTime(),
+                    vacation.getEndTime()));
+            tree.removeEvent(vacation.getID(), vacation.getStartTime(), vacation.getEndTime());
+        }
+
+        columnar.clear();
+        assertTrue(columnar.getEvents(base, base + 365L * OSTimeUtil.MILLIS_IN_DAY).isEmpty());
+        columnar.addEvent(vacation);
+        assertEquals(1, columnar.getEvents(base, base + 1).size());
+    }
+
+    private static List<String> orderedIds(List<ICalendarEvent> events) {
+        List<String> ids = new ArrayList<>();
+        for (ICalendarEvent event : events) {
+            ids.add(event.getID());
+        }
+        return ids;
+    }
+
+    private static Set<String> ids(List<ICalendarEvent> events) {
+        Set<String> ids = new HashSet<>();
+        for (ICalendarEvent event : events) {
+            ids.add(event.getID());
+        }
+        return ids;
+    }
+}
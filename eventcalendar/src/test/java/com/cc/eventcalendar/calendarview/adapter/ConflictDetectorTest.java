@@ -0,0 +1,109 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ConflictDetectorTest {
+    private static final long MINUTE = 60 * 1000L;
+    private static final long DAY = 24 * 60 * MINUTE;
+
+    @Test
+    public void overlappingEventsAreGrouped() {
+        TestEvent first = event(9 * 60, 10 * 60);
+        TestEvent second = event(9 * 60 + 30, 11 * 60);
+        TestEvent third = event(10 * 60 + 30, 12 * 60);
+        List<ICalendarEvent> events = Arrays.<ICalendarEvent>asList(
+                third,
+                // Starts when the third one ends, it does not overlap it.
+                event(12 * 60, 13 * 60),
+                first,
+                second,
+                event(14 * 60, 15 * 60));
+        List<ConflictGroup> groups = ConflictDetector.find(events, 0, DAY);
+        assertEquals(1, groups.size());
+
+        ConflictGroup group = groups.get(0);
+        assertEquals(Arrays.<ICalendarEvent>asList(first, second, third), group.getEvents());
+        assertEquals(9 * 60 * MINUTE, group.getStartTime());
+        assertEquals(12 * 60 * MINUTE, group.getEndTime());
+        assertEquals(2, group.getMaxOverlap());
+        assertEquals(2, group.getPairCount());
+        assertEquals(0, group.getPairFirst(0));
+        assertEquals(1, group.getPairSecond(0));
+        assertEquals(1, group.getPairFirst(1));
+        assertEquals(2, group.getPairSecond(1));
+    }
+
+    @Test
+    public void overlapsOutOfTheRangeAreIgnored() {
+        SimpleEvent allDay = new SimpleEvent("all-day", 0, DAY);
+        allDay.setAllDayEvent(true);
+        List<ICalendarEvent> events = Arrays.<ICalendarEvent>asList(
+                event(-120, 30),
+                event(-60, -30),
+                event(60, 120),
+                allDay);
+        assertTrue(ConflictDetector.find(events, 0, DAY).isEmpty());
+        assertEquals(1, ConflictDetector.find(events, -DAY, DAY).size());
+    }
+
+    @Test
+    public void pairsMatchBruteForce() {
+        Random random = new Random(20);
+        for (int round = 0; round < 200; round++) {
+            List<ICalendarEvent> events = new ArrayList<>();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                final int start = random.nextInt(24 * 60);
+                events.add(event(start, start + 1 + random.nextInt(180)));
+            }
+
+            Map<ICalendarEvent, Integer> indexes = new IdentityHashMap<>();
+            for (int i = 0; i < events.size(); i++) {
+                indexes.put(events.get(i), i);
+            }
+
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < events.size(); i++) {
+                for (int j = i + 1; j < events.size(); j++) {
+                    ICalendarEvent a = events.get(i);
+                    ICalendarEvent b = events.get(j);
+                    if (a.getStartTime() < Math.min(b.getEndTime(), DAY)
+                            && b.getStartTime() < Math.min(a.getEndTime(), DAY)) {
+                        expected.add(pair(indexes.get(a), indexes.get(b)));
+                    }
+                }
+            }
+
+            Set<String> actual = new HashSet<>();
+            for (ConflictGroup group : ConflictDetector.find(events, 0, DAY)) {
+                for (int i = 0; i < group.getPairCount(); i++) {
+                    ICalendarEvent a = group.getEvents().get(group.getPairFirst(i));
+                    ICalendarEvent b = group.getEvents().get(group.getPairSecond(i));
+                    assertTrue(a.getStartTime() <= b.getStartTime());
+                    assertTrue(actual.add(pair(indexes.get(a), indexes.get(b))));
+                }
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static String pair(int lhs, int rhs) {
+        return Math.min(lhs, rhs) + ":" + Math.max(lhs, rhs);
+    }
+
+    private static TestEvent event(int startMinute, int endMinute) {
+        return new TestEvent("e" + startMinute, startMinute * MINUTE, endMinute * MINUTE);
+    }
+}
@@ -0,0 +1,41 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.util.DayRangeSet;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class DayBlockLruTest {
+
+    @Test
+    public void leastRecentlyUsedBlockIsEvictedFirst() {
+        DayBlockLru lru = new DayBlockLru();
+        DayRangeSet loaded = new DayRangeSet();
+        loaded.add(-64, 127);
+        lru.touch(0, 0);
+        lru.touch(100, 100);
+        lru.touch(-10, -10);
+
+        // The blocks that are never accessed come first, then the blocks are ordered by the access.
+        int[] blocks = lru.getEvictionOrder(loaded, new DayRangeSet());
+        assertEquals(6, blocks.length);
+        int[] neverUsed = Arrays.copyOf(blocks, 3);
+        Arrays.sort(neverUsed);
+        assertArrayEquals(new int[]{-2, 1, 2}, neverUsed);
+        assertArrayEquals(new int[]{0, 3, -1}, Arrays.copyOfRange(blocks, 3, 6));
+    }
+
+    @Test
+    public void pinnedBlocksAreNotEvicted() {
+        DayBlockLru lru = new DayBlockLru();
+        DayRangeSet loaded = new DayRangeSet();
+        loaded.add(0, 127);
+        DayRangeSet pinned = new DayRangeSet();
+        pinned.add(40, 70);
+        int[] blocks = lru.getEvictionOrder(loaded, pinned);
+        assertArrayEquals(new int[]{0, 3}, blocks);
+    }
+}
@@ -0,0 +1,64 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DayEventAdapterTest {
+    private static final long MINUTE = 60 * 1000L;
+
+    @Test
+    public void windowContainsTheOverlappingEvents() {
+        Random random = new Random(23);
+        List<ICalendarEvent> events = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            final int start = random.nextInt(24 * 60);
+            final int duration = random.nextInt(10) == 0 ? random.nextInt(12 * 60) : random.nextInt(90);
+            events.add(new TestEvent("e" + i, start * MINUTE, (start + duration) * MINUTE));
+        }
+        DayEventAdapter adapter = new DayEventAdapter(events, Calendar.getInstance());
+
+        for (int windowStart = -60; windowStart < 25 * 60; windowStart += 7) {
+            final long startTime = windowStart * MINUTE;
+            final long endTime = startTime + 2 * 60 * MINUTE;
+            final int first = adapter.findFirstEventEndingAfter(startTime);
+            final int last = adapter.findFirstEventStartingFrom(endTime);
+            for (int i = 0; i < adapter.getEventsCount(); i++) {
+                ICalendarEvent event = adapter.getEvent(adapter.getEventIndex(i));
+                if (event.getStartTime() < endTime && event.getEndTime() > startTime) {
+                    assertTrue(i >= first && i < last);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void eventsKeepTheOrderOfTheHost() {
+        List<ICalendarEvent> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final int start = (20 - i) * 30;
+            events.add(new TestEvent("e" + i, start * MINUTE, (start + 45) * MINUTE));
+        }
+        DayEventAdapter adapter = new DayEventAdapter(events, Calendar.getInstance());
+
+        for (int i = 0; i < events.size(); i++) {
+            assertSame(events.get(i), adapter.getEvent(i));
+            // The last event of the host starts first.
+            assertEquals(events.size() - 1 - i, adapter.getEventIndex(i));
+        }
+    }
+
+    @Test
+    public void emptyAdapterHasEmptyWindow() {
+        DayEventAdapter adapter = new DayEventAdapter();
+        assertEquals(0, adapter.findFirstEventEndingAfter(0));
+        assertEquals(0, adapter.findFirstEventStartingFrom(Long.MAX_VALUE));
+    }
+}
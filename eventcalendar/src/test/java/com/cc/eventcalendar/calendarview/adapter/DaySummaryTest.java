@@ -0,0 +1,78 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DaySummaryTest {
+    private static final long MINUTE = 60 * 1000L;
+    private static final long DAY = 24 * 60 * MINUTE;
+
+    @Test
+    public void overlappingEventsAreMerged() {
+        List<ICalendarEvent> events = Arrays.<ICalendarEvent>asList(
+                event(9 * 60, 10 * 60),
+                event(9 * 60 + 30, 11 * 60),
+                event(10 * 60, 10 * 60 + 15),
+                // Starts when the first one ends, it does not overlap it.
+                event(11 * 60, 12 * 60),
+                event(14 * 60, 15 * 60));
+        DaySummary summary = DaySummary.of(events, 0, DAY);
+        assertEquals(5, summary.getEventCount());
+        assertEquals(4 * 60, summary.getBusyMinutes());
+        assertEquals(2, summary.getMaxOverlap());
+    }
+
+    @Test
+    public void eventsAreClippedToTheDay() {
+        SimpleEvent allDay = new SimpleEvent("all-day", 0, DAY);
+        allDay.setAllDayEvent(true);
+        List<ICalendarEvent> events = Arrays.<ICalendarEvent>asList(
+                event(-60, 60),
+                event(23 * 60, 25 * 60),
+                allDay);
+        DaySummary summary = DaySummary.of(events, 0, DAY);
+        assertEquals(3, summary.getEventCount());
+        assertEquals(2 * 60, summary.getBusyMinutes());
+        assertEquals(1, summary.getMaxOverlap());
+        assertSame(DaySummary.EMPTY, DaySummary.of(null, 0, DAY));
+    }
+
+    @Test
+    public void matchesMinuteByMinuteCount() {
+        Random random = new Random(5);
+        for (int round = 0; round < 200; round++) {
+            List<ICalendarEvent> events = new ArrayList<>();
+            int[] cover = new int[24 * 60];
+            for (int i = random.nextInt(30); i > 0; i--) {
+                final int start = random.nextInt(24 * 60 + 120) - 60;
+                final int end = start + random.nextInt(300);
+                events.add(event(start, end));
+                for (int minute = Math.max(start, 0); minute < Math.min(end, cover.length); minute++) {
+                    cover[minute]++;
+                }
+            }
+
+            int busy = 0;
+            int max = 0;
+            for (int c : cover) {
+                busy += c > 0 ? 1 : 0;
+                max = Math.max(max, c);
+            }
+            DaySummary summary = DaySummary.of(events, 0, DAY);
+            assertEquals(busy, summary.getBusyMinutes());
+            assertEquals(max, summary.getMaxOverlap());
+        }
+    }
+
+    private static TestEvent event(int startMinute, int endMinute) {
+        return new TestEvent("e" + startMinute, startMinute * MINUTE, endMinute * MINUTE);
+    }
+}
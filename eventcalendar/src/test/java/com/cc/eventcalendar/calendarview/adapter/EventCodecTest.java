@@ -0,0 +1,69 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EventCodecTest {
+
+    @Test
+    public void eventsAreRestored() throws IOException {
+        List<TestEvent> events = createEvents(500);
+        for (boolean deflate : new boolean[]{false, true}) {
+            List<ICalendarEvent> decoded = EventCodec.decode(EventCodec.encode(events, deflate));
+            assertEquals(events.size(), decoded.size());
+            for (int i = 0; i < events.size(); i++) {
+                TestEvent expected = events.get(i);
+                ICalendarEvent actual = decoded.get(i);
+                assertEquals(expected.getID(), actual.getID());
+                assertEquals(expected.getStartTime(), actual.getStartTime());
+                assertEquals(expected.getEndTime(), actual.getEndTime());
+                assertEquals(expected.getTitle(), actual.getTitle());
+                assertEquals(expected.getComment(), actual.getComment());
+                assertEquals(expected.getCreator(), actual.getCreator());
+                assertEquals(expected.getType(), actual.getType());
+            }
+        }
+    }
+
+    @Test
+    public void repeatedStringsAreWrittenOnce() {
+        List<TestEvent> events = createEvents(1000);
+        byte[] plain = EventCodec.encode(events, false);
+        // Every event needs a few bytes for the times and the id, the titles are shared.
+        assertTrue("size " + plain.length, plain.length < events.size() * 24);
+        assertTrue(EventCodec.encode(events, true).length < plain.length);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedDataIsRejected() throws IOException {
+        byte[] data = EventCodec.encode(createEvents(10), false);
+        EventCodec.decode(Arrays.copyOf(data, data.length - 3));
+    }
+
+    private static List<TestEvent> createEvents(int count) {
+        Random random = new Random(17);
+        String[] titles = {"Standup", "Review", "Lunch", null};
+        List<TestEvent> events = new ArrayList<>();
+        long time = 1451606400000L;
+        for (int i = 0; i < count; i++) {
+            time += random.nextInt(3) * OSTimeUtil.MILLIS_IN_HOUR - OSTimeUtil.MILLIS_IN_HOUR / 2;
+            TestEvent event = new TestEvent("e" + i, time, time + random.nextInt(4) * 15 * 60000L);
+            event.setTitle(titles[random.nextInt(titles.length)]);
+            event.setCreator(random.nextBoolean() ? "alice" : "bob");
+            event.setComment(i % 100 == 0 ? "note " + i : null);
+            event.setType(random.nextInt(3) - 1);
+            events.add(event);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,147 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EventColumnLayoutTest {
+    private static final long MINUTE = 60 * 1000L;
+
+    @Test
+    public void allOverlappingEventsGetTheirOwnColumns() {
+        List<ICalendarEvent> events = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            events.add(event(9 * 60 + i % 60, 11 * 60 - i % 45));
+        }
+        int[][] layout = layout(events);
+        int[] columns = layout[0];
+        int[] columnCounts = layout[1];
+
+        boolean[] used = new boolean[200];
+        for (int i = 0; i < 200; i++) {
+            assertEquals(200, columnCounts[i]);
+            assertFalse(used[columns[i]]);
+            used[columns[i]] = true;
+        }
+    }
+
+    @Test
+    public void chainOfEventsSharesFewColumns() {
+        List<ICalendarEvent> events = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            events.add(event(i * 10, i * 10 + 25));
+        }
+        int[][] layout = layout(events);
+        int[] columns = layout[0];
+        int[] columnCounts = layout[1];
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i % 3, columns[i]);
+            assertEquals(3, columnCounts[i]);
+        }
+    }
+
+    @Test
+    public void columnsMatchTheMaximumOverlap() {
+        Random random = new Random(21);
+        for (int round = 0; round < 100; round++) {
+            List<ICalendarEvent> events = new ArrayList<>();
+            for (int i = random.nextInt(200); i > 0; i--) {
+                final int start = random.nextInt(24 * 60);
+                events.add(event(start, start + random.nextInt(180)));
+            }
+            int[][] layout = layout(events);
+            int[] columns = layout[0];
+            int[] columnCounts = layout[1];
+
+            for (int i = 0; i < events.size(); i++) {
+                assertTrue(columns[i] < columnCounts[i]);
+                int overlap = 0;
+                for (int j = 0; j < events.size(); j++) {
+                    if (overlaps(events.get(i), events.get(j))) {
+                        assertEquals(columnCounts[i], columnCounts[j]);
+                        if (i != j) {
+                            assertNotEquals(columns[i], columns[j]);
+                        }
+                    }
+                    // The events that happen at the start of the event.
+                    if (events.get(j).getStartTime() <= events.get(i).getStartTime()
+                            && events.get(j).getEndTime() > events.get(i).getStartTime()) {
+                        overlap++;
+                    }
+                }
+                assertTrue(overlap <= columnCounts[i]);
+            }
+        }
+    }
+
+    @Test
+    public void adapterSortsAndLaysOutTheEvents() {
+        TestEvent late = event(10 * 60, 11 * 60);
+        TestEvent early = event(9 * 60, 10 * 60 + 30);
+        TestEvent after = event(11 * 60, 12 * 60);
+        DayEventAdapter adapter = new DayEventAdapter(Arrays.<ICalendarEvent>asList(after, late, early),
+                Calendar.getInstance());
+        // The events keep the order of the host, the sorted order is in the indices.
+        assertSame(after, adapter.getEvent(0));
+        assertSame(late, adapter.getEvent(1));
+        assertSame(early, adapter.getEvent(2));
+        assertEquals(2, adapter.getEventIndex(0));
+        assertEquals(1, adapter.getEventIndex(1));
+        assertEquals(0, adapter.getEventIndex(2));
+        assertEquals(0, adapter.getEventColumn(2));
+        assertEquals(1, adapter.getEventColumn(1));
+        assertEquals(2, adapter.getEventColumnCount(1));
+        // It starts when the others end, so it has the whole width.
+        assertEquals(0, adapter.getEventColumn(0));
+        assertEquals(1, adapter.getEventColumnCount(0));
+    }
+
+    @Test
+    public void shortEventsArePackedByTheMinimumHeight() {
+        // The events are shorter than the minimum height, so they are drawn over each other.
+        TestEvent first = event(9 * 60, 9 * 60 + 5);
+        TestEvent second = event(9 * 60 + 5, 9 * 60 + 10);
+        TestEvent later = event(9 * 60 + 10, 9 * 60 + 40);
+        DayEventAdapter adapter = new DayEventAdapter(Arrays.<ICalendarEvent>asList(first, second, later),
+                Calendar.getInstance());
+        assertEquals(1, adapter.getEventColumnCount(0));
+        assertEquals(0, adapter.getEventColumn(1));
+
+        adapter.setMinEventDuration(10 * MINUTE);
+        assertEquals(0, adapter.getEventColumn(0));
+        assertEquals(1, adapter.getEventColumn(1));
+        assertEquals(0, adapter.getEventColumn(2));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2, adapter.getEventColumnCount(i));
+        }
+    }
+
+    /**
+     * @return the columns and the column counts of the events, the events are sorted.
+     */
+    private static int[][] layout(List<ICalendarEvent> events) {
+        Collections.sort(events, EventColumnLayout.LAYOUT_ORDER);
+        int[] order = new int[events.size()];
+        EventColumnLayout.sort(events, order);
+        int[][] ret = new int[2][events.size()];
+        EventColumnLayout.layout(events, order, 0, ret[0], ret[1]);
+        return ret;
+    }
+
+    private static boolean overlaps(ICalendarEvent a, ICalendarEvent b) {
+        return a.getStartTime() < b.getEndTime() && b.getStartTime() < a.getEndTime();
+    }
+
+    private static TestEvent event(int startMinute, int endMinute) {
+        return new TestEvent("e" + startMinute, startMinute * MINUTE, endMinute * MINUTE);
+    }
+}
@@ -0,0 +1,84 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EventDayBitmapTest {
+    private EventDayBitmap mBitmap;
+
+    @Before
+    public void setUp() {
+        mBitmap = new EventDayBitmap();
+    }
+
+    @Test
+    public void overlappedDaysAreCounted() {
+        mBitmap.add(100, 102);
+        mBitmap.add(102, 104);
+        mBitmap.remove(100, 102);
+
+        assertFalse(mBitmap.get(101));
+        assertTrue(mBitmap.get(102));
+        assertTrue(mBitmap.get(104));
+        assertEquals(0x7L, mBitmap.getRange(102, 5));
+    }
+
+    @Test
+    public void growsToBothDirections() {
+        mBitmap.add(20000, 20000);
+        mBitmap.add(-3000, -2999);
+        mBitmap.add(40000, 40000);
+
+        assertTrue(mBitmap.get(20000));
+        assertTrue(mBitmap.get(-3000));
+        assertTrue(mBitmap.get(-2999));
+        assertTrue(mBitmap.get(40000));
+        assertFalse(mBitmap.get(-3001));
+        assertEquals(0L, mBitmap.getRange(50000, 64));
+    }
+
+    @Test
+    public void rangeMatchesSingleDays() {
+        Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            int first = 17000 + random.nextInt(400);
+            mBitmap.add(first, first + random.nextInt(3));
+        }
+
+        for (int first = 16900; first < 17500; first++) {
+            int count = 1 + (first % 64);
+            long bits = mBitmap.getRange(first, count);
+            for (int i = 0; i < 64; i++) {
+                boolean expected = i < count && mBitmap.get(first + i);
+                assertEquals(expected, (bits >>> i & 1) != 0);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeIsLimitedToOneWord() {
+        mBitmap.getRange(0, 65);
+    }
+
+    @Test
+    public void snapshotKeepsTheDays() {
+        mBitmap.add(100, 102);
+        EventDayBitmap snapshot = mBitmap.snapshot();
+        mBitmap.remove(100, 102);
+        mBitmap.add(200, 200);
+
+        assertTrue(snapshot.get(101));
+        assertFalse(snapshot.get(200));
+        assertFalse(mBitmap.get(101));
+        assertTrue(mBitmap.get(200));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotIsReadOnly() {
+        mBitmap.snapshot().add(1, 1);
+    }
+}
@@ -0,0 +1,34 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EventFiltersTest {
+
+    @Test
+    public void filtersWithSameArgumentsAreEqual() {
+        assertEquals(EventFilters.ofTypes(1, 2), EventFilters.ofTypes(2, 1));
+        assertEquals(EventFilters.ofTypes(1, 2).hashCode(), EventFilters.ofTypes(2, 1).hashCode());
+        assertNotEquals(EventFilters.ofTypes(1), EventFilters.ofTypes(1, 2));
+        assertEquals(EventFilters.allOf(EventFilters.ofCreators("a", "b"), EventFilters.not(EventFilters.ofTypes(3))),
+                EventFilters.allOf(EventFilters.ofCreators("b", "a"), EventFilters.not(EventFilters.ofTypes(3))));
+        assertNotEquals(EventFilters.allOf(EventFilters.ofTypes(1)), EventFilters.anyOf(EventFilters.ofTypes(1)));
+    }
+
+    @Test
+    public void filtersAreCombined() {
+        SimpleEvent event = new SimpleEvent("id", 0, 1);
+        event.setType(2);
+        event.setCreator("alice");
+
+        assertTrue(EventFilters.ofTypes(1, 2).onFilterEvent(event));
+        assertFalse(EventFilters.ofTypes(1).onFilterEvent(event));
+        assertTrue(EventFilters.ofCreators("alice").onFilterEvent(event));
+        assertFalse(EventFilters.allOf(EventFilters.ofTypes(2), EventFilters.ofCreators("bob")).onFilterEvent(event));
+        assertTrue(EventFilters.anyOf(EventFilters.ofTypes(1), EventFilters.ofCreators("alice")).onFilterEvent(event));
+        assertFalse(EventFilters.anyOf().onFilterEvent(event));
+        assertTrue(EventFilters.allOf().onFilterEvent(event));
+        assertTrue(EventFilters.not(EventFilters.ofTypes(1)).onFilterEvent(event));
+    }
+}
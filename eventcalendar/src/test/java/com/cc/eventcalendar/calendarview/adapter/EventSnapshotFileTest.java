@@ -0,0 +1,104 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EventSnapshotFileTest {
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private long mBaseTime;
+
+    @Before
+    public void setUp() {
+        Calendar c = Calendar.getInstance();
+        c.set(2016, Calendar.JANUARY, 1);
+        OSTimeUtil.changeToStartOfDay(c);
+        mBaseTime = c.getTimeInMillis();
+    }
+
+    @Test
+    public void mappedStoreMatchesTheEvents() throws IOException {
+        Random random = new Random(9);
+        List<TestEvent> events = new ArrayList<>();
+        IntervalTreeEventStore expected = new IntervalTreeEventStore();
+        for (int i = 0; i < 2000; i++) {
+            long start = mBaseTime + (long) (random.nextDouble() * 120 * OSTimeUtil.MILLIS_IN_DAY);
+            long duration = random.nextInt(15) == 0 ? (long) (random.nextDouble() * 10 * OSTimeUtil.MILLIS_IN_DAY)
+                    : random.nextInt(4 * OSTimeUtil.MILLIS_IN_HOUR);
+            TestEvent event = new TestEvent("id-" + i, start, start + duration);
+            event.setTitle(random.nextBoolean() ? "Standup \u4f1a\u8bae" : null);
+            event.setType(random.nextInt(3));
+            events.add(event);
+            expected.addEvent(event);
+        }
+
+        File file = mFolder.newFile("events.snapshot");
+        EventSnapshotFile.write(file, events);
+        MappedEventStore mapped = EventSnapshotFile.open(file);
+        assertNotNull(mapped);
+        assertTrue(EventSnapshotFile.verify(mapped));
+        assertEquals(events.size(), mapped.size());
+
+        for (int day = -3; day < 135; day++) {
+            int key = EventsAdapter.getKey(mBaseTime + (long) day * OSTimeUtil.MILLIS_IN_DAY);
+            assertEquals(expected.hasEventsOnDay(key), mapped.hasEventsOnDay(key));
+            List<? extends ICalendarEvent> expectedEvents = expected.getEventsOfDay(key);
+            List<? extends ICalendarEvent> mappedEvents = mapped.getEventsOfDay(key);
+            assertEquals(expectedEvents == null ? 0 : expectedEvents.size(), mappedEvents == null ? 0 : mappedEvents.size());
+            if (mappedEvents != null) {
+                for (ICalendarEvent event : mappedEvents) {
+                    TestEvent original = events.get(Integer.parseInt(event.getID().substring(3)));
+                    assertEquals(original.getTitle(), event.getTitle());
+                    assertEquals(original.getType(), event.getType());
+                    assertEquals(original.getEndTime(), event.getEndTime());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void brokenFileIsRejected() throws IOException {
+        List<TestEvent> events = new ArrayList<>();
+        events.add(new TestEvent("a", mBaseTime, mBaseTime + OSTimeUtil.MILLIS_IN_HOUR));
+        File file = mFolder.newFile("events.snapshot");
+        EventSnapshotFile.write(file, events);
+        assertTrue(EventSnapshotFile.verify(EventSnapshotFile.open(file)));
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.seek(EventSnapshotFile.HEADER_SIZE + 3);
+            randomAccessFile.write(0x7f);
+        } finally {
+            randomAccessFile.close();
+        }
+        // The header is intact, the broken body is found by the checksum.
+        MappedEventStore broken = EventSnapshotFile.open(file);
+        assertNotNull(broken);
+        assertFalse(EventSnapshotFile.verify(broken));
+        assertNull(EventSnapshotFile.open(new File(mFolder.getRoot(), "missing")));
+
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.writeInt(0);
+        } finally {
+            randomAccessFile.close();
+        }
+        assertNull(EventSnapshotFile.open(file));
+    }
+}
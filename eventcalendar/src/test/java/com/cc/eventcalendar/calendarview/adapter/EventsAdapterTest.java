@@ -0,0 +1,88 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.util.DayKey;
+import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EventsAdapterTest {
+    private int mDay;
+    private long mDayStart;
+
+    @Before
+    public void setUp() {
+        Calendar c = Calendar.getInstance();
+        c.set(2016, Calendar.MARCH, 7);
+        OSTimeUtil.changeToStartOfDay(c);
+        mDayStart = c.getTimeInMillis();
+        mDay = DayKey.of(mDayStart);
+    }
+
+    @Test
+    public void eventWithoutIdMarksItsDays() {
+        EventsAdapter adapter = new EventsAdapter(new IntervalTreeEventStore());
+        final long start = mDayStart + 9 * OSTimeUtil.MILLIS_IN_HOUR;
+        adapter.addEvent(new TestEvent(null, start, start + OSTimeUtil.MILLIS_IN_HOUR));
+
+        assertEquals(1, adapter.getEvent(mDay).size());
+        assertTrue(adapter.hasEvent(start));
+        assertEquals(1L, adapter.getEventDays(mDay, 2));
+
+        adapter.setEventFilter(new EventsAdapter.EventFilter() {
+            @Override
+            public boolean onFilterEvent(ICalendarEvent event) {
+                return false;
+            }
+        });
+        assertFalse(adapter.hasEvent(start));
+        adapter.setEventFilter(null);
+        assertTrue(adapter.hasEvent(start));
+    }
+
+    @Test
+    public void eventsWithoutIdAreReplacedBySetEvents() {
+        EventsAdapter adapter = new EventsAdapter(new IntervalTreeEventStore());
+        final long start = mDayStart + 20 * OSTimeUtil.MILLIS_IN_HOUR;
+        List<ICalendarEvent> events = new ArrayList<>();
+        // The event spans two days.
+        events.add(new TestEvent("", start, start + 8 * OSTimeUtil.MILLIS_IN_HOUR));
+        events.add(new TestEvent("a", start, start + OSTimeUtil.MILLIS_IN_HOUR));
+        adapter.setEvents(events);
+        assertEquals(3L, adapter.getEventDays(mDay, 3));
+
+        events.remove(0);
+        adapter.setEvents(events);
+        assertEquals(1L, adapter.getEventDays(mDay, 3));
+        adapter.setEvents(new ArrayList<ICalendarEvent>());
+        assertEquals(0L, adapter.getEventDays(mDay, 3));
+    }
+
+    @Test
+    public void eventsWithoutIdAreReplacedByUpdateOneDayEvents() {
+        EventStore[] stores = {new IntervalTreeEventStore(), new ColumnarEventStore()};
+        for (EventStore store : stores) {
+            EventsAdapter adapter = new EventsAdapter(store);
+            final long start = mDayStart + 20 * OSTimeUtil.MILLIS_IN_HOUR;
+            List<BaseEvent> events = new ArrayList<>();
+            // The event spans two days.
+            events.add(new TestEvent(null, start, start + 8 * OSTimeUtil.MILLIS_IN_HOUR));
+            adapter.updateOneDayEvents(events, mDayStart);
+            adapter.updateOneDayEvents(events, mDayStart);
+            assertEquals(1, adapter.getEvent(mDay).size());
+            assertEquals(1, adapter.getEvent(mDay + 1).size());
+            assertEquals(3L, adapter.getEventDays(mDay, 3));
+
+            adapter.updateOneDayEvents(new ArrayList<BaseEvent>(), mDayStart);
+            assertTrue(adapter.getEvent(mDay + 1) == null || adapter.getEvent(mDay + 1).isEmpty());
+            assertEquals(0L, adapter.getEventDays(mDay, 3));
+        }
+    }
+}
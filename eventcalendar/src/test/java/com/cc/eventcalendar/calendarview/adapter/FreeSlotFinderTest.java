@@ -0,0 +1,115 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.util.DayKey;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class FreeSlotFinderTest {
+    private static final long MINUTE = 60 * 1000L;
+    private static final long DAY = 24 * 60 * MINUTE;
+
+    /**
+     * 1970-01-05 is a Monday.
+     */
+    private static final long MONDAY = 4 * DAY;
+
+    private TimeZone mDefaultTimeZone;
+
+    @Before
+    public void setUp() {
+        mDefaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        DayKey.setTimeZone(null);
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(mDefaultTimeZone);
+        DayKey.setTimeZone(null);
+    }
+
+    @Test
+    public void slotsFillTheGapsBetweenEvents() {
+        List<ICalendarEvent> events = Arrays.<ICalendarEvent>asList(
+                event(MONDAY, 9 * 60, 10 * 60),
+                event(MONDAY, 9 * 60 + 30, 11 * 60),
+                event(MONDAY, 12 * 60, 13 * 60));
+        long[] slots = FreeSlotFinder.find(events, MONDAY + 9 * 60 * MINUTE, MONDAY + 14 * 60 * MINUTE,
+                30 * MINUTE, null, 10);
+        assertArrayEquals(new long[]{
+                MONDAY + 11 * 60 * MINUTE,
+                MONDAY + (11 * 60 + 30) * MINUTE,
+                MONDAY + 13 * 60 * MINUTE,
+                MONDAY + (13 * 60 + 30) * MINUTE}, slots);
+
+        slots = FreeSlotFinder.find(events, MONDAY + 9 * 60 * MINUTE, MONDAY + 14 * 60 * MINUTE,
+                30 * MINUTE, null, 1);
+        assertArrayEquals(new long[]{MONDAY + 11 * 60 * MINUTE}, slots);
+    }
+
+    @Test
+    public void slotsAreInTheWorkingHours() {
+        SimpleEvent allDay = new SimpleEvent("all-day", MONDAY, MONDAY + DAY);
+        allDay.setAllDayEvent(true);
+        List<ICalendarEvent> events = Arrays.<ICalendarEvent>asList(
+                allDay,
+                // It ends in the working hours of Tuesday.
+                event(MONDAY, 16 * 60, 24 * 60 + 10 * 60));
+        WorkingHours hours = new WorkingHours(9 * 60, 17 * 60, Calendar.MONDAY, Calendar.TUESDAY);
+        long[] slots = FreeSlotFinder.find(events, MONDAY, MONDAY + 7 * DAY, 3 * 60 * MINUTE, hours, 10);
+        assertArrayEquals(new long[]{
+                MONDAY + 9 * 60 * MINUTE,
+                MONDAY + 12 * 60 * MINUTE,
+                MONDAY + DAY + 10 * 60 * MINUTE,
+                MONDAY + DAY + 13 * 60 * MINUTE}, slots);
+    }
+
+    @Test
+    public void slotsDoNotOverlapEvents() {
+        Random random = new Random(19);
+        final long duration = 45 * MINUTE;
+        for (int round = 0; round < 100; round++) {
+            List<ICalendarEvent> events = new ArrayList<>();
+            for (int i = random.nextInt(60); i > 0; i--) {
+                final int start = random.nextInt(3 * 24 * 60);
+                events.add(event(MONDAY, start, start + 1 + random.nextInt(240)));
+            }
+            Collections.shuffle(events, random);
+
+            long[] slots = FreeSlotFinder.find(events, MONDAY, MONDAY + 3 * DAY, duration,
+                    new WorkingHours(8 * 60, 20 * 60), Integer.MAX_VALUE);
+            long previousEnd = Long.MIN_VALUE;
+            for (long slot : slots) {
+                assertTrue(slot >= previousEnd);
+                final long minute = (slot - MONDAY) % DAY / MINUTE;
+                assertTrue(minute >= 8 * 60 && minute + 45 <= 20 * 60);
+                for (ICalendarEvent event : events) {
+                    assertTrue(event.getEndTime() <= slot || event.getStartTime() >= slot + duration);
+                }
+                previousEnd = slot + duration;
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void durationMustBePositive() {
+        FreeSlotFinder.find(Collections.<ICalendarEvent>emptyList(), 0, DAY, 0, null, 1);
+    }
+
+    private static TestEvent event(long day, int startMinute, int endMinute) {
+        return new TestEvent("e" + startMinute, day + startMinute * MINUTE, day + endMinute * MINUTE);
+    }
+}
@@ -0,0 +1,188 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import com.cc.eventcalendar.calendarview.ICalendarEvent;
+import com.cc.eventcalendar.calendarview.util.OSTimeUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class IntervalTreeEventStoreTest {
+    private IntervalTreeEventStore mStore;
+    private long mBaseTime;
+
+    @Before
+    public void setUp() {
+        mStore = new IntervalTreeEventStore();
+        Calendar c = Calendar.getInstance();
+        c.set(2016, Calendar.JANUARY, 1);
+        OSTimeUtil.changeToStartOfDay(c);
+        mBaseTime = c.getTimeInMillis();
+    }
+
+    @Test
+    public void multiDayEventIsStoredOnce() {
+        mStore.addEvent(new TestEvent("year", mBaseTime, mBaseTime + 365L * OSTimeUtil.MILLIS_IN_DAY));
+        assertEquals(1, mStore.size());
+
+        long day = mBaseTime + 100L * OSTimeUtil.MILLIS_IN_DAY;
+        List<? extends ICalendarEvent> events = mStore.getEventsOfDay(EventsAdapter.getKey(day));
+        assertNotNull(events);
+        assertEquals("year", events.get(0).getID());
+        assertTrue(mStore.removeEvent("year", mBaseTime, mBaseTime + 365L * OSTimeUtil.MILLIS_IN_DAY));
+        assertEquals(0, mStore.size());
+        assertFalse(mStore.hasEventsOnDay(EventsAdapter.getKey(day)));
+    }
+
+    @Test
+    public void eventEndsAtMidnightIsNotOnNextDay() {
+        mStore.addEvent(new TestEvent("evening", mBaseTime + 20 * OSTimeUtil.MILLIS_IN_HOUR, mBaseTime + OSTimeUtil.MILLIS_IN_DAY));
+        assertTrue(mStore.hasEventsOnDay(EventsAdapter.getKey(mBaseTime)));
+        assertFalse(mStore.hasEventsOnDay(EventsAdapter.getKey(mBaseTime + OSTimeUtil.MILLIS_IN_DAY)));
+    }
+
+    @Test
+    public void rangeQueryMatchesLinearScan() {
+        Random random = new Random(42);
+        List<ICalendarEvent> all = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long start = mBaseTime + (long) (random.nextDouble() * 60 * OSTimeUtil.MILLIS_IN_DAY);
+            long duration = random.nextInt(10) == 0 ? (long) (random.nextDouble() * 10 * OSTimeUtil.MILLIS_IN_DAY)
+                    : random.nextInt(4 * OSTimeUtil.MILLIS_IN_HOUR);
+            TestEvent event = new TestEvent("id-" + i, start, start + duration);
+            all.add(event);
+            mStore.addEvent(event);
+        }
+
+        // Remove some of the events to exercise the rebalancing.
+        for (int i = all.size() - 1; i >= 0; i -= 3) {
+            ICalendarEvent event = all.remove(i);
+            assertTrue(mStore.removeEvent(event.getID(), event.getStartTime(), event.getEndTime()));
+        }
+        assertEquals(all.size(), mStore.size());
+
+        for (int i = 0; i < 200; i++) {
+            long start = mBaseTime + (long) (random.nextDouble() * 70 * OSTimeUtil.MILLIS_IN_DAY);
+            long end = start + random.nextInt(3 * OSTimeUtil.MILLIS_IN_DAY);
+            Set<String> expected = new HashSet<>();
+            for (ICalendarEvent event : all) {
+                if (event.getStartTime() < end && event.getEndTime() > start) {
+                    expected.add(event.getID());
+                }
+            }
+
+            List<ICalendarEvent> result = mStore.getEvents(start, end);
+            Set<String> actual = new HashSet<>();
+            long lastStart = Long.MIN_VALUE;
+            for (ICalendarEvent event : result) {
+                actual.add(event.getID());
+                assertTrue(event.getStartTime() >= lastStart);
+                lastStart = event.getStartTime();
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void setEventsOfDayReplacesTheDay() {
+        mStore.addEvent(new TestEvent("a", mBaseTime + OSTimeUtil.MILLIS_IN_HOUR, mBaseTime + 2 * OSTimeUtil.MILLIS_IN_HOUR));
+        mStore.addEvent(new TestEvent("b", mBaseTime + 3 * OSTimeUtil.MILLIS_IN_HOUR, mBaseTime + 4 * OSTimeUtil.MILLIS_IN_HOUR));
+        List<BaseEvent> events = new ArrayList<>();
+        events.add(new TestEvent("c", mBaseTime + 5 * OSTimeUtil.MILLIS_IN_HOUR, mBaseTime + 6 * OSTimeUtil.MILLIS_IN_HOUR));
+        mStore.setEventsOfDay(EventsAdapter.getKey(mBaseTime), events);
+
+        assertEquals(1, mStore.size());
+        List<ICalendarEvent> result = mStore.getEvents(mBaseTime, mBaseTime + OSTimeUtil.MILLIS_IN_DAY);
+        assertEquals(1, result.size());
+        assertEquals("c", result.get(0).getID());
+    }
+
+    @Test
+    public void snapshotIsNotChangedByWriter() {
+        mStore.addEvent(new TestEvent("a", mBaseTime, mBaseTime + OSTimeUtil.MILLIS_IN_HOUR));
+        EventStore snapshot = mStore.snapshot();
+        mStore.addEvent(new TestEvent("b", mBaseTime, mBaseTime + OSTimeUtil.MILLIS_IN_HOUR));
+        mStore.removeEvent("a", mBaseTime, mBaseTime + OSTimeUtil.MILLIS_IN_HOUR);
+
+        List<ICalendarEvent> events = snapshot.getEvents(mBaseTime, mBaseTime + OSTimeUtil.MILLIS_IN_DAY);
+        assertEquals(1, events.size());
+        assertEquals("a", events.get(0).getID());
+        try {
+            snapshot.clear();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // The snapshot is read-only.
+        }
+    }
+
+    @Test
+    public void readersNeverSeeHalfAppliedChanges() throws InterruptedException {
+        final long start = mBaseTime;
+        final long end = mBaseTime + 60L * OSTimeUtil.MILLIS_IN_DAY;
+        final Object lock = new Object();
+        final AtomicReference<EventStore> published = new AtomicReference<EventStore>(mStore.snapshot());
+        final AtomicBoolean stop = new AtomicBoolean();
+        Thread[] writers = new Thread[2];
+        for (int w = 0; w < writers.length; w++) {
+            final int seed = w;
+            writers[w] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    List<TestEvent> added = new ArrayList<>();
+                    for (int i = 0; !stop.get() && i < 20000; i++) {
+                        synchronized (lock) {
+                            // Every change adds or removes a pair, readers must never see an odd number.
+                            if (added.isEmpty() || random.nextBoolean()) {
+                                long time = start + (long) (random.nextDouble() * (end - start - OSTimeUtil.MILLIS_IN_DAY));
+                                long duration = OSTimeUtil.MILLIS_IN_HOUR + random.nextInt(3 * OSTimeUtil.MILLIS_IN_DAY);
+                                for (int j = 0; j < 2; j++) {
+                                    TestEvent event = new TestEvent(seed + "-" + i + "-" + j, time, time + duration);
+                                    mStore.addEvent(event);
+                                    added.add(event);
+                                }
+                            } else {
+                                for (int j = 0; j < 2; j++) {
+                                    TestEvent event = added.remove(added.size() - 1);
+                                    mStore.removeEvent(event.getID(), event.getStartTime(), event.getEndTime());
+                                }
+                            }
+                            published.set(mStore.snapshot());
+                        }
+                    }
+                }
+            });
+            writers[w].start();
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            EventStore snapshot = published.get();
+            List<ICalendarEvent> events = snapshot.getEvents(start, end + OSTimeUtil.MILLIS_IN_DAY * 4);
+            assertEquals(0, events.size() % 2);
+            Set<String> ids = new HashSet<>();
+            for (ICalendarEvent event : events) {
+                ids.add(event.getID());
+            }
+            for (ICalendarEvent event : events) {
+                String id = event.getID();
+                assertTrue(ids.contains(id.substring(0, id.length() - 1) + (id.endsWith("0") ? "1" : "0")));
+            }
+            // The held snapshot keeps the same events while the writers go on.
+            assertEquals(events.size(), snapshot.getEvents(start, end + OSTimeUtil.MILLIS_IN_DAY * 4).size());
+        }
+        stop.set(true);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+    }
+}
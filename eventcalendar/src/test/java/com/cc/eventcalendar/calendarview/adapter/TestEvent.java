@@ -0,0 +1,84 @@
+package com.cc.eventcalendar.calendarview.adapter;
+
+import android.os.Parcel;
+
+/**
+ * A plain event for the unit tests.
+ */
+public class TestEvent extends BaseEvent {
+    private String mId;
+    private String mTitle;
+    private String mComment;
+    private String mCreator;
+    private int mType;
+
+    public TestEvent(String id, long startTime, long endTime) {
+        mId = id;
+        mStartTime = startTime;
+        mEndTime = endTime;
+    }
+
+    @Override
+    public void setID(String id) {
+        mId = id;
+    }
+
+    @Override
+    public String getID() {
+        return mId;
+    }
+
+    @Override
+    public void setTitle(String title) {
+        mTitle = title;
+    }
+
+    @Override
+    public String getTitle() {
+        return mTitle;
+    }
+
+    @Override
+    public void setComment(String comment) {
+        mComment = comment;
+    }
+
+    @Override
+    public String getComment() {
+        return mComment;
+    }
+
+    @Override
+    public void setCreator(String creator) {
+        mCreator = creator;
+    }
+
+    @Override
+    public String getCreator() {
+        return mCreator;
+    }
+
+    @Override
+    public boolean isAllDayEvent() {
+        return false;
+    }
+
+    public void setType(int type) {
+        mType = type;
+    }
+
+    @Override
+    public int getType() {
+        return mType;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        // Not used by the unit tests.
+    }
+}
@@ -0,0 +1,103 @@
+package com.cc.eventcalendar.calendarview.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class DayKeyTest {
+    private TimeZone mDefaultTimeZone;
+
+    @Before
+    public void setUp() {
+        mDefaultTimeZone = TimeZone.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(mDefaultTimeZone);
+        DayKey.setTimeZone(null);
+    }
+
+    @Test
+    public void keysMatchCalendarInDaylightSavingZones() {
+        String[] zones = {"America/New_York", "Australia/Lord_Howe", "America/Sao_Paulo", "Asia/Kolkata", "UTC"};
+        for (String zone : zones) {
+            useTimeZone(zone);
+            Calendar c = Calendar.getInstance();
+            c.set(1965, Calendar.JANUARY, 1);
+            OSTimeUtil.changeToStartOfDay(c);
+            int key = DayKey.of(c);
+            // Walk 80 years day by day, the keys must be continuous and start at the start of the day.
+            for (int i = 0; i < 80 * 365; i++) {
+                assertEquals(zone + " " + c.getTime(), key + i, DayKey.of(c));
+                assertEquals(zone + " " + c.getTime(), c.getTimeInMillis(), DayKey.getStartTime(key + i));
+                c.add(Calendar.DAY_OF_MONTH, 1);
+                OSTimeUtil.changeToStartOfDay(c);
+            }
+        }
+    }
+
+    @Test
+    public void anyTimeOfDayHasSameKey() {
+        useTimeZone("America/New_York");
+        Random random = new Random(3);
+        Calendar c = Calendar.getInstance();
+        for (int i = 0; i < 10000; i++) {
+            c.setTimeInMillis((long) (random.nextDouble() * 4000000000000L) - 1000000000000L);
+            int key = DayKey.of(c);
+            long start = DayKey.getStartTime(key);
+            long end = DayKey.getStartTime(key + 1);
+            assertTrue(start <= c.getTimeInMillis() && c.getTimeInMillis() < end);
+            assertEquals(key, DayKey.ofEndTime(end));
+        }
+    }
+
+    @Test
+    public void threadsSeeTheSameKeys() throws Exception {
+        useTimeZone("America/New_York");
+        final long base = DayKey.getStartTime(DayKey.of(1450000000000L));
+        final int[] expected = new int[5000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = DayKey.of(base + (long) i * 3 * OSTimeUtil.MILLIS_IN_HOUR);
+        }
+
+        // Every thread adds the blocks of the other threads' days to the shared table.
+        DayKey.setTimeZone(null);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < expected.length; i++) {
+                        final int index = (i * 7 + offset * 1250) % expected.length;
+                        final int key = DayKey.of(base + (long) index * 3 * OSTimeUtil.MILLIS_IN_HOUR);
+                        if (key != expected[index]) {
+                            failure.compareAndSet(null, "time " + index + " has the key " + key);
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get(), failure.get());
+    }
+
+    private static void useTimeZone(String id) {
+        TimeZone.setDefault(TimeZone.getTimeZone(id));
+        DayKey.setTimeZone(null);
+    }
+}
@@ -0,0 +1,82 @@
+package com.cc.eventcalendar.calendarview.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DayRangeSetTest {
+
+    @Test
+    public void adjacentRangesAreMerged() {
+        DayRangeSet set = new DayRangeSet();
+        set.add(10, 19);
+        set.add(30, 39);
+        set.add(20, 29);
+        assertEquals(1, set.size());
+        assertEquals(10, set.getFirstDay(0));
+        assertEquals(39, set.getLastDay(0));
+
+        set.remove(15, 24);
+        assertEquals(2, set.size());
+        assertTrue(set.contains(10, 14));
+        assertFalse(set.contains(10, 15));
+        assertTrue(set.contains(25, 39));
+    }
+
+    @Test
+    public void gapsAreTheMissingRanges() {
+        DayRangeSet set = new DayRangeSet();
+        set.add(10, 19);
+        set.add(30, 39);
+        DayRangeSet gaps = new DayRangeSet();
+        set.getGaps(0, 50, gaps);
+        assertEquals(3, gaps.size());
+        assertEquals(0, gaps.getFirstDay(0));
+        assertEquals(9, gaps.getLastDay(0));
+        assertEquals(20, gaps.getFirstDay(1));
+        assertEquals(29, gaps.getLastDay(1));
+        assertEquals(40, gaps.getFirstDay(2));
+        assertEquals(50, gaps.getLastDay(2));
+    }
+
+    @Test
+    public void matchesBooleanArray() {
+        Random random = new Random(11);
+        DayRangeSet set = new DayRangeSet();
+        boolean[] days = new boolean[300];
+        for (int i = 0; i < 5000; i++) {
+            int first = random.nextInt(days.length);
+            int last = Math.min(days.length - 1, first + random.nextInt(20));
+            boolean add = random.nextInt(3) != 0;
+            if (add) {
+                set.add(first, last);
+            } else {
+                set.remove(first, last);
+            }
+            for (int day = first; day <= last; day++) {
+                days[day] = add;
+            }
+
+            int queryFirst = random.nextInt(days.length);
+            int queryLast = Math.min(days.length - 1, queryFirst + random.nextInt(40));
+            boolean all = true;
+            for (int day = queryFirst; day <= queryLast; day++) {
+                all &= days[day];
+            }
+            assertEquals(all, set.contains(queryFirst, queryLast));
+
+            DayRangeSet gaps = new DayRangeSet();
+            set.getGaps(queryFirst, queryLast, gaps);
+            for (int day = queryFirst; day <= queryLast; day++) {
+                assertEquals(!days[day], gaps.contains(day, day));
+            }
+        }
+
+        // The ranges are sorted, disjoint and not adjacent.
+        for (int i = 1; i < set.size(); i++) {
+            assertTrue(set.getLastDay(i - 1) + 1 < set.getFirstDay(i));
+        }
+    }
+}
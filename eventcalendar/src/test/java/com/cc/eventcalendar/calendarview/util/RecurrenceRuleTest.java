@@ -0,0 +1,133 @@
+package com.cc.eventcalendar.calendarview.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class RecurrenceRuleTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private TimeZone mDefaultTimeZone;
+
+    @Before
+    public void setUp() {
+        mDefaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        DayKey.setTimeZone(null);
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(mDefaultTimeZone);
+        DayKey.setTimeZone(null);
+    }
+
+    @Test
+    public void dailyKeepsLocalTimeOverDaylightSaving() {
+        RecurrenceRule rule = RecurrenceRule.parse("RRULE:FREQ=DAILY");
+        long start = time(2016, Calendar.MARCH, 10, 9, 0);
+        long[] instances = rule.expand(start, HOUR, start, time(2016, Calendar.MARCH, 15, 0, 0), null);
+        assertEquals(5, instances.length);
+        for (int i = 0; i < instances.length; i++) {
+            assertEquals(time(2016, Calendar.MARCH, 10 + i, 9, 0), instances[i]);
+        }
+    }
+
+    @Test
+    public void weeklyByDayWithInterval() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE");
+        // Wednesday, the Monday of the first week is before the start.
+        long start = time(2016, Calendar.JUNE, 1, 10, 0);
+        long[] instances = rule.expand(start, HOUR, start, time(2016, Calendar.JULY, 1, 0, 0), null);
+        assertArrayEquals(new long[]{
+                time(2016, Calendar.JUNE, 1, 10, 0),
+                time(2016, Calendar.JUNE, 13, 10, 0),
+                time(2016, Calendar.JUNE, 15, 10, 0),
+                time(2016, Calendar.JUNE, 27, 10, 0),
+                time(2016, Calendar.JUNE, 29, 10, 0)}, instances);
+    }
+
+    @Test
+    public void monthlyLastFriday() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY;BYDAY=-1FR");
+        long start = time(2016, Calendar.JANUARY, 29, 17, 0);
+        long[] instances = rule.expand(start, HOUR, time(2016, Calendar.APRIL, 1, 0, 0),
+                time(2016, Calendar.JULY, 1, 0, 0), null);
+        assertArrayEquals(new long[]{
+                time(2016, Calendar.APRIL, 29, 17, 0),
+                time(2016, Calendar.MAY, 27, 17, 0),
+                time(2016, Calendar.JUNE, 24, 17, 0)}, instances);
+    }
+
+    @Test
+    public void monthlySkipsShortMonthsAndYearlySkipsCommonYears() {
+        long start = time(2016, Calendar.JANUARY, 31, 8, 0);
+        long[] monthly = RecurrenceRule.parse("FREQ=MONTHLY").expand(start, HOUR, start,
+                time(2016, Calendar.JUNE, 1, 0, 0), null);
+        assertArrayEquals(new long[]{start, time(2016, Calendar.MARCH, 31, 8, 0), time(2016, Calendar.MAY, 31, 8, 0)},
+                monthly);
+
+        long leapDay = time(2016, Calendar.FEBRUARY, 29, 8, 0);
+        long[] yearly = RecurrenceRule.parse("FREQ=YEARLY").expand(leapDay, HOUR, leapDay,
+                time(2025, Calendar.JANUARY, 1, 0, 0), null);
+        assertArrayEquals(new long[]{leapDay, time(2020, Calendar.FEBRUARY, 29, 8, 0),
+                time(2024, Calendar.FEBRUARY, 29, 8, 0)}, yearly);
+    }
+
+    @Test
+    public void countIsCountedFromTheFirstInstance() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;COUNT=10");
+        long start = time(2016, Calendar.MAY, 1, 9, 0);
+        long[] instances = rule.expand(start, HOUR, time(2016, Calendar.MAY, 8, 0, 0),
+                time(2016, Calendar.JUNE, 1, 0, 0), null);
+        assertArrayEquals(new long[]{time(2016, Calendar.MAY, 8, 9, 0), time(2016, Calendar.MAY, 9, 9, 0),
+                time(2016, Calendar.MAY, 10, 9, 0)}, instances);
+    }
+
+    @Test
+    public void untilAndExceptionDates() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;UNTIL=20160505");
+        long start = time(2016, Calendar.MAY, 1, 9, 0);
+        long[] instances = rule.expand(start, HOUR, start, time(2016, Calendar.JUNE, 1, 0, 0),
+                new long[]{time(2016, Calendar.MAY, 3, 9, 0)});
+        assertArrayEquals(new long[]{start, time(2016, Calendar.MAY, 2, 9, 0), time(2016, Calendar.MAY, 4, 9, 0),
+                time(2016, Calendar.MAY, 5, 9, 0)}, instances);
+    }
+
+    @Test
+    public void rangeFarAfterTheStartSkipsPeriods() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=TU");
+        long start = time(2000, Calendar.JANUARY, 4, 9, 0);
+        long[] instances = rule.expand(start, 2 * HOUR, time(2030, Calendar.JANUARY, 1, 10, 0),
+                time(2030, Calendar.JANUARY, 9, 0, 0), null);
+        // The instance of January 1st 2030 overlaps the start of the range.
+        assertArrayEquals(new long[]{time(2030, Calendar.JANUARY, 1, 9, 0), time(2030, Calendar.JANUARY, 8, 9, 0)},
+                instances);
+    }
+
+    @Test
+    public void invalidRulesAreRejected() {
+        String[] rules = {"", "FREQ=HOURLY", "FREQ=DAILY;INTERVAL=0", "FREQ=YEARLY;BYDAY=MO",
+                "FREQ=WEEKLY;BYDAY=1MO", "FREQ=DAILY;BYMONTH=1", "FREQ=DAILY;UNTIL=2016"};
+        for (String rule : rules) {
+            try {
+                RecurrenceRule.parse(rule);
+                fail(rule);
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+    }
+
+    private static long time(int year, int month, int day, int hour, int minute) {
+        Calendar c = Calendar.getInstance();
+        c.clear();
+        c.set(year, month, day, hour, minute);
+        return c.getTimeInMillis();
+    }
+}